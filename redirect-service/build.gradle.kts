@@ -3,6 +3,7 @@ plugins {
 	id("org.springframework.boot") version "3.5.6"
 	id("io.spring.dependency-management") version "1.1.7"
 	id("io.freefair.lombok") version "8.4"
+	id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "org.js"
@@ -33,9 +34,18 @@ dependencies {
 	implementation("org.springframework.kafka:spring-kafka")
 	implementation("org.springdoc:springdoc-openapi-starter-webmvc-ui:2.8.13")
 	implementation("org.springframework.boot:spring-boot-starter-data-redis")
+	implementation("com.github.ben-manes.caffeine:caffeine")
+
+	// Reactive redirect stack (spring.main.web-application-type=reactive)
+	implementation("org.springframework.boot:spring-boot-starter-webflux")
+	implementation("org.springframework.boot:spring-boot-starter-data-redis-reactive")
+	implementation("org.springframework.boot:spring-boot-starter-data-r2dbc")
+	runtimeOnly("org.postgresql:r2dbc-postgresql")
 
 	runtimeOnly("org.postgresql:postgresql:42.7.2")
 	testImplementation("org.mockito:mockito-core:5.7.0")
+	testImplementation("io.projectreactor:reactor-test")
+	testImplementation("org.springframework.kafka:spring-kafka-test")
 	testImplementation("junit:junit:4.13.1")
 
 	// MapStruct
@@ -50,3 +60,24 @@ dependencies {
 tasks.withType<Test> {
 	useJUnitPlatform()
 }
+
+// Microbenchmarks under src/jmh, run with ./gradlew jmh
+jmh {
+	profilers.add("gc")
+}
+
+// Redis memory per million links for each cache layout (see README)
+tasks.register<JavaExec>("redisMemoryReport") {
+	group = "verification"
+	description = "Compares Redis memory use of the URL cache layouts against a scratch Redis"
+	classpath = sourceSets["jmh"].runtimeClasspath
+	mainClass = "org.js.redirect.benchmark.RedisLayoutMemoryReport"
+}
+
+// Build/reopen time and size per million links of the memory-mapped link snapshot (see README)
+tasks.register<JavaExec>("snapshotReport") {
+	group = "verification"
+	description = "Measures the memory-mapped link snapshot over synthetic links"
+	classpath = sourceSets["jmh"].runtimeClasspath
+	mainClass = "org.js.redirect.benchmark.LinkSnapshotReport"
+}
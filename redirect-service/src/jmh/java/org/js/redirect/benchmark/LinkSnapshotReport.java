@@ -0,0 +1,110 @@
+package org.js.redirect.benchmark;
+
+import org.js.redirect.snapshot.MappedLinkTable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+/**
+ * Build time, reopen time, size per million links and lookup latency of the memory-mapped link snapshot,
+ * over synthetic links with the same URL mix as {@link RedisLayoutMemoryReport}. Not a JMH benchmark; run with
+ * {@code ./gradlew snapshotReport}. Build time excludes Postgres: the service logs and exposes its own
+ * end-to-end load time as {@code redirect.snapshot.load.duration}.
+ * <p>
+ * Environment: REPORT_LINKS (1000000), REPORT_DIR (a temporary directory, deleted afterwards).
+ */
+public final class LinkSnapshotReport {
+
+    private static final String ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+    private static final int LOOKUPS = 1_000_000;
+
+    public static void main(String[] args) throws IOException {
+        int links = Integer.parseInt(env("REPORT_LINKS", "1000000"));
+        String reportDir = env("REPORT_DIR", "");
+        Path directory = reportDir.isEmpty() ? Files.createTempDirectory("link-snapshot-report") : Path.of(reportDir);
+        Path generation = directory.resolve("gen-report");
+
+        try {
+            String[] codes = new String[links];
+            SplittableRandom random = new SplittableRandom(42);
+
+            long buildStartedAt = System.nanoTime();
+            MappedLinkTable table = MappedLinkTable.create(generation, links);
+            for (int i = 0; i < links; i++) {
+                codes[i] = randomCode(random);
+                table.put(codes[i], randomUrl(random), random.nextBoolean() ? null : LocalDateTime.now().plusDays(30));
+            }
+            table.checkpoint(links, true);
+            long buildNanos = System.nanoTime() - buildStartedAt;
+            table.close();
+
+            long openStartedAt = System.nanoTime();
+            MappedLinkTable reopened = MappedLinkTable.open(generation);
+            long openNanos = System.nanoTime() - openStartedAt;
+
+            // Warm the page cache and the JIT, then time random lookups
+            lookups(reopened, codes, random);
+            long lookupStartedAt = System.nanoTime();
+            int found = lookups(reopened, codes, random);
+            long lookupNanos = System.nanoTime() - lookupStartedAt;
+
+            double perLink = (double) reopened.sizeInBytes() / links;
+            System.out.printf("links                %,d (%,d slots)%n", links, reopened.capacity());
+            System.out.printf("build                %,d ms%n", buildNanos / 1_000_000);
+            System.out.printf("reopen               %,.2f ms%n", openNanos / 1e6);
+            System.out.printf("size                 %,d bytes, %.1f bytes/link, %.1f MB per 1M links%n",
+                    reopened.sizeInBytes(), perLink, perLink * 1_000_000 / (1024 * 1024));
+            System.out.printf("lookup               %.0f ns/op (%,d found)%n", (double) lookupNanos / LOOKUPS, found);
+        } finally {
+            if (reportDir.isEmpty()) {
+                try (Stream<Path> files = Files.walk(directory)) {
+                    for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+            }
+        }
+    }
+
+    private static int lookups(MappedLinkTable table, String[] codes, SplittableRandom random) {
+        int found = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            if (table.get(codes[random.nextInt(codes.length)]) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    private static String randomCode(SplittableRandom random) {
+        char[] code = new char[6];
+        for (int i = 0; i < code.length; i++) {
+            code[i] = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+        }
+        return new String(code);
+    }
+
+    /**
+     * Mix of short links and tracking-heavy long ones.
+     */
+    private static String randomUrl(SplittableRandom random) {
+        StringBuilder url = new StringBuilder("https://www.example.com/articles/").append(random.nextInt(1_000_000));
+        if (random.nextInt(4) == 0) {
+            url.append("?utm_source=newsletter&utm_medium=email&utm_campaign=campaign_")
+                    .append(random.nextInt(1000))
+                    .append("&utm_content=banner_")
+                    .append(random.nextInt(100));
+        }
+        return url.toString();
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isBlank() ? defaultValue : value;
+    }
+}
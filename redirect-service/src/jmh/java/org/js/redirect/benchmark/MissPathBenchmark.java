@@ -0,0 +1,91 @@
+package org.js.redirect.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.js.redirect.exception.model.GenericErrorResponse;
+import org.js.redirect.exception.model.UrlNotFoundException;
+import org.js.redirect.service.model.ResolveResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of answering a not-found code: exception + handler + JSON serialization
+ * versus a shared result constant + preallocated body bytes.
+ * Run with the gc profiler (configured in build.gradle.kts) to see bytes allocated per op.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MissPathBenchmark {
+
+    private static final byte[] NOT_FOUND_BODY = "{\"message\":\"No URL found\"}".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Frames between the throw site and the handler; a servlet request is usually 80-150 deep.
+     */
+    @Param({"10", "120"})
+    public int stackDepth;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+
+    @Benchmark
+    public byte[] exceptionPath() throws IOException {
+        out.reset();
+
+        ResponseEntity<GenericErrorResponse> response;
+        try {
+            throwAtDepth(stackDepth);
+            return null;
+        } catch (UrlNotFoundException e) {
+            // Mirrors GlobalExceptionHandler.handleUrlNotFoundException
+            response = ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(GenericErrorResponse.builder().message("No URL found").build());
+        }
+
+        objectMapper.writeValue(out, response.getBody());
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public int resultPath() {
+        out.reset();
+
+        ResolveResult result = resolveAtDepth(stackDepth);
+        if (result.status() == ResolveResult.Status.NOT_FOUND) {
+            out.write(NOT_FOUND_BODY, 0, NOT_FOUND_BODY.length);
+        }
+        return out.size();
+    }
+
+    private static void throwAtDepth(int depth) {
+        if (depth == 0) {
+            throw new UrlNotFoundException();
+        }
+        throwAtDepth(depth - 1);
+    }
+
+    private static ResolveResult resolveAtDepth(int depth) {
+        if (depth == 0) {
+            return ResolveResult.NOT_FOUND;
+        }
+        return resolveAtDepth(depth - 1);
+    }
+}
@@ -0,0 +1,134 @@
+package org.js.redirect.benchmark;
+
+import org.js.redirect.cache.HashBucketUrlCacheStore;
+import org.js.redirect.cache.RedisUrlEntry;
+import org.js.redirect.cache.StringUrlCacheStore;
+import org.js.redirect.cache.UrlCacheStore;
+import org.js.redirect.cache.UrlValueCodec;
+import org.js.redirect.config.RedisConfig;
+import org.js.redirect.config.RedisLayoutProperties;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+
+import java.time.LocalDateTime;
+import java.util.Properties;
+import java.util.SplittableRandom;
+
+/**
+ * Redis memory per million links for each cache layout, measured as the used_memory delta after
+ * writing synthetic links through the real stores. Not a JMH benchmark; run with
+ * {@code ./gradlew redisMemoryReport} against a scratch Redis.
+ * <p>
+ * Environment: REDIS_HOST (localhost), REDIS_PORT (6379), REPORT_DB (15, flushed before and after
+ * every layout), REPORT_LINKS (1000000), REPORT_BUCKETS (links / 64).
+ */
+public final class RedisLayoutMemoryReport {
+
+    private static final String ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+    private static final int CHUNK = 10_000;
+    private static final long TTL_SECONDS = 86_400;
+
+    public static void main(String[] args) {
+        RedisStandaloneConfiguration configuration = new RedisStandaloneConfiguration(
+                env("REDIS_HOST", "localhost"), Integer.parseInt(env("REDIS_PORT", "6379")));
+        configuration.setDatabase(Integer.parseInt(env("REPORT_DB", "15")));
+        int links = Integer.parseInt(env("REPORT_LINKS", "1000000"));
+        int buckets = Integer.parseInt(env("REPORT_BUCKETS", Integer.toString(Math.max(1, links / 64))));
+
+        LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(configuration);
+        connectionFactory.afterPropertiesSet();
+
+        try {
+            RedisTemplate<String, String> redisTemplate = new RedisConfig().redisTemplate(connectionFactory);
+
+            System.out.printf("%-22s %14s %14s %16s%n", "layout", "used bytes", "bytes/link", "MB per 1M links");
+            for (boolean compressed : new boolean[]{false, true}) {
+                RedisLayoutProperties properties = new RedisLayoutProperties();
+                properties.setCompressionEnabled(compressed);
+                properties.setBucketCount(buckets);
+                UrlValueCodec codec = new UrlValueCodec(properties);
+
+                report("string" + (compressed ? "+deflate" : ""), redisTemplate, links,
+                        new StringUrlCacheStore(redisTemplate, codec));
+                report("hash" + (compressed ? "+deflate" : ""), redisTemplate, links,
+                        new HashBucketUrlCacheStore(redisTemplate, codec, properties));
+            }
+        } finally {
+            connectionFactory.destroy();
+        }
+    }
+
+    private static void report(String name, RedisTemplate<String, String> redisTemplate, int links, UrlCacheStore store) {
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        });
+        long before = usedMemory(redisTemplate);
+
+        // Same seed for every layout so they store identical links
+        SplittableRandom random = new SplittableRandom(42);
+        for (int from = 0; from < links; from += CHUNK) {
+            int count = Math.min(CHUNK, links - from);
+            redisTemplate.executePipelined(new SessionCallback<>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, String> stringOperations = (RedisOperations<String, String>) operations;
+                    for (int i = 0; i < count; i++) {
+                        store.put(stringOperations, randomCode(random), randomEntry(random), TTL_SECONDS);
+                    }
+                    return null;
+                }
+            });
+        }
+
+        long used = usedMemory(redisTemplate) - before;
+        double perLink = (double) used / links;
+        System.out.printf("%-22s %14d %14.1f %16.1f%n", name, used, perLink, perLink * 1_000_000 / (1024 * 1024));
+
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        });
+    }
+
+    private static long usedMemory(RedisTemplate<String, String> redisTemplate) {
+        Properties info = redisTemplate.execute((RedisCallback<Properties>) (RedisConnection connection) ->
+                connection.serverCommands().info("memory"));
+        return Long.parseLong(info.getProperty("used_memory"));
+    }
+
+    private static String randomCode(SplittableRandom random) {
+        char[] code = new char[6];
+        for (int i = 0; i < code.length; i++) {
+            code[i] = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+        }
+        return new String(code);
+    }
+
+    /**
+     * Mix of short links and tracking-heavy long ones.
+     */
+    private static RedisUrlEntry randomEntry(SplittableRandom random) {
+        StringBuilder url = new StringBuilder("https://www.example.com/articles/").append(random.nextInt(1_000_000));
+        if (random.nextInt(4) == 0) {
+            url.append("?utm_source=newsletter&utm_medium=email&utm_campaign=campaign_")
+                    .append(random.nextInt(1000))
+                    .append("&utm_content=banner_")
+                    .append(random.nextInt(100));
+        }
+
+        LocalDateTime expiresAt = random.nextBoolean() ? null : LocalDateTime.now().plusDays(random.nextInt(1, 365)).withNano(0);
+        return new RedisUrlEntry(url.toString(), expiresAt, System.currentTimeMillis() + TTL_SECONDS * 1000, random.nextInt(1, 20));
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isBlank() ? defaultValue : value;
+    }
+}
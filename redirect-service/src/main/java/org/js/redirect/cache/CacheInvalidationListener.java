@@ -0,0 +1,44 @@
+package org.js.redirect.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.js.redirect.filter.ShortCodeFilter;
+import org.js.redirect.hotkey.HotKeyDetector;
+import org.js.redirect.snapshot.LinkSnapshot;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Drops local cache entries and tombstones when any pod invalidates a short code,
+ * or when url-shortener creates one.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class CacheInvalidationListener implements MessageListener {
+
+    public static final String CHANNEL = "url-invalidations";
+
+    private final LocalUrlCache localUrlCache;
+    private final NegativeCache negativeCache;
+    private final ShortCodeFilter shortCodeFilter;
+    private final HotKeyDetector hotKeyDetector;
+    private final LinkSnapshot linkSnapshot;
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String shortCode = new String(message.getBody(), StandardCharsets.UTF_8);
+        localUrlCache.invalidate(shortCode);
+        negativeCache.invalidateLocal(shortCode);
+        hotKeyDetector.unpin(shortCode);
+        linkSnapshot.remove(shortCode);
+
+        // Creations are announced on this channel too; a deleted code lingers until the next rebuild
+        shortCodeFilter.add(shortCode);
+
+        log.debug("Local cache invalidated for: {}", shortCode);
+    }
+}
@@ -0,0 +1,91 @@
+package org.js.redirect.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.js.redirect.config.EarlyRefreshProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Probabilistic early recomputation of Redis entries (XFetch).
+ * A request refreshes early with a probability that rises as the entry nears expiry,
+ * scaled by how long the last load took, so refreshes spread out instead of all expiring together.
+ */
+@Component
+@Slf4j
+public class CacheRefresher {
+
+    private final EarlyRefreshProperties properties;
+    private final ThreadPoolExecutor executor;
+    private final Counter earlyRefreshes;
+    private final Counter hardMisses;
+
+    public CacheRefresher(EarlyRefreshProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.executor = new ThreadPoolExecutor(
+                properties.getThreads(),
+                properties.getThreads(),
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                // Refreshes are best effort; drop them when saturated
+                new ThreadPoolExecutor.DiscardPolicy()
+        );
+        this.earlyRefreshes = meterRegistry.counter("redirect.cache.reloads", "reason", "early");
+        this.hardMisses = meterRegistry.counter("redirect.cache.reloads", "reason", "miss");
+    }
+
+    /**
+     * XFetch: refresh if {@code now - loadMillis * beta * ln(random) >= cachedUntil}.
+     */
+    public boolean shouldRefreshEarly(RedisUrlEntry entry) {
+        if (!properties.isEnabled() || entry.cachedUntil() == 0) {
+            return false;
+        }
+
+        double gap = -Math.max(1, entry.loadMillis()) * properties.getBeta()
+                * Math.log(ThreadLocalRandom.current().nextDouble());
+        return System.currentTimeMillis() + gap >= entry.cachedUntil();
+    }
+
+    public void refreshAsync(String shortCode, Runnable refresh) {
+        earlyRefreshes.increment();
+        executor.execute(() -> {
+            try {
+                refresh.run();
+            } catch (RuntimeException e) {
+                log.warn("Early refresh failed for: {}", shortCode, e);
+            }
+        });
+    }
+
+    public void recordHardMiss() {
+        hardMisses.increment();
+    }
+
+    /**
+     * Randomly shorten a TTL by up to the configured jitter fraction.
+     *
+     * @param ttlSeconds TTL before jitter
+     * @return TTL after jitter, never longer than the input
+     */
+    public long applyJitter(long ttlSeconds) {
+        long maxJitter = (long) (ttlSeconds * properties.getTtlJitter());
+
+        if (maxJitter <= 0) {
+            return ttlSeconds;
+        }
+        return ttlSeconds - ThreadLocalRandom.current().nextLong(maxJitter + 1);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
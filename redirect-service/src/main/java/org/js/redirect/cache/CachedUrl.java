@@ -0,0 +1,12 @@
+package org.js.redirect.cache;
+
+import java.time.LocalDateTime;
+
+/**
+ * A resolved link as held by the cache tiers.
+ *
+ * @param longUrl   The original long URL
+ * @param expiresAt When the link expires (null if unknown or no expiration)
+ */
+public record CachedUrl(String longUrl, LocalDateTime expiresAt) {
+}
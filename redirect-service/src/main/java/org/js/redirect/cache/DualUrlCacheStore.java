@@ -0,0 +1,68 @@
+package org.js.redirect.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.RedisOperations;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Migration between layouts: writes go to the target layout only, reads fall back to the source
+ * layout until its keys have aged out (at most one entry TTL), after which the target can be used alone.
+ */
+@RequiredArgsConstructor
+public class DualUrlCacheStore implements UrlCacheStore {
+
+    private final UrlCacheStore target;
+    private final UrlCacheStore source;
+
+    @Override
+    public RedisUrlEntry get(String shortCode) {
+        RedisUrlEntry entry = target.get(shortCode);
+        return entry != null ? entry : source.get(shortCode);
+    }
+
+    @Override
+    public List<RedisUrlEntry> getAll(List<String> shortCodes) {
+        List<RedisUrlEntry> entries = new ArrayList<>(target.getAll(shortCodes));
+        List<Integer> missing = new ArrayList<>();
+
+        for (int i = 0; i < entries.size(); i++) {
+            if (entries.get(i) == null) {
+                missing.add(i);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            List<RedisUrlEntry> fallback = source.getAll(missing.stream().map(shortCodes::get).toList());
+            for (int i = 0; i < missing.size(); i++) {
+                entries.set(missing.get(i), fallback.get(i));
+            }
+        }
+        return entries;
+    }
+
+    @Override
+    public int queueGet(RedisOperations<String, String> operations, String shortCode) {
+        return target.queueGet(operations, shortCode) + source.queueGet(operations, shortCode);
+    }
+
+    @Override
+    public RedisUrlEntry decode(List<?> results) {
+        // Both layouts here queue a single read per code
+        RedisUrlEntry entry = target.decode(results.subList(0, 1));
+        return entry != null ? entry : source.decode(results.subList(1, results.size()));
+    }
+
+    @Override
+    public void put(RedisOperations<String, String> operations, String shortCode, RedisUrlEntry entry, long ttlSeconds) {
+        target.put(operations, shortCode, entry, ttlSeconds);
+    }
+
+    @Override
+    public boolean delete(String shortCode) {
+        boolean deletedTarget = target.delete(shortCode);
+        boolean deletedSource = source.delete(shortCode);
+        return deletedTarget || deletedSource;
+    }
+}
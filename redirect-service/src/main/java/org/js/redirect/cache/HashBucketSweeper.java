@@ -0,0 +1,58 @@
+package org.js.redirect.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.js.redirect.config.RedisLayoutProperties;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Walks the hash buckets (HASH and DUAL layouts) and deletes entries past their cached-until time.
+ * Written buckets never reach their TTL, so without it a link read once would stay in its bucket for good.
+ * Each sweep covers {@link RedisLayoutProperties#getSweepBuckets()} buckets, so a pass over all of them
+ * takes bucket-count / sweep-buckets * sweep-interval; every pod starts at a random bucket.
+ */
+@Component
+@Slf4j
+public class HashBucketSweeper {
+
+    private final HashBucketUrlCacheStore store;
+    private final RedisLayoutProperties properties;
+    private final Counter removed;
+
+    private int nextBucket;
+
+    public HashBucketSweeper(
+            RedisTemplate<String, String> redisTemplate,
+            UrlValueCodec urlValueCodec,
+            RedisLayoutProperties properties,
+            MeterRegistry meterRegistry
+    ) {
+        this.store = new HashBucketUrlCacheStore(redisTemplate, urlValueCodec, properties);
+        this.properties = properties;
+        this.removed = meterRegistry.counter("redirect.redis.bucket.swept");
+        this.nextBucket = ThreadLocalRandom.current().nextInt(store.getBucketCount());
+    }
+
+    @Scheduled(fixedDelayString = "${redirect.cache.redis.sweep-interval:PT5S}")
+    public void sweep() {
+        if (properties.getLayout() == RedisLayoutProperties.Layout.STRING) {
+            return;
+        }
+
+        int buckets = Math.min(properties.getSweepBuckets(), store.getBucketCount() - nextBucket);
+        try {
+            removed.increment(store.removeExpired(nextBucket, buckets));
+        } catch (DataAccessException e) {
+            // Skip the range; the next pass picks up what was left
+            log.debug("Failed to sweep buckets {}..{}", nextBucket, nextBucket + buckets - 1, e);
+        }
+
+        nextBucket = (nextBucket + buckets) % store.getBucketCount();
+    }
+}
@@ -0,0 +1,175 @@
+package org.js.redirect.cache;
+
+import org.js.redirect.config.RedisLayoutProperties;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Links grouped into small hashes, urlb:&lt;bucket&gt; -&gt; {code: entry}.
+ * Small hashes use Redis' compact listpack encoding, so a link costs a field instead of a key.
+ * Buckets are picked by a hash of the code rather than its prefix: codes are random, so prefix buckets
+ * would hold a single code each until the keyspace is nearly full.
+ * Redis 7.2 has no per-field TTL: each entry carries its cached-until time, which is checked on read,
+ * and the bucket as a whole expires after {@link RedisLayoutProperties#getBucketTimeToLive()}.
+ * Every write refreshes that TTL, so expired entries of buckets that keep being written are removed by
+ * {@link #removeExpired(int, int)} instead, driven by {@link HashBucketSweeper}.
+ */
+public class HashBucketUrlCacheStore implements UrlCacheStore {
+
+    public static final String CACHE_PREFIX = "urlb:";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final UrlValueCodec codec;
+    private final int bucketCount;
+    private final long bucketTtlSeconds;
+
+    public HashBucketUrlCacheStore(
+            RedisTemplate<String, String> redisTemplate,
+            UrlValueCodec codec,
+            RedisLayoutProperties properties
+    ) {
+        this.redisTemplate = redisTemplate;
+        this.codec = codec;
+        this.bucketCount = properties.getBucketCount();
+        this.bucketTtlSeconds = properties.getBucketTimeToLive().toSeconds();
+    }
+
+    @Override
+    public RedisUrlEntry get(String shortCode) {
+        Object value = redisTemplate.opsForHash().get(bucket(shortCode), shortCode);
+        RedisUrlEntry entry = decodeLive(value);
+
+        if (value != null && entry == null) {
+            // Expired in place; drop it so the bucket stays small
+            redisTemplate.opsForHash().delete(bucket(shortCode), shortCode);
+        }
+        return entry;
+    }
+
+    @Override
+    public List<RedisUrlEntry> getAll(List<String> shortCodes) {
+        List<Object> values = redisTemplate.executePipelined(new SessionCallback<>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> stringOperations = (RedisOperations<String, String>) operations;
+                shortCodes.forEach(shortCode -> queueGet(stringOperations, shortCode));
+                return null;
+            }
+        });
+
+        List<RedisUrlEntry> entries = new ArrayList<>(shortCodes.size());
+        for (int i = 0; i < shortCodes.size(); i++) {
+            entries.add(values == null ? null : decodeLive(values.get(i)));
+        }
+        return entries;
+    }
+
+    @Override
+    public int queueGet(RedisOperations<String, String> operations, String shortCode) {
+        operations.opsForHash().get(bucket(shortCode), shortCode);
+        return 1;
+    }
+
+    @Override
+    public RedisUrlEntry decode(List<?> results) {
+        return decodeLive(results.get(0));
+    }
+
+    @Override
+    public void put(RedisOperations<String, String> operations, String shortCode, RedisUrlEntry entry, long ttlSeconds) {
+        String bucket = bucket(shortCode);
+        operations.opsForHash().put(bucket, shortCode, codec.encode(entry));
+        operations.expire(bucket, Duration.ofSeconds(bucketTtlSeconds));
+    }
+
+    @Override
+    public boolean delete(String shortCode) {
+        Long deleted = redisTemplate.opsForHash().delete(bucket(shortCode), shortCode);
+        return deleted != null && deleted > 0;
+    }
+
+    /**
+     * Delete the expired entries of a range of buckets: one pipelined HGETALL, then one pipelined HDEL.
+     * An entry rewritten between the two is deleted as well, which costs one cache miss.
+     *
+     * @param firstBucket Index of the first bucket
+     * @param buckets     Number of buckets to sweep, not past {@link #getBucketCount()}
+     * @return The number of entries deleted
+     */
+    public int removeExpired(int firstBucket, int buckets) {
+        List<Object> contents = redisTemplate.executePipelined(new SessionCallback<>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> stringOperations = (RedisOperations<String, String>) operations;
+                for (int i = 0; i < buckets; i++) {
+                    stringOperations.opsForHash().entries(bucketKey(firstBucket + i));
+                }
+                return null;
+            }
+        });
+
+        Map<String, Object[]> expiredFields = new HashMap<>();
+        int expired = 0;
+        for (int i = 0; contents != null && i < contents.size(); i++) {
+            if (!(contents.get(i) instanceof Map<?, ?> fields) || fields.isEmpty()) {
+                continue;
+            }
+
+            List<Object> bucketExpired = new ArrayList<>();
+            fields.forEach((code, value) -> {
+                if (decodeLive(value) == null) {
+                    bucketExpired.add(code);
+                }
+            });
+            if (!bucketExpired.isEmpty()) {
+                expiredFields.put(bucketKey(firstBucket + i), bucketExpired.toArray());
+                expired += bucketExpired.size();
+            }
+        }
+
+        if (!expiredFields.isEmpty()) {
+            redisTemplate.executePipelined(new SessionCallback<>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, String> stringOperations = (RedisOperations<String, String>) operations;
+                    expiredFields.forEach((bucket, codes) -> stringOperations.opsForHash().delete(bucket, codes));
+                    return null;
+                }
+            });
+        }
+        return expired;
+    }
+
+    public int getBucketCount() {
+        return bucketCount;
+    }
+
+    private RedisUrlEntry decodeLive(Object value) {
+        if (value == null) {
+            return null;
+        }
+
+        RedisUrlEntry entry = codec.decode((String) value);
+        boolean expired = entry.cachedUntil() > 0 && entry.cachedUntil() <= System.currentTimeMillis();
+        return expired ? null : entry;
+    }
+
+    private String bucket(String shortCode) {
+        // String.hashCode is specified, so every pod maps a code to the same bucket; mix it to spread similar codes
+        return bucketKey(Math.floorMod(shortCode.hashCode() * 0x9E3779B9, bucketCount));
+    }
+
+    private static String bucketKey(int bucket) {
+        return CACHE_PREFIX + Integer.toHexString(bucket);
+    }
+}
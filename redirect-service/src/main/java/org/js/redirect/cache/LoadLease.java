@@ -0,0 +1,68 @@
+package org.js.redirect.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.js.redirect.config.LoadLeaseProperties;
+import org.js.redirect.service.model.ResolveResult;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Cluster-wide lease so that only one pod reloads a missing key from the database.
+ * The lease is never released explicitly: the holder writes the result to Redis
+ * (or a tombstone) and the key simply expires.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class LoadLease {
+
+    public static final String CACHE_PREFIX = "lease:";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final LoadLeaseProperties properties;
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * @param shortCode The short code about to be loaded
+     * @return true if this pod should load it
+     */
+    public boolean tryAcquire(String shortCode) {
+        Boolean acquired = redisTemplate.opsForValue()
+                .setIfAbsent(CACHE_PREFIX + shortCode, "1", properties.getLeaseTime());
+
+        return Boolean.TRUE.equals(acquired);
+    }
+
+    /**
+     * Poll until the lease holder's result becomes visible.
+     *
+     * @param probe Returns the loaded result (or tombstone) once available, null otherwise
+     * @return The result, or null if it did not show up within the wait time
+     */
+    public ResolveResult awaitPeerLoad(Supplier<ResolveResult> probe) {
+        long deadline = System.nanoTime() + properties.getWaitTime().toNanos();
+
+        while (System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(properties.getPollInterval());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+
+            ResolveResult value = probe.get();
+            if (value != null) {
+                return value;
+            }
+        }
+
+        log.debug("Lease holder did not publish a result within {}", properties.getWaitTime());
+        return null;
+    }
+}
@@ -0,0 +1,101 @@
+package org.js.redirect.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.js.redirect.config.LocalCacheProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * In-process L1 cache consulted before Redis.
+ * Caffeine's W-TinyLFU policy gives frequency-based admission and eviction,
+ * so a burst of one-off codes cannot push the viral ones out.
+ */
+@Component
+public class LocalUrlCache {
+
+    public static final String CACHE_NAME = "redirect.local";
+
+    // Rough per-entry overhead (node, key, record, timestamps) on top of the URL chars
+    private static final int ENTRY_OVERHEAD_BYTES = 160;
+
+    private final Cache<String, CachedUrl> cache;
+
+    public LocalUrlCache(LocalCacheProperties properties, MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaximumWeight())
+                .weigher(LocalUrlCache::estimateBytes)
+                .expireAfter(new CachedUrlExpiry(properties.getTimeToLive()))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * @param shortCode The short code to look up
+     * @return The cached entry, or null on a miss
+     */
+    public CachedUrl get(String shortCode) {
+        return cache.getIfPresent(shortCode);
+    }
+
+    public void put(String shortCode, CachedUrl cachedUrl) {
+        cache.put(shortCode, cachedUrl);
+    }
+
+    public void invalidate(String shortCode) {
+        cache.invalidate(shortCode);
+    }
+
+    /**
+     * @param limit Maximum number of codes to return
+     * @return The most frequently used codes, hottest first
+     */
+    public List<String> hottest(int limit) {
+        return cache.policy().eviction()
+                .map(eviction -> List.copyOf(eviction.hottest(limit).keySet()))
+                .orElse(List.of());
+    }
+
+    /**
+     * @return Estimated heap footprint of an entry, as used for the cache's maximum weight
+     */
+    public static int estimateBytes(String shortCode, CachedUrl cachedUrl) {
+        return ENTRY_OVERHEAD_BYTES + 2 * (shortCode.length() + cachedUrl.longUrl().length());
+    }
+
+    /**
+     * Expires each entry at the configured TTL or at the link's own expiry, whichever comes first.
+     */
+    private record CachedUrlExpiry(Duration timeToLive) implements Expiry<String, CachedUrl> {
+
+        @Override
+        public long expireAfterCreate(String shortCode, CachedUrl cachedUrl, long currentTime) {
+            long ttlNanos = timeToLive.toNanos();
+
+            if (cachedUrl.expiresAt() == null) {
+                return ttlNanos;
+            }
+
+            long nanosUntilExpiry = Duration.between(LocalDateTime.now(), cachedUrl.expiresAt()).toNanos();
+            return Math.max(0, Math.min(ttlNanos, nanosUntilExpiry));
+        }
+
+        @Override
+        public long expireAfterUpdate(String shortCode, CachedUrl cachedUrl, long currentTime, long currentDuration) {
+            return expireAfterCreate(shortCode, cachedUrl, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String shortCode, CachedUrl cachedUrl, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
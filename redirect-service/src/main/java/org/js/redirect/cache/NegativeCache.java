@@ -0,0 +1,106 @@
+package org.js.redirect.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.js.redirect.config.NegativeCacheProperties;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Short-lived tombstones for codes that are unknown or expired,
+ * so repeated misses never reach the database.
+ * Kept in Redis and, optionally, in-process.
+ */
+@Component
+@Slf4j
+public class NegativeCache {
+
+    public static final String CACHE_PREFIX = "miss:";
+    public static final String CACHE_NAME = "redirect.negative";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final NegativeCacheProperties properties;
+    private final Cache<String, Tombstone> localTombstones;
+
+    public NegativeCache(
+            RedisTemplate<String, String> redisTemplate,
+            NegativeCacheProperties properties,
+            MeterRegistry meterRegistry
+    ) {
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+        this.localTombstones = Caffeine.newBuilder()
+                .maximumSize(properties.getLocalMaximumSize())
+                .expireAfterWrite(properties.getLocalTimeToLive())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, localTombstones, CACHE_NAME);
+    }
+
+    /**
+     * @param shortCode The short code to look up
+     * @return The remembered outcome, or null if the code has no tombstone
+     */
+    public Tombstone get(String shortCode) {
+        if (properties.isLocalEnabled()) {
+            Tombstone local = localTombstones.getIfPresent(shortCode);
+            if (local != null) {
+                return local;
+            }
+        }
+
+        String cached = redisTemplate.opsForValue().get(CACHE_PREFIX + shortCode);
+        if (cached == null) {
+            return null;
+        }
+
+        Tombstone tombstone = Tombstone.valueOf(cached);
+        if (properties.isLocalEnabled()) {
+            localTombstones.put(shortCode, tombstone);
+        }
+        return tombstone;
+    }
+
+    public void put(String shortCode, Tombstone tombstone) {
+        put(redisTemplate, shortCode, tombstone);
+    }
+
+    /**
+     * Write a tombstone through the given operations, e.g. as part of a pipeline.
+     *
+     * @param operations Redis operations to write with
+     * @param shortCode The short code to tombstone
+     * @param tombstone Why the code does not resolve
+     */
+    public void put(RedisOperations<String, String> operations, String shortCode, Tombstone tombstone) {
+        operations.opsForValue().set(
+                CACHE_PREFIX + shortCode,
+                tombstone.name(),
+                properties.getTimeToLive().toSeconds(),
+                TimeUnit.SECONDS
+        );
+
+        if (properties.isLocalEnabled()) {
+            localTombstones.put(shortCode, tombstone);
+        }
+
+        log.debug("Tombstoned {} as {}", shortCode, tombstone);
+    }
+
+    /**
+     * Drop the in-process tombstone only.
+     * The Redis key is removed by whoever (re)creates the code.
+     *
+     * @param shortCode The short code to clear
+     */
+    public void invalidateLocal(String shortCode) {
+        localTombstones.invalidate(shortCode);
+    }
+}
@@ -0,0 +1,256 @@
+package org.js.redirect.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.js.redirect.config.LatencyBudgetProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Keeps a slow or failing-over Redis from holding redirect threads for the client timeout.
+ * Redis lookups run on their own threads; if one has not answered within Redis' recent p99,
+ * a hedged fallback (Postgres) starts and whichever answers first wins.
+ * While the circuit breaker is open Redis is skipped entirely. Best-effort writes run on their own
+ * bounded threads too, so a slow Redis never holds a request thread for a write either.
+ */
+@Component
+@Slf4j
+public class RedisLatencyGuard {
+
+    private final LatencyBudgetProperties properties;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final ThreadPoolExecutor redisExecutor;
+    private final ThreadPoolExecutor fallbackExecutor;
+    private final ThreadPoolExecutor writeExecutor;
+
+    private final Timer redisLatency;
+    private final Counter bypasses;
+    private final Counter redisWins;
+    private final Counter fallbackWins;
+    private final Counter droppedWrites;
+
+    private volatile long hedgeDelayNanos;
+
+    public RedisLatencyGuard(LatencyBudgetProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry,
+                new RedisCircuitBreaker(properties.getFailureThreshold(), properties.getOpenDuration()));
+    }
+
+    RedisLatencyGuard(LatencyBudgetProperties properties, MeterRegistry meterRegistry, RedisCircuitBreaker circuitBreaker) {
+        this.properties = properties;
+        this.circuitBreaker = circuitBreaker;
+        this.hedgeDelayNanos = properties.getMaxHedgeDelay().toNanos();
+
+        // No queue: when every Redis thread is stuck, new lookups bypass Redis instead of waiting
+        this.redisExecutor = new ThreadPoolExecutor(
+                0,
+                properties.getRedisThreads(),
+                60L,
+                TimeUnit.SECONDS,
+                new SynchronousQueue<>()
+        );
+        // Saturated fallbacks run on the caller, which is no worse than not hedging
+        this.fallbackExecutor = new ThreadPoolExecutor(
+                properties.getFallbackThreads(),
+                properties.getFallbackThreads(),
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getFallbackQueueCapacity()),
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+        // Saturated writes are dropped (AbortPolicy, counted), as the entry simply loads again later
+        this.writeExecutor = new ThreadPoolExecutor(
+                properties.getWriteThreads(),
+                properties.getWriteThreads(),
+                60L,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(properties.getWriteQueueCapacity())
+        );
+        this.writeExecutor.allowCoreThreadTimeOut(true);
+
+        this.redisLatency = Timer.builder("redirect.redis.latency")
+                .publishPercentiles(0.99)
+                .distributionStatisticExpiry(Duration.ofSeconds(30))
+                .register(meterRegistry);
+        this.bypasses = meterRegistry.counter("redirect.redis.bypasses");
+        this.redisWins = meterRegistry.counter("redirect.redis.hedges", "winner", "redis");
+        this.fallbackWins = meterRegistry.counter("redirect.redis.hedges", "winner", "fallback");
+        this.droppedWrites = meterRegistry.counter("redirect.redis.writes.dropped");
+        Gauge.builder("redirect.redis.breaker.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                .description("0 = closed, 1 = half-open, 2 = open")
+                .register(meterRegistry);
+        Gauge.builder("redirect.redis.hedge.delay", this, guard -> guard.hedgeDelayNanos / 1_000_000.0)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param redisLookup Redis-only lookup; null means Redis answered with a miss
+     * @param fallback    Lookup that avoids Redis, used when Redis is skipped, failing or slower
+     * @return The first answer; null only if Redis answered with a miss in time
+     */
+    public <T> T execute(Supplier<T> redisLookup, Supplier<T> fallback) {
+        if (!properties.isEnabled()) {
+            return redisLookup.get();
+        }
+
+        if (!circuitBreaker.allowRequest()) {
+            bypasses.increment();
+            return fallback.get();
+        }
+
+        CompletableFuture<T> redisFuture;
+        try {
+            redisFuture = CompletableFuture.supplyAsync(() -> timed(redisLookup), redisExecutor);
+        } catch (RejectedExecutionException e) {
+            // A probe that never runs would never close or reopen the breaker, leaving it half-open for good
+            if (circuitBreaker.getState() == RedisCircuitBreaker.State.HALF_OPEN) {
+                circuitBreaker.recordFailure();
+            }
+            bypasses.increment();
+            return fallback.get();
+        }
+
+        try {
+            return redisFuture.get(hedgeDelayNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            return hedge(redisFuture, fallback);
+        } catch (ExecutionException e) {
+            log.debug("Redis lookup failed, using fallback", e.getCause());
+            return fallback.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return fallback.get();
+        }
+    }
+
+    private <T> T hedge(CompletableFuture<T> redisFuture, Supplier<T> fallback) {
+        CompletableFuture<T> fallbackFuture = CompletableFuture.supplyAsync(fallback, fallbackExecutor);
+
+        // Wait for the first to finish, successfully or not
+        CompletableFuture.anyOf(redisFuture, fallbackFuture).handle((result, error) -> null).join();
+
+        if (redisFuture.isDone() && !redisFuture.isCompletedExceptionally()) {
+            T cached = redisFuture.join();
+            if (cached != null) {
+                redisWins.increment();
+                return cached;
+            }
+        }
+
+        fallbackWins.increment();
+        try {
+            return fallbackFuture.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private <T> T timed(Supplier<T> redisLookup) {
+        long startedAt = System.nanoTime();
+        try {
+            T result = redisLookup.get();
+            recordLatency(System.nanoTime() - startedAt);
+            return result;
+        } catch (RuntimeException e) {
+            circuitBreaker.recordFailure();
+            throw e;
+        }
+    }
+
+    private void recordLatency(long nanos) {
+        redisLatency.record(nanos, TimeUnit.NANOSECONDS);
+
+        if (nanos > properties.getSlowCallThreshold().toNanos()) {
+            circuitBreaker.recordFailure();
+        } else {
+            circuitBreaker.recordSuccess();
+        }
+    }
+
+    /**
+     * @return false while the breaker is open, e.g. to skip best-effort cache writes
+     */
+    public boolean isRedisAvailable() {
+        return !properties.isEnabled() || circuitBreaker.getState() == RedisCircuitBreaker.State.CLOSED;
+    }
+
+    /**
+     * Run a best-effort Redis write off the caller's thread. Skipped while Redis is considered down, and
+     * dropped when the write threads and their queue are full. Inline when the budget is disabled.
+     *
+     * @param redisWrite Write that handles its own failures; anything it throws is only logged
+     * @return false if the write was skipped or dropped
+     */
+    public boolean submitWrite(Runnable redisWrite) {
+        if (!properties.isEnabled()) {
+            redisWrite.run();
+            return true;
+        }
+
+        if (!isRedisAvailable()) {
+            return false;
+        }
+
+        try {
+            writeExecutor.execute(() -> {
+                try {
+                    redisWrite.run();
+                } catch (RuntimeException e) {
+                    log.warn("Redis write failed", e);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            droppedWrites.increment();
+            return false;
+        }
+    }
+
+    /**
+     * Adapt the hedge delay to Redis' recent p99.
+     */
+    @Scheduled(fixedDelayString = "${redirect.cache.latency-budget.threshold-refresh-interval:PT1S}")
+    public void refreshHedgeDelay() {
+        for (ValueAtPercentile percentile : redisLatency.takeSnapshot().percentileValues()) {
+            long p99 = (long) percentile.value(TimeUnit.NANOSECONDS);
+
+            // No samples in the window (idle pod): keep the last delay
+            if (p99 > 0) {
+                hedgeDelayNanos = Math.clamp(p99,
+                        properties.getMinHedgeDelay().toNanos(), properties.getMaxHedgeDelay().toNanos());
+            }
+        }
+    }
+
+    public RedisCircuitBreaker.State getBreakerState() {
+        return circuitBreaker.getState();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        redisExecutor.shutdownNow();
+        fallbackExecutor.shutdownNow();
+        writeExecutor.shutdownNow();
+    }
+}
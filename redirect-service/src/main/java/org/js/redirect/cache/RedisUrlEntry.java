@@ -0,0 +1,47 @@
+package org.js.redirect.cache;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Value stored under urlv1:&lt;code&gt; (or in a urlb: bucket) in Redis.
+ * Encoded as {@code v1|<cachedUntilMillis>|<loadMillis>|<expiresAtEpochSecond>|<url>};
+ * a plain URL decodes as an entry without metadata.
+ *
+ * @param longUrl     The redirect target
+ * @param expiresAt   When the link expires (null if unknown or no expiration)
+ * @param cachedUntil Epoch millis at which the Redis key expires (0 if unknown)
+ * @param loadMillis  How long the database load that produced the entry took
+ */
+public record RedisUrlEntry(String longUrl, LocalDateTime expiresAt, long cachedUntil, long loadMillis) {
+
+    private static final String VERSION = "v1|";
+    private static final char SEPARATOR = '|';
+
+    public String encode() {
+        String expiry = expiresAt == null ? "" : Long.toString(expiresAt.toEpochSecond(ZoneOffset.UTC));
+        return VERSION + cachedUntil + SEPARATOR + loadMillis + SEPARATOR + expiry + SEPARATOR + longUrl;
+    }
+
+    public static RedisUrlEntry decode(String value) {
+        if (!value.startsWith(VERSION)) {
+            return new RedisUrlEntry(value, null, 0, 0);
+        }
+
+        int cachedUntilEnd = value.indexOf(SEPARATOR, VERSION.length());
+        int loadMillisEnd = value.indexOf(SEPARATOR, cachedUntilEnd + 1);
+        int expiryEnd = value.indexOf(SEPARATOR, loadMillisEnd + 1);
+
+        long cachedUntil = Long.parseLong(value, VERSION.length(), cachedUntilEnd, 10);
+        long loadMillis = Long.parseLong(value, cachedUntilEnd + 1, loadMillisEnd, 10);
+        LocalDateTime expiresAt = expiryEnd == loadMillisEnd + 1
+                ? null
+                : LocalDateTime.ofEpochSecond(Long.parseLong(value, loadMillisEnd + 1, expiryEnd, 10), 0, ZoneOffset.UTC);
+
+        return new RedisUrlEntry(value.substring(expiryEnd + 1), expiresAt, cachedUntil, loadMillis);
+    }
+
+    public CachedUrl toCachedUrl() {
+        return new CachedUrl(longUrl, expiresAt);
+    }
+}
@@ -0,0 +1,126 @@
+package org.js.redirect.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.js.redirect.config.HotKeyProperties;
+import org.js.redirect.hotkey.HotKeyDetector;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spreads reads of hot codes over several copies of their entry, stored under {@code <code>~<n>}.
+ * Each copy hashes to its own key (or bucket), so in a Redis cluster a viral link no longer pins one shard.
+ * <p>
+ * A read of a hot code picks a copy at random and falls back to the primary entry, rewriting the copy
+ * from it; copies live for at most the replica TTL, so they never trail the primary for long.
+ * Codes that are not hot, and bulk reads, only ever touch the primary entry.
+ */
+@Slf4j
+public class ReplicatedUrlCacheStore implements UrlCacheStore {
+
+    static final char REPLICA_SEPARATOR = '~';
+
+    private final UrlCacheStore primary;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final HotKeyDetector hotKeyDetector;
+    private final int replicas;
+    private final long replicaTtlSeconds;
+
+    public ReplicatedUrlCacheStore(
+            UrlCacheStore primary,
+            RedisTemplate<String, String> redisTemplate,
+            HotKeyDetector hotKeyDetector,
+            HotKeyProperties properties
+    ) {
+        this.primary = primary;
+        this.redisTemplate = redisTemplate;
+        this.hotKeyDetector = hotKeyDetector;
+        this.replicas = properties.getReplicas();
+        this.replicaTtlSeconds = properties.getReplicaTimeToLive().toSeconds();
+    }
+
+    @Override
+    public RedisUrlEntry get(String shortCode) {
+        if (!hotKeyDetector.isHot(shortCode)) {
+            return primary.get(shortCode);
+        }
+
+        // 0 is the primary entry itself
+        int copy = ThreadLocalRandom.current().nextInt(replicas + 1);
+        if (copy == 0) {
+            return primary.get(shortCode);
+        }
+
+        RedisUrlEntry entry = primary.get(replicaCode(shortCode, copy));
+        if (entry != null) {
+            return entry;
+        }
+
+        entry = primary.get(shortCode);
+        if (entry != null) {
+            writeReplica(shortCode, copy, entry);
+        }
+        return entry;
+    }
+
+    @Override
+    public List<RedisUrlEntry> getAll(List<String> shortCodes) {
+        return primary.getAll(shortCodes);
+    }
+
+    @Override
+    public int queueGet(RedisOperations<String, String> operations, String shortCode) {
+        return primary.queueGet(operations, shortCode);
+    }
+
+    @Override
+    public RedisUrlEntry decode(List<?> results) {
+        return primary.decode(results);
+    }
+
+    @Override
+    public void put(RedisOperations<String, String> operations, String shortCode, RedisUrlEntry entry, long ttlSeconds) {
+        // Copies are filled lazily on read, so a write never fans out
+        primary.put(operations, shortCode, entry, ttlSeconds);
+    }
+
+    @Override
+    public boolean delete(String shortCode) {
+        boolean deleted = primary.delete(shortCode);
+
+        // The code may have been hot on another pod, so every copy is removed regardless
+        for (int copy = 1; copy <= replicas; copy++) {
+            deleted |= primary.delete(replicaCode(shortCode, copy));
+        }
+        return deleted;
+    }
+
+    private void writeReplica(String shortCode, int copy, RedisUrlEntry entry) {
+        long now = System.currentTimeMillis();
+        long remainingSeconds = TimeUnit.MILLISECONDS.toSeconds(entry.cachedUntil() - now);
+        long ttlSeconds = entry.cachedUntil() == 0 ? replicaTtlSeconds : Math.min(replicaTtlSeconds, remainingSeconds);
+
+        if (ttlSeconds <= 0) {
+            return;
+        }
+
+        // The copy carries its own cached-until, which is what expires it in the hash layout
+        RedisUrlEntry replica = new RedisUrlEntry(
+                entry.longUrl(), entry.expiresAt(), now + TimeUnit.SECONDS.toMillis(ttlSeconds), entry.loadMillis());
+
+        try {
+            primary.put(redisTemplate, replicaCode(shortCode, copy), replica, ttlSeconds);
+        } catch (DataAccessException e) {
+            // The read already succeeded; the copy is retried on a later read
+            log.debug("Failed to write replica {} of: {}", copy, shortCode, e);
+        }
+    }
+
+    static String replicaCode(String shortCode, int copy) {
+        return shortCode + REPLICA_SEPARATOR + copy;
+    }
+}
@@ -0,0 +1,73 @@
+package org.js.redirect.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One string key per link, expired by Redis itself.
+ * Simplest layout, but every key pays Redis' full per-key overhead.
+ * <p>
+ * Entries carry metadata ({@link RedisUrlEntry}) and may be compressed, so they live under their own
+ * prefix: versions before that read url:&lt;code&gt; as a plain URL and would redirect to the encoded value.
+ * During a rolling deploy each version reads only its own keys; the legacy ones expire within a TTL.
+ */
+@RequiredArgsConstructor
+public class StringUrlCacheStore implements UrlCacheStore {
+
+    public static final String CACHE_PREFIX = "urlv1:";
+    // Plain URLs written by earlier versions, still read by their pods during a rolling deploy
+    public static final String LEGACY_PREFIX = "url:";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final UrlValueCodec codec;
+
+    @Override
+    public RedisUrlEntry get(String shortCode) {
+        String value = redisTemplate.opsForValue().get(CACHE_PREFIX + shortCode);
+        return value == null ? null : codec.decode(value);
+    }
+
+    @Override
+    public List<RedisUrlEntry> getAll(List<String> shortCodes) {
+        List<String> keys = shortCodes.stream().map(shortCode -> CACHE_PREFIX + shortCode).toList();
+        List<String> values = redisTemplate.opsForValue().multiGet(keys);
+
+        List<RedisUrlEntry> entries = new ArrayList<>(shortCodes.size());
+        for (int i = 0; i < shortCodes.size(); i++) {
+            String value = values == null ? null : values.get(i);
+            entries.add(value == null ? null : codec.decode(value));
+        }
+        return entries;
+    }
+
+    @Override
+    public int queueGet(RedisOperations<String, String> operations, String shortCode) {
+        operations.opsForValue().get(CACHE_PREFIX + shortCode);
+        return 1;
+    }
+
+    @Override
+    public RedisUrlEntry decode(List<?> results) {
+        Object value = results.get(0);
+        return value == null ? null : codec.decode((String) value);
+    }
+
+    @Override
+    public void put(RedisOperations<String, String> operations, String shortCode, RedisUrlEntry entry, long ttlSeconds) {
+        operations.opsForValue().set(CACHE_PREFIX + shortCode, codec.encode(entry), ttlSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Also deletes the legacy key, so pods of the previous version stop serving a deleted link too.
+     */
+    @Override
+    public boolean delete(String shortCode) {
+        Long deleted = redisTemplate.delete(List.of(CACHE_PREFIX + shortCode, LEGACY_PREFIX + shortCode));
+        return deleted != null && deleted > 0;
+    }
+}
@@ -0,0 +1,9 @@
+package org.js.redirect.cache;
+
+/**
+ * Outcome remembered for a short code that did not resolve to a live link.
+ */
+public enum Tombstone {
+    NOT_FOUND,
+    EXPIRED
+}
@@ -0,0 +1,42 @@
+package org.js.redirect.cache;
+
+import org.springframework.data.redis.core.RedisOperations;
+
+import java.util.List;
+
+/**
+ * Redis layout of cached URL entries, chosen in {@link org.js.redirect.config.RedisConfig}.
+ * Implementations never return entries past their cached-until time.
+ */
+public interface UrlCacheStore {
+
+    /**
+     * @return The cached entry, or null on a miss
+     */
+    RedisUrlEntry get(String shortCode);
+
+    /**
+     * @return Entries in the order of the codes, null for misses
+     */
+    List<RedisUrlEntry> getAll(List<String> shortCodes);
+
+    /**
+     * Queue the reads for one code on a pipeline, e.g. next to other reads of a bulk lookup.
+     *
+     * @return How many pipeline results the reads produce
+     */
+    int queueGet(RedisOperations<String, String> operations, String shortCode);
+
+    /**
+     * @param results The pipeline results produced by {@link #queueGet} for the code
+     * @return The cached entry, or null on a miss
+     */
+    RedisUrlEntry decode(List<?> results);
+
+    void put(RedisOperations<String, String> operations, String shortCode, RedisUrlEntry entry, long ttlSeconds);
+
+    /**
+     * @return true if an entry was removed
+     */
+    boolean delete(String shortCode);
+}
@@ -0,0 +1,88 @@
+package org.js.redirect.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.js.redirect.config.RedisLayoutProperties;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Turns {@link RedisUrlEntry} into the string stored in Redis and back.
+ * Long values are optionally stored as {@code z|<base64 raw deflate>}; the Base64 overhead
+ * means only values well above ~100 chars (long query strings) actually shrink.
+ */
+@Component
+@RequiredArgsConstructor
+public class UrlValueCodec {
+
+    private static final String COMPRESSED = "z|";
+
+    private final RedisLayoutProperties properties;
+
+    public String encode(RedisUrlEntry entry) {
+        String value = entry.encode();
+
+        if (!properties.isCompressionEnabled() || value.length() < properties.getCompressionThreshold()) {
+            return value;
+        }
+
+        String compressed = COMPRESSED + Base64.getEncoder().encodeToString(deflate(value.getBytes(StandardCharsets.UTF_8)));
+        return compressed.length() < value.length() ? compressed : value;
+    }
+
+    /**
+     * Decodes both compressed and plain values, so compression can be switched on or off at any time.
+     */
+    public RedisUrlEntry decode(String value) {
+        if (!value.startsWith(COMPRESSED)) {
+            return RedisUrlEntry.decode(value);
+        }
+
+        byte[] compressed = Base64.getDecoder().decode(value.substring(COMPRESSED.length()));
+        return RedisUrlEntry.decode(new String(inflate(compressed), StandardCharsets.UTF_8));
+    }
+
+    private static byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+
+            ByteArrayOutputStream output = new ByteArrayOutputStream(input.length);
+            byte[] buffer = new byte[512];
+            while (!deflater.finished()) {
+                output.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return output.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] input) {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(input);
+
+            ByteArrayOutputStream output = new ByteArrayOutputStream(input.length * 3);
+            byte[] buffer = new byte[512];
+            while (!inflater.finished()) {
+                int inflated = inflater.inflate(buffer);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Truncated compressed cache entry");
+                }
+                output.write(buffer, 0, inflated);
+            }
+            return output.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupt compressed cache entry", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package org.js.redirect.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "redirect.cache.early-refresh")
+public class EarlyRefreshProperties {
+    /**
+     * Whether requests close to a Redis entry's expiry may refresh it in the background.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Eagerness of early refresh; values above 1 refresh earlier, below 1 later.
+     */
+    private double beta = 1.0;
+
+    /**
+     * Up to this fraction of each Redis TTL is randomly shaved off so entries warmed together expire apart.
+     */
+    private double ttlJitter = 0.1;
+
+    private int threads = 2;
+
+    private int queueCapacity = 1000;
+}
@@ -0,0 +1,56 @@
+package org.js.redirect.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "redirect.hot-keys")
+public class HotKeyProperties {
+    /**
+     * Count requests per code and pin the hottest ones in memory.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Rows of the frequency sketch.
+     */
+    private int sketchDepth = 4;
+
+    /**
+     * Counters per row (a power of two); the sketch takes depth * width * 4 bytes.
+     */
+    private int sketchWidth = 32_768;
+
+    /**
+     * Decayed request count at which a code becomes hot.
+     * With halving every decay interval this is about twice the requests per interval.
+     */
+    private int threshold = 1_000;
+
+    /**
+     * How often every count is halved.
+     */
+    private Duration decayInterval = Duration.ofSeconds(10);
+
+    /**
+     * Upper bound on hot codes tracked (and pinned) at once.
+     */
+    private int maxHotKeys = 100;
+
+    /**
+     * How often a pinned entry is re-read from Redis in the background.
+     */
+    private Duration refreshInterval = Duration.ofSeconds(5);
+
+    /**
+     * Extra Redis copies of each hot entry, read at random to spread a hot key over shards (0 = off).
+     */
+    private int replicas = 0;
+
+    /**
+     * Lifetime of a replica copy; replicas are rewritten from the primary entry when they lapse.
+     */
+    private Duration replicaTimeToLive = Duration.ofMinutes(1);
+}
@@ -0,0 +1,54 @@
+package org.js.redirect.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "redirect.cache.latency-budget")
+public class LatencyBudgetProperties {
+    /**
+     * Run Redis lookups against a latency budget, hedging to Postgres when Redis is slow.
+     */
+    private boolean enabled = true;
+
+    /**
+     * The hedge fires after Redis' recent p99, clamped to these bounds.
+     */
+    private Duration minHedgeDelay = Duration.ofMillis(2);
+
+    private Duration maxHedgeDelay = Duration.ofMillis(50);
+
+    /**
+     * Calls slower than this count as failures for the circuit breaker.
+     */
+    private Duration slowCallThreshold = Duration.ofMillis(200);
+
+    /**
+     * Consecutive failed or slow calls that open the breaker.
+     */
+    private int failureThreshold = 5;
+
+    /**
+     * How long Redis is skipped once the breaker opens, before a single probe call is let through.
+     */
+    private Duration openDuration = Duration.ofSeconds(5);
+
+    /**
+     * Threads running Redis lookups; lookups are bypassed when all are busy.
+     */
+    private int redisThreads = 64;
+
+    private int fallbackThreads = 16;
+
+    private int fallbackQueueCapacity = 256;
+
+    /**
+     * Threads running best-effort cache writes after a database load, and writes they may queue;
+     * further writes are dropped (redirect.redis.writes.dropped).
+     */
+    private int writeThreads = 8;
+
+    private int writeQueueCapacity = 1024;
+}
@@ -0,0 +1,33 @@
+package org.js.redirect.config;
+
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.ExponentialBackOff;
+
+@Configuration
+public class LinkEventsConfig {
+
+    /**
+     * Picked up by the listener container: a failed batch is retried whole, its offsets uncommitted,
+     * until it succeeds or redirect.events.max-retry-time passes. Its records are then published to
+     * redirect.events.dead-letter-topic for replay; if that fails too, the batch is delivered again.
+     */
+    @Bean
+    public DefaultErrorHandler linkEventsErrorHandler(
+            LinkEventsProperties properties,
+            KafkaOperations<?, ?> kafkaOperations
+    ) {
+        ExponentialBackOff backOff = new ExponentialBackOff(100, 2);
+        backOff.setMaxInterval(10_000);
+        backOff.setMaxElapsedTime(properties.getMaxRetryTime().toMillis());
+
+        // Any partition: the dead-letter topic need not have as many as the events topic
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(kafkaOperations,
+                (record, exception) -> new TopicPartition(properties.getDeadLetterTopic(), -1));
+        return new DefaultErrorHandler(recoverer, backOff);
+    }
+}
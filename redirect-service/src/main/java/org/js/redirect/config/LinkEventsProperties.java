@@ -0,0 +1,29 @@
+package org.js.redirect.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "redirect.events")
+public class LinkEventsProperties {
+    /**
+     * Consume url-shortener's link lifecycle events: cache created links, evict deleted ones.
+     */
+    private boolean enabled = false;
+
+    private String topic = "url-lifecycle";
+
+    /**
+     * A batch that keeps failing (e.g. Redis down) is retried with backoff for this long, then moved to
+     * the dead-letter topic.
+     */
+    private Duration maxRetryTime = Duration.ofMinutes(5);
+
+    /**
+     * Where the records of a batch that ran out of retries go, headers naming the cause, so the deletions
+     * among them can be replayed onto the events topic instead of being lost.
+     */
+    private String deadLetterTopic = "url-lifecycle.DLT";
+}
@@ -0,0 +1,32 @@
+package org.js.redirect.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+
+@Data
+@ConfigurationProperties(prefix = "redirect.snapshot")
+public class LinkSnapshotProperties {
+    /**
+     * Keep a memory-mapped copy of every link, consulted between Redis and Postgres.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Where snapshot generations are written; a snapshot left by a previous run is reused.
+     */
+    private Path directory = Path.of(System.getProperty("java.io.tmpdir"), "redirect-snapshot");
+
+    /**
+     * Number of links the index is sized for; a full index is rebuilt twice as large.
+     */
+    private long expectedLinks = 10_000_000;
+
+    /**
+     * Ids re-read below the watermark on each sync, for rows whose transactions committed out of id order.
+     */
+    private long syncOverlap = 1_000;
+
+    private int fetchSize = 10_000;
+}
@@ -0,0 +1,27 @@
+package org.js.redirect.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "redirect.cache.load-lease")
+public class LoadLeaseProperties {
+    /**
+     * Whether only one pod in the cluster reloads a missing key.
+     */
+    private boolean enabled = false;
+
+    /**
+     * How long a lease is held before another pod may load the key.
+     */
+    private Duration leaseTime = Duration.ofSeconds(2);
+
+    /**
+     * How long a pod without the lease waits for the result before loading it itself.
+     */
+    private Duration waitTime = Duration.ofMillis(500);
+
+    private Duration pollInterval = Duration.ofMillis(20);
+}
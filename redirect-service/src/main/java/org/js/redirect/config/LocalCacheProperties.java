@@ -0,0 +1,20 @@
+package org.js.redirect.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "redirect.cache.local")
+public class LocalCacheProperties {
+    /**
+     * Upper bound on the estimated heap used by cached entries, in bytes.
+     */
+    private long maximumWeight = 64L * 1024 * 1024;
+
+    /**
+     * Longest time an entry may stay in the local tier, even if the link lives longer.
+     */
+    private Duration timeToLive = Duration.ofSeconds(60);
+}
@@ -0,0 +1,24 @@
+package org.js.redirect.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "redirect.cache.negative")
+public class NegativeCacheProperties {
+    /**
+     * How long a tombstone is kept in Redis.
+     */
+    private Duration timeToLive = Duration.ofMinutes(5);
+
+    /**
+     * Whether tombstones are also kept in-process.
+     */
+    private boolean localEnabled = true;
+
+    private long localMaximumSize = 100_000;
+
+    private Duration localTimeToLive = Duration.ofSeconds(30);
+}
@@ -0,0 +1,37 @@
+package org.js.redirect.config;
+
+import org.springframework.boot.autoconfigure.AutoConfigurationImportFilter;
+import org.springframework.boot.autoconfigure.AutoConfigurationMetadata;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+
+/**
+ * Leaves out the R2DBC auto-configurations (connection factory, repositories, transaction manager and
+ * health contributor) unless spring.main.web-application-type is reactive, as only the reactive stack
+ * uses R2DBC. Without this, servlet pods would also open an R2DBC pool to spring.r2dbc.url.
+ */
+public class ReactiveStackAutoConfigurationFilter implements AutoConfigurationImportFilter, EnvironmentAware {
+
+    private static final String R2DBC_PACKAGE = ".r2dbc.";
+
+    private Environment environment;
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public boolean[] match(String[] autoConfigurationClasses, AutoConfigurationMetadata autoConfigurationMetadata) {
+        boolean reactive = "reactive".equalsIgnoreCase(environment.getProperty("spring.main.web-application-type"));
+        boolean[] matches = new boolean[autoConfigurationClasses.length];
+
+        for (int i = 0; i < autoConfigurationClasses.length; i++) {
+            // Entries may be null when an earlier filter already removed them
+            matches[i] = reactive || autoConfigurationClasses[i] == null
+                    || !autoConfigurationClasses[i].contains(R2DBC_PACKAGE);
+        }
+
+        return matches;
+    }
+}
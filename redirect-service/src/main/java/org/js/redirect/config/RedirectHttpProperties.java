@@ -0,0 +1,28 @@
+package org.js.redirect.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "redirect.http")
+public class RedirectHttpProperties {
+    /**
+     * Longest time browsers and CDNs may cache a redirect, as before (1h); shortened to the link's remaining
+     * lifetime. Also bounds how long a deleted link keeps being followed from shared caches.
+     */
+    private Duration maxAge = Duration.ofHours(1);
+
+    /**
+     * Links with at least this much lifetime left get a 301; shorter-lived ones and links without a known expiry a 302.
+     */
+    private Duration permanentRedirectMinLifetime = Duration.ofDays(30);
+
+    /**
+     * Request headers the redirect depends on, sent as Vary; empty as redirects are the same for every client.
+     */
+    private List<String> vary = new ArrayList<>();
+}
@@ -1,12 +1,24 @@
 package org.js.redirect.config;
 
+import lombok.extern.slf4j.Slf4j;
+import org.js.redirect.cache.CacheInvalidationListener;
+import org.js.redirect.cache.DualUrlCacheStore;
+import org.js.redirect.cache.HashBucketUrlCacheStore;
+import org.js.redirect.cache.ReplicatedUrlCacheStore;
+import org.js.redirect.cache.StringUrlCacheStore;
+import org.js.redirect.cache.UrlCacheStore;
+import org.js.redirect.cache.UrlValueCodec;
+import org.js.redirect.hotkey.HotKeyDetector;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 @Configuration
+@Slf4j
 public class RedisConfig {
     @Bean
     public RedisTemplate<String, String> redisTemplate(RedisConnectionFactory connectionFactory) {
@@ -23,4 +35,56 @@ public class RedisConfig {
         template.afterPropertiesSet();
         return template;
     }
+
+    /**
+     * Layout of the cached URL entries (redirect.cache.redis.layout).
+     * Moving from STRING to HASH: deploy DUAL, wait one entry TTL (24h) for url: keys to age out, then HASH.
+     * With redirect.hot-keys.replicas set, hot codes are additionally read from that many copies.
+     */
+    @Bean
+    public UrlCacheStore urlCacheStore(
+            RedisTemplate<String, String> redisTemplate,
+            UrlValueCodec urlValueCodec,
+            RedisLayoutProperties properties,
+            HotKeyDetector hotKeyDetector,
+            HotKeyProperties hotKeyProperties
+    ) {
+        log.info("Redis URL cache layout: {}", properties.getLayout());
+
+        UrlCacheStore store = layoutStore(redisTemplate, urlValueCodec, properties);
+
+        if (hotKeyProperties.isEnabled() && hotKeyProperties.getReplicas() > 0) {
+            log.info("Hot keys read from {} Redis replicas", hotKeyProperties.getReplicas());
+            return new ReplicatedUrlCacheStore(store, redisTemplate, hotKeyDetector, hotKeyProperties);
+        }
+        return store;
+    }
+
+    private static UrlCacheStore layoutStore(
+            RedisTemplate<String, String> redisTemplate,
+            UrlValueCodec urlValueCodec,
+            RedisLayoutProperties properties
+    ) {
+        return switch (properties.getLayout()) {
+            case STRING -> new StringUrlCacheStore(redisTemplate, urlValueCodec);
+            case HASH -> new HashBucketUrlCacheStore(redisTemplate, urlValueCodec, properties);
+            case DUAL -> new DualUrlCacheStore(
+                    new HashBucketUrlCacheStore(redisTemplate, urlValueCodec, properties),
+                    new StringUrlCacheStore(redisTemplate, urlValueCodec));
+        };
+    }
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(
+            RedisConnectionFactory connectionFactory,
+            CacheInvalidationListener cacheInvalidationListener
+    ) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+
+        // Every pod subscribes so invalidations reach all local caches
+        container.addMessageListener(cacheInvalidationListener, new ChannelTopic(CacheInvalidationListener.CHANNEL));
+
+        return container;
+    }
 }
@@ -0,0 +1,57 @@
+package org.js.redirect.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "redirect.cache.redis")
+public class RedisLayoutProperties {
+
+    public enum Layout {
+        /**
+         * One string key per link: urlv1:&lt;code&gt;. The only layout the reactive stack supports
+         */
+        STRING,
+        /**
+         * Links grouped into small hashes: urlb:&lt;bucket&gt; -&gt; {code: entry}
+         */
+        HASH,
+        /**
+         * Migration from STRING to HASH: writes go to hash buckets, reads fall back to string keys
+         */
+        DUAL
+    }
+
+    private Layout layout = Layout.STRING;
+
+    /**
+     * Number of hash buckets. Size it to roughly links / 64 so buckets stay under Redis'
+     * hash-max-listpack-entries (128) and keep the compact encoding. Changing it remaps every code,
+     * which behaves like a cache flush.
+     */
+    private int bucketCount = 1 << 20;
+
+    /**
+     * Expiry of a whole bucket, refreshed on every write. Must exceed the longest entry TTL;
+     * individual entries are expired on read from their stored cached-until timestamp.
+     */
+    private Duration bucketTimeToLive = Duration.ofHours(25);
+
+    /**
+     * Buckets read (HGETALL) per sweep for expired entries. An expired entry of a bucket that keeps
+     * being written is deleted at most bucket-count / sweep-buckets * sweep-interval after it expires
+     * (about 5.7h with the defaults), sooner with more pods.
+     */
+    private int sweepBuckets = 256;
+
+    private Duration sweepInterval = Duration.ofSeconds(5);
+
+    /**
+     * Deflate entries whose encoded form is at least this long.
+     */
+    private boolean compressionEnabled = false;
+
+    private int compressionThreshold = 256;
+}
@@ -0,0 +1,25 @@
+package org.js.redirect.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "redirect.filter")
+public class ShortCodeFilterProperties {
+    /**
+     * Reject codes missing from the filter with a 404 before touching Redis or Postgres.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Number of live codes the filter is sized for; memory grows linearly with it.
+     */
+    private long expectedInsertions = 10_000_000;
+
+    private double falsePositiveProbability = 0.01;
+
+    /**
+     * Ids re-read below the watermark on each sync, for rows whose transactions committed out of id order.
+     */
+    private long syncOverlap = 1_000;
+}
@@ -0,0 +1,47 @@
+package org.js.redirect.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "redirect.warmup")
+public class WarmupProperties {
+    /**
+     * Preload the hot set into the local cache before reporting ready.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Number of hottest codes to preload.
+     */
+    private int hotSetSize = 10_000;
+
+    /**
+     * Warm-up gives up and reports ready after this long.
+     */
+    private Duration maxDuration = Duration.ofSeconds(30);
+
+    /**
+     * Warm-up stops once this many estimated bytes are loaded.
+     */
+    private long maxBytes = 32L * 1024 * 1024;
+
+    private int batchSize = 500;
+
+    /**
+     * How often each pod contributes its hottest local entries to the shared hot set.
+     */
+    private Duration publishInterval = Duration.ofMinutes(1);
+
+    /**
+     * Upper bound on the shared hot set kept in Redis.
+     */
+    private int storedHotSetSize = 50_000;
+
+    /**
+     * Weight applied to existing scores once per publish interval across all pods, so stale codes fade out.
+     */
+    private double decay = 0.9;
+}
@@ -0,0 +1,69 @@
+package org.js.redirect.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.js.redirect.service.ReactiveRedirectService;
+import org.js.redirect.service.model.ResolveResult;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reactive counterpart of {@link RedirectController}, active with spring.main.web-application-type=reactive.
+ * Same 301/302/404/410 responses, headers and bodies.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Slf4j
+@RequiredArgsConstructor
+public class ReactiveRedirectController {
+    private static final byte[] NOT_FOUND_BODY = "{\"message\":\"No URL found\"}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] EXPIRED_BODY = "{\"message\":\"URL Expired\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final ReactiveRedirectService redirectService;
+    private final RedirectCachePolicy redirectCachePolicy;
+
+    @GetMapping("/{shortCode}")
+    public Mono<Void> redirect(
+            @PathVariable String shortCode,
+            ServerHttpResponse response
+    ) {
+        log.info("Redirecting short code: {}", shortCode);
+
+        return redirectService.resolve(shortCode)
+                .flatMap(result -> switch (result.status()) {
+                    case NOT_FOUND -> writeError(response, HttpStatus.NOT_FOUND, NOT_FOUND_BODY);
+                    case EXPIRED -> writeError(response, HttpStatus.GONE, EXPIRED_BODY);
+                    case FOUND -> writeRedirect(response, result);
+                });
+    }
+
+    private Mono<Void> writeRedirect(ServerHttpResponse response, ResolveResult result) {
+        RedirectCachePolicy.RedirectHeaders headers = redirectCachePolicy.forLink(result.expiresAt());
+
+        // The resolved URL is already a complete Location value (normalized when cached)
+        response.setStatusCode(headers.permanent() ? HttpStatus.MOVED_PERMANENTLY : HttpStatus.FOUND);
+        response.getHeaders().set(HttpHeaders.LOCATION, result.longUrl());
+        response.getHeaders().set(HttpHeaders.CACHE_CONTROL, headers.cacheControl());
+        response.getHeaders().setExpires(headers.expires());
+        if (headers.vary() != null) {
+            response.getHeaders().set(HttpHeaders.VARY, headers.vary());
+        }
+        return response.setComplete();
+    }
+
+    private static Mono<Void> writeError(ServerHttpResponse response, HttpStatus status, byte[] body) {
+        response.setStatusCode(status);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        response.getHeaders().setContentLength(body.length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+}
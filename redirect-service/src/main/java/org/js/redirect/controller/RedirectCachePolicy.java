@@ -0,0 +1,62 @@
+package org.js.redirect.controller;
+
+import org.js.redirect.config.RedirectHttpProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Status and caching headers of a redirect, derived from the link's expiry:
+ * browsers and CDNs may cache it for at most its remaining lifetime, and only links known to live
+ * long are sent as permanent (301) redirects.
+ */
+@Component
+public class RedirectCachePolicy {
+
+    /**
+     * @param permanent    301 if true, 302 otherwise
+     * @param cacheControl Cache-Control value
+     * @param expires      Expires value, epoch millis
+     * @param vary         Vary value, or null to omit it
+     */
+    public record RedirectHeaders(boolean permanent, String cacheControl, long expires, String vary) {
+    }
+
+    private final long maxAgeSeconds;
+    private final long permanentMinLifetimeSeconds;
+    private final String defaultCacheControl;
+    private final String vary;
+
+    public RedirectCachePolicy(RedirectHttpProperties properties) {
+        this.maxAgeSeconds = properties.getMaxAge().toSeconds();
+        this.permanentMinLifetimeSeconds = properties.getPermanentRedirectMinLifetime().toSeconds();
+        this.defaultCacheControl = cacheControl(maxAgeSeconds);
+        this.vary = properties.getVary().isEmpty() ? null : String.join(", ", properties.getVary());
+    }
+
+    /**
+     * @param expiresAt When the link expires (null if it never expires or the cached entry does not say)
+     */
+    public RedirectHeaders forLink(LocalDateTime expiresAt) {
+        if (expiresAt == null) {
+            // Entries cached before expiries were recorded also read as null, and a link without expiry can
+            // still be deleted: a 301 would be followed from browser caches indefinitely. A 302 cached for
+            // max-age (1h by default) is followed from shared caches for at most that long after a delete.
+            return headers(false, maxAgeSeconds);
+        }
+
+        long remainingSeconds = Duration.between(LocalDateTime.now(), expiresAt).toSeconds();
+        return headers(remainingSeconds >= permanentMinLifetimeSeconds,
+                Math.max(0, Math.min(maxAgeSeconds, remainingSeconds)));
+    }
+
+    private RedirectHeaders headers(boolean permanent, long maxAge) {
+        String cacheControl = maxAge == maxAgeSeconds ? defaultCacheControl : cacheControl(maxAge);
+        return new RedirectHeaders(permanent, cacheControl, System.currentTimeMillis() + maxAge * 1000, vary);
+    }
+
+    private static String cacheControl(long maxAge) {
+        return maxAge == 0 ? "no-cache" : "public, max-age=" + maxAge;
+    }
+}
@@ -1,25 +1,50 @@
 package org.js.redirect.controller;
 
 import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.js.redirect.controller.model.BulkResolveRequest;
+import org.js.redirect.controller.model.BulkResolveResponse;
+import org.js.redirect.controller.model.ResolvedUrl;
 import org.js.redirect.service.RedirectService;
+import org.js.redirect.service.model.ResolveResult;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
-import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @Slf4j
 @RequiredArgsConstructor
 public class RedirectController {
+    // Same bodies GlobalExceptionHandler produces, serialized once
+    private static final byte[] NOT_FOUND_BODY = "{\"message\":\"No URL found\"}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] EXPIRED_BODY = "{\"message\":\"URL Expired\"}".getBytes(StandardCharsets.UTF_8);
+
+    private static final String LOCATION = "Location";
+    private static final String CACHE_CONTROL = "Cache-Control";
+    private static final String EXPIRES = "Expires";
+    private static final String VARY = "Vary";
+
     private final RedirectService redirectService;
+    private final RedirectCachePolicy redirectCachePolicy;
 
     /**
      * Redirect to the original long URL.
-     * Returns 301 (Permanent Redirect) for browser/CDN caching.
+     * Returns 301 (Permanent Redirect) for long-lived links and 302 for ones expiring soon,
+     * cacheable by browsers/CDN for at most the link's remaining lifetime.
+     * Misses are written from preallocated bytes instead of going through exception handling.
      *
      * @param shortCode The short code from the URL path
      * @param response HTTP response object
@@ -32,19 +57,53 @@ public class RedirectController {
     ) throws IOException {
         log.info("Redirecting short code: {}", shortCode);
 
-        String longUrl = redirectService.getLongUrl(shortCode);
+        ResolveResult result = redirectService.resolve(shortCode);
 
-        // Add protocol if missing
-        if (!longUrl.startsWith("http://") && !longUrl.startsWith("https://")) {
-            longUrl = "https://" + longUrl;
+        switch (result.status()) {
+            case NOT_FOUND -> writeError(response, HttpServletResponse.SC_NOT_FOUND, NOT_FOUND_BODY);
+            case EXPIRED -> writeError(response, HttpServletResponse.SC_GONE, EXPIRED_BODY);
+            case FOUND -> writeRedirect(shortCode, result, response);
         }
+    }
+
+    /**
+     * Resolve many short codes in one call, for batch jobs such as link checkers.
+     *
+     * @param requestBody The short codes to resolve
+     * @return Status and URL per distinct short code
+     */
+    @PostMapping("/api/resolve")
+    public ResponseEntity<BulkResolveResponse> resolveAll(
+            @Valid @RequestBody final BulkResolveRequest requestBody
+    ) {
+        Map<String, ResolvedUrl> results = new LinkedHashMap<>();
+        redirectService.resolveAll(requestBody.getShortCodes()).forEach((shortCode, result) ->
+                results.put(shortCode, new ResolvedUrl(result.status(), result.longUrl(), result.expiresAt())));
 
-        // 301 = Permanent redirect (cacheable by browsers/CDN)
-        // Use 302 if you need to track every click (not cached)
-        response.setStatus(HttpServletResponse.SC_MOVED_PERMANENTLY);
-        response.setHeader("Location", longUrl);
-        response.setHeader("Cache-Control", "public, max-age=3600"); // Cache for 1 hour
+        return ResponseEntity.ok(new BulkResolveResponse(results));
+    }
+
+    private void writeRedirect(String shortCode, ResolveResult result, HttpServletResponse response) {
+        RedirectCachePolicy.RedirectHeaders headers = redirectCachePolicy.forLink(result.expiresAt());
+
+        // The resolved URL is already a complete Location value (normalized when cached)
+        response.setStatus(headers.permanent()
+                ? HttpServletResponse.SC_MOVED_PERMANENTLY
+                : HttpServletResponse.SC_FOUND);
+        response.setHeader(LOCATION, result.longUrl());
+        response.setHeader(CACHE_CONTROL, headers.cacheControl());
+        response.setDateHeader(EXPIRES, headers.expires());
+        if (headers.vary() != null) {
+            response.setHeader(VARY, headers.vary());
+        }
+
+        log.debug("Redirected {} to {}", shortCode, result.longUrl());
+    }
 
-        log.debug("Redirected {} to {}", shortCode, longUrl);
+    private static void writeError(HttpServletResponse response, int status, byte[] body) throws IOException {
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
     }
 }
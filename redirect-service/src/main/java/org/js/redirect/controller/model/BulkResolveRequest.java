@@ -0,0 +1,24 @@
+package org.js.redirect.controller.model;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkResolveRequest {
+
+    @NotEmpty(message = "Short codes cannot be empty")
+    @Size(max = MAX_SHORT_CODES, message = "At most 1000 short codes per request")
+    private List<@NotBlank(message = "Short codes cannot be blank") String> shortCodes;
+
+    public static final int MAX_SHORT_CODES = 1000;
+}
@@ -0,0 +1,16 @@
+package org.js.redirect.controller.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkResolveResponse {
+    private Map<String, ResolvedUrl> results;
+}
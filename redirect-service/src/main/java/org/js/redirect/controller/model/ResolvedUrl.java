@@ -0,0 +1,21 @@
+package org.js.redirect.controller.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.js.redirect.service.model.ResolveResult;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ResolvedUrl {
+    private ResolveResult.Status status;
+    private String url;
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,16 @@
+package org.js.redirect.events;
+
+import java.time.LocalDateTime;
+
+/**
+ * Payload of a url-lifecycle record, keyed by short code. Mirrors url-shortener's LinkEvent.
+ *
+ * @param type      CREATED or DELETED
+ * @param longUrl   Null for deletions
+ * @param expiresAt Null for deletions
+ */
+public record LinkEvent(String type, String shortCode, String longUrl, LocalDateTime expiresAt) {
+
+    public static final String CREATED = "CREATED";
+    public static final String DELETED = "DELETED";
+}
@@ -0,0 +1,105 @@
+package org.js.redirect.events;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.js.redirect.cache.CachedUrl;
+import org.js.redirect.service.RedirectService;
+import org.js.redirect.utils.RedirectUrls;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Applies url-shortener's link lifecycle events: created links are written to Redis before their first
+ * redirect, deleted ones are invalidated everywhere.
+ * <p>
+ * Events arrive at least once and in order per short code. Applying one twice is harmless, and a batch
+ * keeps the outcome of the last event per code, so redelivered batches converge to the same state.
+ */
+@Component
+@Slf4j
+public class LinkEventListener {
+
+    private final RedirectService redirectService;
+    private final ObjectMapper objectMapper;
+    private final Counter created;
+    private final Counter deleted;
+    private final Counter malformed;
+
+    public LinkEventListener(RedirectService redirectService, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.redirectService = redirectService;
+        this.objectMapper = objectMapper;
+        this.created = meterRegistry.counter("redirect.events", "type", "created");
+        this.deleted = meterRegistry.counter("redirect.events", "type", "deleted");
+        this.malformed = meterRegistry.counter("redirect.events", "type", "malformed");
+    }
+
+    @KafkaListener(
+            id = "link-events",
+            topics = "${redirect.events.topic:url-lifecycle}",
+            autoStartup = "${redirect.events.enabled:false}",
+            batch = "true")
+    public void onEvents(List<String> payloads) {
+        Map<String, CachedUrl> createdLinks = new LinkedHashMap<>();
+        Set<String> deletedCodes = new LinkedHashSet<>();
+        LocalDateTime now = LocalDateTime.now();
+
+        for (String payload : payloads) {
+            LinkEvent event = parse(payload);
+
+            if (event == null) {
+                continue;
+            }
+
+            if (LinkEvent.DELETED.equals(event.type())) {
+                createdLinks.remove(event.shortCode());
+                deletedCodes.add(event.shortCode());
+                deleted.increment();
+            } else {
+                created.increment();
+
+                // Already expired links load (and get tombstoned) like any other on first use
+                if (event.expiresAt() == null || event.expiresAt().isAfter(now)) {
+                    createdLinks.put(event.shortCode(),
+                            new CachedUrl(RedirectUrls.toLocation(event.longUrl()), event.expiresAt()));
+                }
+            }
+        }
+
+        // Invalidations first: a code deleted then created again within the batch ends up cached
+        deletedCodes.forEach(redirectService::invalidateCache);
+        redirectService.cacheCreated(createdLinks);
+
+        log.debug("Applied {} link events ({} created, {} deleted)",
+                payloads.size(), createdLinks.size(), deletedCodes.size());
+    }
+
+    /**
+     * @return The event, or null if it cannot be read; retrying would not make it readable
+     */
+    private LinkEvent parse(String payload) {
+        try {
+            LinkEvent event = objectMapper.readValue(payload, LinkEvent.class);
+
+            if (event.shortCode() != null && (LinkEvent.DELETED.equals(event.type())
+                    || (LinkEvent.CREATED.equals(event.type()) && event.longUrl() != null))) {
+                return event;
+            }
+        } catch (JsonProcessingException e) {
+            log.debug("Unreadable link event: {}", payload, e);
+        }
+
+        malformed.increment();
+        log.warn("Skipped malformed link event");
+        return null;
+    }
+}
@@ -0,0 +1,182 @@
+package org.js.redirect.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.js.redirect.config.ShortCodeFilterProperties;
+import org.js.redirect.repository.ShortCodeRow;
+import org.js.redirect.repository.UrlRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Probabilistic membership filter of every short code in the urls table.
+ * A code the filter has definitely never seen cannot exist, so it is rejected without any I/O.
+ * <p>
+ * Built at startup by streaming short_code from Postgres, kept current by an id-watermark delta sync
+ * (re-reading an overlap below the watermark for late commits) and by the invalidation channel
+ * url-shortener publishes on create, and rebuilt periodically to shed deleted codes.
+ * Until the first build completes every code is let through.
+ */
+@Component
+@Slf4j
+public class ShortCodeFilter {
+
+    private final UrlRepository urlRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ShortCodeFilterProperties properties;
+    private final Counter rejections;
+
+    private final AtomicLong watermark = new AtomicLong();
+    private final AtomicLong entries = new AtomicLong();
+    private volatile BloomFilter filter;
+    // Codes added while a rebuild streams, replayed onto the new filter
+    private volatile Set<String> addedDuringRebuild;
+
+    public ShortCodeFilter(
+            UrlRepository urlRepository,
+            TransactionTemplate transactionTemplate,
+            ShortCodeFilterProperties properties,
+            MeterRegistry meterRegistry
+    ) {
+        this.urlRepository = urlRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransaction.setReadOnly(true);
+        this.properties = properties;
+        this.rejections = meterRegistry.counter("redirect.filter.rejections");
+
+        Gauge.builder("redirect.filter.memory", this, f -> f.filter == null ? 0 : f.filter.sizeInBytes())
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("redirect.filter.entries", entries, AtomicLong::get)
+                .register(meterRegistry);
+        Gauge.builder("redirect.filter.fpp.configured", properties, ShortCodeFilterProperties::getFalsePositiveProbability)
+                .register(meterRegistry);
+        Gauge.builder("redirect.filter.fpp.estimated", this,
+                        f -> f.filter == null ? 0 : f.filter.estimatedFalsePositiveProbability())
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param shortCode The short code to check
+     * @return false only if the code definitely does not exist
+     */
+    public boolean mightExist(String shortCode) {
+        BloomFilter current = filter;
+
+        if (!properties.isEnabled() || current == null || current.mightContain(shortCode)) {
+            return true;
+        }
+
+        rejections.increment();
+        return false;
+    }
+
+    /**
+     * Record a code known to exist, e.g. just created or just loaded from the database.
+     */
+    public void add(String shortCode) {
+        BloomFilter current = filter;
+
+        if (current != null) {
+            current.add(shortCode);
+        }
+
+        Set<String> pending = addedDuringRebuild;
+        if (pending != null) {
+            pending.add(shortCode);
+        }
+
+        // A rebuild may have swapped in its filter after the pending codes were replayed
+        BloomFilter latest = filter;
+        if (latest != current && latest != null) {
+            latest.add(shortCode);
+        }
+    }
+
+    /**
+     * Full rebuild from the urls table; the first run happens at startup.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${redirect.filter.rebuild-interval:PT6H}")
+    public synchronized void rebuild() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        long startedAt = System.currentTimeMillis();
+        Set<String> pending = ConcurrentHashMap.newKeySet();
+        addedDuringRebuild = pending;
+
+        BloomFilter rebuilt = new BloomFilter(properties.getExpectedInsertions(), properties.getFalsePositiveProbability());
+        long[] maxId = {0};
+        long count;
+        try {
+            count = streamInto(rebuilt, 0, 0, maxId);
+        } catch (RuntimeException e) {
+            addedDuringRebuild = null;
+            throw e;
+        }
+
+        filter = rebuilt;
+        addedDuringRebuild = null;
+        pending.forEach(rebuilt::add);
+        watermark.set(maxId[0]);
+        entries.set(count);
+
+        log.info("Short code filter rebuilt with {} codes ({} bytes) in {}ms",
+                count, rebuilt.sizeInBytes(), System.currentTimeMillis() - startedAt);
+    }
+
+    /**
+     * Add codes created since the last build or sync. Ids up to sync-overlap below the watermark are read
+     * again, as batch and import inserts draw ids before they commit and may commit out of id order.
+     */
+    @Scheduled(fixedDelayString = "${redirect.filter.sync-interval:PT5S}")
+    public synchronized void syncCreatedCodes() {
+        BloomFilter current = filter;
+
+        if (!properties.isEnabled() || current == null) {
+            return;
+        }
+
+        long[] maxId = {watermark.get()};
+        long count = streamInto(current, Math.max(0, watermark.get() - properties.getSyncOverlap()), watermark.get(), maxId);
+
+        watermark.set(maxId[0]);
+        entries.addAndGet(count);
+
+        if (count > 0) {
+            log.debug("Short code filter synced {} new codes", count);
+        }
+    }
+
+    /**
+     * @return Codes above the watermark; those re-read below it are added again but not counted
+     */
+    private long streamInto(BloomFilter target, long afterId, long watermark, long[] maxId) {
+        Long count = readOnlyTransaction.execute(status -> {
+            long added = 0;
+
+            try (Stream<ShortCodeRow> rows = urlRepository.streamShortCodesAfter(afterId)) {
+                for (ShortCodeRow row : (Iterable<ShortCodeRow>) rows::iterator) {
+                    target.add(row.shortCode());
+                    maxId[0] = Math.max(maxId[0], row.id());
+                    if (row.id() > watermark) {
+                        added++;
+                    }
+                }
+            }
+
+            return added;
+        });
+
+        return count == null ? 0 : count;
+    }
+}
@@ -0,0 +1,90 @@
+package org.js.redirect.hotkey;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Thread-safe Count-Min sketch over strings.
+ * Estimates never undercount; they overcount by at most about {@code e / width} of the total added.
+ * Memory is fixed at {@code depth * width} counters whatever the number of distinct values.
+ */
+public class CountMinSketch {
+
+    private final AtomicIntegerArray counters;
+    private final int depth;
+    private final int widthMask;
+
+    /**
+     * @param depth Number of rows (independent hashes)
+     * @param width Counters per row, rounded up to a power of two
+     */
+    public CountMinSketch(int depth, int width) {
+        this.depth = Math.max(1, depth);
+        int roundedWidth = Integer.highestOneBit(Math.max(2, width) - 1) << 1;
+        this.widthMask = roundedWidth - 1;
+        this.counters = new AtomicIntegerArray(Math.multiplyExact(this.depth, roundedWidth));
+    }
+
+    /**
+     * Count one occurrence of the value.
+     *
+     * @return The value's estimated count, including this occurrence
+     */
+    public int add(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int count = counters.incrementAndGet(index(row, h1, h2));
+            estimate = Math.min(estimate, count);
+        }
+        return estimate;
+    }
+
+    public int estimate(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(index(row, h1, h2)));
+        }
+        return estimate;
+    }
+
+    /**
+     * Halve every counter, so counts decay exponentially and old bursts fade out.
+     * Increments racing with the decay may be halved or not; either is fine for an estimate.
+     */
+    public void halve() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.getAndUpdate(i, count -> count >>> 1);
+        }
+    }
+
+    public long sizeInBytes() {
+        return (long) counters.length() * Integer.BYTES;
+    }
+
+    private int index(int row, int h1, int h2) {
+        return row * (widthMask + 1) + ((h1 + row * h2) & widthMask);
+    }
+
+    /**
+     * 64-bit FNV-1a followed by the SplitMix64 finalizer, split into two 32-bit halves for double hashing.
+     */
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+}
@@ -0,0 +1,210 @@
+package org.js.redirect.hotkey;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.js.redirect.cache.CachedUrl;
+import org.js.redirect.config.HotKeyProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Real-time detection of hot short codes.
+ * Every request is counted in a decaying {@link CountMinSketch}; codes whose count crosses the threshold
+ * join a small hot set, where their resolved URL can be pinned and served without touching any cache tier.
+ * <p>
+ * Memory is bounded by the sketch size plus {@code maxHotKeys} entries, however many codes are requested.
+ * A code leaves the hot set once its decayed count falls below half the threshold.
+ */
+@Component
+@Slf4j
+public class HotKeyDetector {
+
+    /**
+     * @param shortCode The hot code
+     * @param estimate  Its decayed request count when last updated
+     * @param pinned    Whether its URL is pinned in memory
+     */
+    public record HotKey(String shortCode, long estimate, boolean pinned) {
+    }
+
+    private final HotKeyProperties properties;
+    private final CountMinSketch sketch;
+    private final long refreshIntervalMillis;
+    private final Counter detections;
+
+    private final Map<String, Entry> hotKeys = new ConcurrentHashMap<>();
+
+    // Estimate a code needs to displace the coldest hot key once the set is full
+    private volatile long admissionFloor;
+
+    public HotKeyDetector(HotKeyProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.sketch = new CountMinSketch(properties.getSketchDepth(), properties.getSketchWidth());
+        this.refreshIntervalMillis = properties.getRefreshInterval().toMillis();
+        this.detections = meterRegistry.counter("redirect.hotkeys.detections");
+
+        Gauge.builder("redirect.hotkeys.size", hotKeys, Map::size)
+                .register(meterRegistry);
+        Gauge.builder("redirect.hotkeys.sketch.memory", sketch, CountMinSketch::sizeInBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Count one request for the code.
+     *
+     * @return true if the code is hot
+     */
+    public boolean record(String shortCode) {
+        if (!properties.isEnabled()) {
+            return false;
+        }
+
+        int estimate = sketch.add(shortCode);
+        Entry entry = hotKeys.get(shortCode);
+
+        if (entry != null) {
+            entry.estimate = estimate;
+            return true;
+        }
+
+        return estimate >= properties.getThreshold() && admit(shortCode, estimate);
+    }
+
+    public boolean isHot(String shortCode) {
+        return hotKeys.containsKey(shortCode);
+    }
+
+    /**
+     * @return The pinned URL of a hot code, or null if it is not hot or not pinned yet
+     */
+    public CachedUrl getPinned(String shortCode) {
+        Entry entry = hotKeys.get(shortCode);
+        return entry == null ? null : entry.pinned;
+    }
+
+    /**
+     * Pin the URL of a hot code; ignored if the code is not (or no longer) hot.
+     */
+    public void pin(String shortCode, CachedUrl cachedUrl) {
+        Entry entry = hotKeys.get(shortCode);
+
+        if (entry != null) {
+            entry.pinned = cachedUrl;
+            entry.nextRefreshAt.set(System.currentTimeMillis() + refreshIntervalMillis);
+        }
+    }
+
+    /**
+     * Drop a pinned URL, e.g. on invalidation; the next request re-reads it through the cache tiers.
+     */
+    public void unpin(String shortCode) {
+        Entry entry = hotKeys.get(shortCode);
+
+        if (entry != null) {
+            entry.pinned = null;
+        }
+    }
+
+    /**
+     * Claim the refresh of a pinned URL whose refresh interval has passed.
+     * At most one caller per interval gets true.
+     */
+    public boolean claimRefresh(String shortCode) {
+        Entry entry = hotKeys.get(shortCode);
+
+        if (entry == null) {
+            return false;
+        }
+
+        long now = System.currentTimeMillis();
+        long nextRefreshAt = entry.nextRefreshAt.get();
+        return now >= nextRefreshAt && entry.nextRefreshAt.compareAndSet(nextRefreshAt, now + refreshIntervalMillis);
+    }
+
+    /**
+     * @return The current hot set, hottest first
+     */
+    public List<HotKey> hotKeys() {
+        return hotKeys.entrySet().stream()
+                .map(e -> new HotKey(e.getKey(), e.getValue().estimate, e.getValue().pinned != null))
+                .sorted(Comparator.comparingLong(HotKey::estimate).reversed())
+                .toList();
+    }
+
+    public long sketchSizeInBytes() {
+        return sketch.sizeInBytes();
+    }
+
+    /**
+     * Halve all counts and drop codes that have cooled down.
+     */
+    @Scheduled(fixedDelayString = "${redirect.hot-keys.decay-interval:PT10S}")
+    public void decay() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        sketch.halve();
+
+        long cooledBelow = properties.getThreshold() / 2;
+        hotKeys.entrySet().removeIf(e -> {
+            e.getValue().estimate = sketch.estimate(e.getKey());
+
+            if (e.getValue().estimate < cooledBelow) {
+                log.info("Short code no longer hot: {}", e.getKey());
+                return true;
+            }
+            return false;
+        });
+
+        updateAdmissionFloor();
+    }
+
+    private synchronized boolean admit(String shortCode, long estimate) {
+        if (hotKeys.containsKey(shortCode)) {
+            return true;
+        }
+
+        if (hotKeys.size() >= properties.getMaxHotKeys()) {
+            if (estimate <= admissionFloor) {
+                return false;
+            }
+
+            hotKeys.entrySet().stream()
+                    .min(Comparator.comparingLong(e -> e.getValue().estimate))
+                    .ifPresent(coldest -> hotKeys.remove(coldest.getKey()));
+        }
+
+        hotKeys.put(shortCode, new Entry(estimate));
+        updateAdmissionFloor();
+
+        detections.increment();
+        log.info("Hot short code detected: {} (~{} requests)", shortCode, estimate);
+        return true;
+    }
+
+    private void updateAdmissionFloor() {
+        admissionFloor = hotKeys.size() < properties.getMaxHotKeys()
+                ? 0
+                : hotKeys.values().stream().mapToLong(entry -> entry.estimate).min().orElse(0);
+    }
+
+    private static final class Entry {
+        private volatile long estimate;
+        private volatile CachedUrl pinned;
+        private final AtomicLong nextRefreshAt = new AtomicLong();
+
+        private Entry(long estimate) {
+            this.estimate = estimate;
+        }
+    }
+}
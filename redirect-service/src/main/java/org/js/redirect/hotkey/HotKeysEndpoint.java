@@ -0,0 +1,39 @@
+package org.js.redirect.hotkey;
+
+import lombok.RequiredArgsConstructor;
+import org.js.redirect.config.HotKeyProperties;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * {@code /actuator/hotkeys}: the codes this pod currently considers hot.
+ */
+@Component
+@Endpoint(id = "hotkeys")
+@RequiredArgsConstructor
+public class HotKeysEndpoint {
+
+    /**
+     * @param threshold   Decayed request count at which a code becomes hot
+     * @param maxHotKeys  Upper bound on the hot set
+     * @param sketchBytes Memory used by the frequency sketch
+     * @param hotKeys     Hot codes, hottest first
+     */
+    public record HotKeysReport(int threshold, int maxHotKeys, long sketchBytes, List<HotKeyDetector.HotKey> hotKeys) {
+    }
+
+    private final HotKeyDetector hotKeyDetector;
+    private final HotKeyProperties properties;
+
+    @ReadOperation
+    public HotKeysReport hotKeys() {
+        return new HotKeysReport(
+                properties.getThreshold(),
+                properties.getMaxHotKeys(),
+                hotKeyDetector.sketchSizeInBytes(),
+                hotKeyDetector.hotKeys());
+    }
+}
@@ -0,0 +1,6 @@
+package org.js.redirect.repository;
+
+import java.time.LocalDateTime;
+
+public record LinkRow(long id, String shortCode, String longUrl, LocalDateTime expiresAt) {
+}
@@ -0,0 +1,4 @@
+package org.js.redirect.repository;
+
+public record ShortCodeRow(Long id, String shortCode) {
+}
@@ -0,0 +1,9 @@
+package org.js.redirect.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * The columns a redirect needs, read without going through the persistence context.
+ */
+public record UrlLookup(String shortCode, String longUrl, LocalDateTime expiresAt) {
+}
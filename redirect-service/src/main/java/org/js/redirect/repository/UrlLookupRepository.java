@@ -0,0 +1,96 @@
+package org.js.redirect.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Read-only projection lookups for the redirect miss path.
+ * Plain prepared statements over JDBC: no managed entities, dirty checking or persistence context.
+ * Lookups by code read url_codes' copy of long_url and expires_at (url-shortener's V14), a single probe
+ * of one table; the urls view would plan and lock every url_links partition.
+ */
+@Repository
+@RequiredArgsConstructor
+public class UrlLookupRepository {
+
+    private static final String FIND_BY_SHORT_CODE =
+            "SELECT short_code, long_url, expires_at FROM url_codes WHERE short_code = ?";
+    private static final String FIND_ALL_BY_SHORT_CODES =
+            "SELECT short_code, long_url, expires_at FROM url_codes WHERE short_code = ANY (?)";
+    // For codes whose url_codes row has no copy: links created by url-shortener instances predating V14
+    private static final String FIND_LINKS_BY_SHORT_CODES =
+            "SELECT short_code, long_url, expires_at FROM urls WHERE short_code = ANY (?)";
+    private static final String FIND_ALL_AFTER_ID =
+            "SELECT id, short_code, long_url, expires_at FROM urls WHERE id > ?";
+
+    private static final RowMapper<UrlLookup> ROW_MAPPER = (resultSet, rowNum) -> new UrlLookup(
+            resultSet.getString(1),
+            resultSet.getString(2),
+            resultSet.getObject(3, LocalDateTime.class));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public Optional<UrlLookup> findByShortCode(final String shortCode) {
+        Optional<UrlLookup> lookup = jdbcTemplate.query(FIND_BY_SHORT_CODE, ROW_MAPPER, shortCode).stream().findFirst();
+
+        if (lookup.isPresent() && lookup.get().longUrl() == null) {
+            return query(FIND_LINKS_BY_SHORT_CODES, List.of(shortCode)).stream().findFirst();
+        }
+        return lookup;
+    }
+
+    /**
+     * Single statement for any number of codes (one array parameter), so it is prepared once.
+     */
+    public List<UrlLookup> findAllByShortCodeIn(final Collection<String> shortCodes) {
+        List<UrlLookup> lookups = query(FIND_ALL_BY_SHORT_CODES, shortCodes);
+        List<String> withoutCopy = lookups.stream()
+                .filter(lookup -> lookup.longUrl() == null)
+                .map(UrlLookup::shortCode)
+                .toList();
+
+        if (withoutCopy.isEmpty()) {
+            return lookups;
+        }
+
+        List<UrlLookup> found = new ArrayList<>(lookups.stream().filter(lookup -> lookup.longUrl() != null).toList());
+        found.addAll(query(FIND_LINKS_BY_SHORT_CODES, withoutCopy));
+        return found;
+    }
+
+    /**
+     * Stream every link with an id above the given one, in fetch-size batches.
+     * Must run inside a read-only transaction, or the driver buffers the whole result.
+     */
+    public void forEachLinkAfter(final long afterId, final int fetchSize, final Consumer<LinkRow> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(FIND_ALL_AFTER_ID);
+            statement.setFetchSize(fetchSize);
+            statement.setLong(1, afterId);
+            return statement;
+        }, (RowCallbackHandler) resultSet -> consumer.accept(new LinkRow(
+                resultSet.getLong(1),
+                resultSet.getString(2),
+                resultSet.getString(3),
+                resultSet.getObject(4, LocalDateTime.class))));
+    }
+
+    private List<UrlLookup> query(final String sql, final Collection<String> shortCodes) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setArray(1, connection.createArrayOf("varchar", shortCodes.toArray()));
+            return statement;
+        }, ROW_MAPPER);
+    }
+}
@@ -1,12 +1,30 @@
 package org.js.redirect.repository;
 
+import jakarta.persistence.QueryHint;
 import org.js.redirect.persistence.entity.UrlEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 public interface UrlRepository extends JpaRepository<UrlEntity, Long> {
     Optional<UrlEntity> findByShortCode(final String shortCode);
 
     void deleteByShortCode(final String shortCode);
+
+    /**
+     * Stream every short code created after the given id. Must run inside a read-only transaction.
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "10000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new org.js.redirect.repository.ShortCodeRow(u.id, u.shortCode) from UrlEntity u where u.id > :afterId")
+    Stream<ShortCodeRow> streamShortCodesAfter(@Param("afterId") final long afterId);
 }
@@ -0,0 +1,57 @@
+package org.js.redirect.service;
+
+import org.js.redirect.service.model.ResolveResult;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight request coalescing: at most one load per key runs at a time in this pod.
+ * Callers arriving while a load is in flight wait for it and share its result or exception.
+ */
+@Component
+public class LoadCoalescer {
+
+    private final ConcurrentMap<String, CompletableFuture<ResolveResult>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * @param key    The key being loaded
+     * @param loader Runs only if no load for the key is already in flight
+     * @return The loaded value
+     */
+    public ResolveResult load(String key, Supplier<ResolveResult> loader) {
+        CompletableFuture<ResolveResult> ownLoad = new CompletableFuture<>();
+        CompletableFuture<ResolveResult> existingLoad = inFlight.putIfAbsent(key, ownLoad);
+
+        if (existingLoad != null) {
+            return await(existingLoad);
+        }
+
+        try {
+            ResolveResult value = loader.get();
+            ownLoad.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            ownLoad.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, ownLoad);
+        }
+    }
+
+    private static ResolveResult await(CompletableFuture<ResolveResult> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            // Rethrow the loader's own exception, e.g. a database failure
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
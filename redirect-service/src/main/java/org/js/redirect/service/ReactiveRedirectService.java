@@ -0,0 +1,193 @@
+package org.js.redirect.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.js.redirect.cache.CacheRefresher;
+import org.js.redirect.cache.CachedUrl;
+import org.js.redirect.cache.LocalUrlCache;
+import org.js.redirect.cache.NegativeCache;
+import org.js.redirect.cache.RedisUrlEntry;
+import org.js.redirect.cache.StringUrlCacheStore;
+import org.js.redirect.cache.Tombstone;
+import org.js.redirect.cache.UrlValueCodec;
+import org.js.redirect.config.NegativeCacheProperties;
+import org.js.redirect.config.RedisLayoutProperties;
+import org.js.redirect.filter.ShortCodeFilter;
+import org.js.redirect.hotkey.HotKeyDetector;
+import org.js.redirect.repository.UrlLookup;
+import org.js.redirect.service.model.ResolveResult;
+import org.js.redirect.utils.RedirectUrls;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Non-blocking counterpart of {@link RedirectService} for the reactive web stack.
+ * Same tiers and outcomes: local cache, short code filter, Redis, tombstones, then Postgres over R2DBC.
+ * Reads and writes the STRING Redis layout only, and refuses to start with any other.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveRedirectService {
+
+    // url_codes' copy of the link (url-shortener's V14): one probe, no url_links partitions planned
+    private static final String FIND_BY_SHORT_CODE =
+            "SELECT long_url, expires_at FROM url_codes WHERE short_code = :shortCode";
+    // Links created by url-shortener instances predating V14 have no copy
+    private static final String FIND_LINK_BY_SHORT_CODE =
+            "SELECT long_url, expires_at FROM urls WHERE short_code = :shortCode";
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final DatabaseClient databaseClient;
+    private final LocalUrlCache localUrlCache;
+    private final ShortCodeFilter shortCodeFilter;
+    private final NegativeCacheProperties negativeCacheProperties;
+    private final CacheRefresher cacheRefresher;
+    private final UrlValueCodec urlValueCodec;
+    private final HotKeyDetector hotKeyDetector;
+    private final RedisLayoutProperties redisLayoutProperties;
+
+    private final ConcurrentMap<String, Mono<ResolveResult>> inFlight = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void checkLayout() {
+        // Entries under another layout would never be found here, and ours would be invisible to servlet pods
+        if (redisLayoutProperties.getLayout() != RedisLayoutProperties.Layout.STRING) {
+            throw new IllegalStateException("The reactive stack only supports redirect.cache.redis.layout=STRING, not "
+                    + redisLayoutProperties.getLayout());
+        }
+    }
+
+    /**
+     * @param shortCode The short code to look up
+     * @return The long URL, or the shared not-found/expired result
+     */
+    public Mono<ResolveResult> resolve(String shortCode) {
+        if (!hotKeyDetector.record(shortCode)) {
+            return resolveThroughTiers(shortCode);
+        }
+
+        // Hot codes are served from their pinned copy; once per refresh interval a request re-reads it
+        // past the local cache instead
+        CachedUrl pinned = hotKeyDetector.getPinned(shortCode);
+        Mono<ResolveResult> result;
+
+        if (pinned == null) {
+            result = resolveThroughTiers(shortCode);
+        } else if (!hotKeyDetector.claimRefresh(shortCode)) {
+            return Mono.just(ResolveResult.of(pinned.longUrl(), pinned.expiresAt()));
+        } else {
+            result = resolveRemote(shortCode);
+        }
+
+        return result.doOnNext(resolved -> {
+            if (resolved.isFound()) {
+                hotKeyDetector.pin(shortCode, new CachedUrl(resolved.longUrl(), resolved.expiresAt()));
+            } else {
+                hotKeyDetector.unpin(shortCode);
+            }
+        });
+    }
+
+    private Mono<ResolveResult> resolveThroughTiers(String shortCode) {
+        CachedUrl localUrl = localUrlCache.get(shortCode);
+
+        if (localUrl != null) {
+            return Mono.just(ResolveResult.found(localUrl.longUrl(), localUrl.expiresAt()));
+        }
+
+        if (!shortCodeFilter.mightExist(shortCode)) {
+            return Mono.just(ResolveResult.NOT_FOUND);
+        }
+
+        return resolveRemote(shortCode);
+    }
+
+    private Mono<ResolveResult> resolveRemote(String shortCode) {
+        return redisTemplate.opsForValue().get(StringUrlCacheStore.CACHE_PREFIX + shortCode)
+                .map(cachedValue -> {
+                    RedisUrlEntry entry = urlValueCodec.decode(cachedValue);
+                    String location = RedirectUrls.toLocation(entry.longUrl());
+                    localUrlCache.put(shortCode, new CachedUrl(location, entry.expiresAt()));
+                    return ResolveResult.of(location, entry.expiresAt());
+                })
+                .switchIfEmpty(Mono.defer(() -> resolveMiss(shortCode)));
+    }
+
+    private Mono<ResolveResult> resolveMiss(String shortCode) {
+        return redisTemplate.opsForValue().get(NegativeCache.CACHE_PREFIX + shortCode)
+                .map(tombstone -> Tombstone.valueOf(tombstone) == Tombstone.EXPIRED
+                        ? ResolveResult.EXPIRED
+                        : ResolveResult.NOT_FOUND)
+                .switchIfEmpty(Mono.defer(() -> {
+                    cacheRefresher.recordHardMiss();
+                    return coalescedLoad(shortCode);
+                }));
+    }
+
+    /**
+     * One database load per code per pod; concurrent subscribers share the cached Mono.
+     */
+    private Mono<ResolveResult> coalescedLoad(String shortCode) {
+        return inFlight.computeIfAbsent(shortCode, code -> loadFromDatabase(code)
+                .doFinally(signal -> inFlight.remove(code))
+                .cache());
+    }
+
+    private Mono<ResolveResult> loadFromDatabase(String shortCode) {
+        return find(FIND_BY_SHORT_CODE, shortCode)
+                .flatMap(lookup -> lookup.longUrl() != null
+                        ? Mono.just(lookup)
+                        : find(FIND_LINK_BY_SHORT_CODE, shortCode))
+                .map(lookup -> new CachedUrl(RedirectUrls.toLocation(lookup.longUrl()), lookup.expiresAt()))
+                .flatMap(cachedUrl -> onLoaded(shortCode, cachedUrl))
+                .switchIfEmpty(Mono.defer(() -> {
+                    log.warn("URL not found: {}", shortCode);
+                    return tombstone(shortCode, Tombstone.NOT_FOUND).thenReturn(ResolveResult.NOT_FOUND);
+                }));
+    }
+
+    private Mono<UrlLookup> find(String sql, String shortCode) {
+        return databaseClient.sql(sql)
+                .bind("shortCode", shortCode)
+                .map((row, metadata) -> new UrlLookup(
+                        shortCode, row.get("long_url", String.class), row.get("expires_at", LocalDateTime.class)))
+                .one();
+    }
+
+    private Mono<ResolveResult> onLoaded(String shortCode, CachedUrl cachedUrl) {
+        LocalDateTime expiresAt = cachedUrl.expiresAt();
+
+        if (expiresAt != null && expiresAt.isBefore(LocalDateTime.now())) {
+            log.warn("Expired URL accessed: {}", shortCode);
+            return tombstone(shortCode, Tombstone.EXPIRED).thenReturn(ResolveResult.EXPIRED);
+        }
+
+        localUrlCache.put(shortCode, cachedUrl);
+
+        long ttlSeconds = cacheRefresher.applyJitter(RedirectService.calculateTtl(expiresAt));
+        long cachedUntil = System.currentTimeMillis() + Duration.ofSeconds(ttlSeconds).toMillis();
+        String value = urlValueCodec.encode(new RedisUrlEntry(cachedUrl.longUrl(), expiresAt, cachedUntil, 0));
+
+        return redisTemplate.opsForValue()
+                .set(StringUrlCacheStore.CACHE_PREFIX + shortCode, value, Duration.ofSeconds(ttlSeconds))
+                .thenReturn(ResolveResult.found(cachedUrl.longUrl(), expiresAt));
+    }
+
+    private Mono<Boolean> tombstone(String shortCode, Tombstone tombstone) {
+        return redisTemplate.opsForValue().set(
+                NegativeCache.CACHE_PREFIX + shortCode,
+                tombstone.name(),
+                negativeCacheProperties.getTimeToLive());
+    }
+}
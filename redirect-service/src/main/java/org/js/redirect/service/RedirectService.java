@@ -2,16 +2,43 @@ package org.js.redirect.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.js.redirect.cache.CacheInvalidationListener;
+import org.js.redirect.cache.CacheRefresher;
+import org.js.redirect.cache.CachedUrl;
+import org.js.redirect.cache.LoadLease;
+import org.js.redirect.cache.LocalUrlCache;
+import org.js.redirect.cache.NegativeCache;
+import org.js.redirect.cache.RedisLatencyGuard;
+import org.js.redirect.cache.RedisUrlEntry;
+import org.js.redirect.cache.Tombstone;
+import org.js.redirect.cache.UrlCacheStore;
 import org.js.redirect.exception.model.UrlExpiredException;
 import org.js.redirect.exception.model.UrlNotFoundException;
-import org.js.redirect.persistence.entity.UrlEntity;
-import org.js.redirect.repository.UrlRepository;
+import org.js.redirect.filter.ShortCodeFilter;
+import org.js.redirect.hotkey.HotKeyDetector;
+import org.js.redirect.repository.UrlLookup;
+import org.js.redirect.repository.UrlLookupRepository;
+import org.js.redirect.service.model.ResolveResult;
+import org.js.redirect.snapshot.LinkSnapshot;
+import org.js.redirect.utils.RedirectUrls;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
@@ -19,15 +46,24 @@ import java.util.concurrent.TimeUnit;
 public class RedirectService {
 
     private final RedisTemplate<String, String> redisTemplate;
-    private final UrlRepository urlRepository;
+    private final UrlLookupRepository urlLookupRepository;
+    private final LocalUrlCache localUrlCache;
+    private final NegativeCache negativeCache;
+    private final LoadCoalescer loadCoalescer;
+    private final LoadLease loadLease;
+    private final ShortCodeFilter shortCodeFilter;
+    private final CacheRefresher cacheRefresher;
+    private final UrlCacheStore urlCacheStore;
+    private final RedisLatencyGuard redisLatencyGuard;
+    private final HotKeyDetector hotKeyDetector;
+    private final LinkSnapshot linkSnapshot;
 
-    private static final String CACHE_PREFIX = "url:";
     private static final long DEFAULT_TTL_HOURS = 24;
     private static final long MIN_TTL_SECONDS = 300; // 5 minutes
 
     /**
      * Get long URL for a given short code.
-     * Uses Redis cache with DB fallback for high performance.
+     * Exception-throwing variant of {@link #resolve(String)}.
      *
      * @param shortCode The short code to look up
      * @return The original long URL
@@ -35,59 +71,425 @@ public class RedirectService {
      * @throws UrlExpiredException if URL has expired
      */
     public String getLongUrl(String shortCode) {
-        // Step 1: Try cache first (hot path - 90%+ of requests)
-        String cachedUrl = redisTemplate.opsForValue().get(CACHE_PREFIX + shortCode);
+        ResolveResult result = resolve(shortCode);
 
-        if (cachedUrl != null) {
-            log.debug("Cache HIT for: {}", shortCode);
-            return cachedUrl;
+        return switch (result.status()) {
+            case FOUND -> result.longUrl();
+            case NOT_FOUND -> throw new UrlNotFoundException();
+            case EXPIRED -> throw new UrlExpiredException();
+        };
+    }
+
+    /**
+     * Resolve a short code without throwing on misses.
+     * Uses an in-process cache, then Redis, with DB fallback for high performance.
+     *
+     * @param shortCode The short code to look up
+     * @return The long URL, or the shared not-found/expired result
+     */
+    public ResolveResult resolve(String shortCode) {
+        // Hot codes are served from their pinned copy, re-read from Redis in the background
+        boolean hot = hotKeyDetector.record(shortCode);
+
+        if (hot) {
+            CachedUrl pinned = hotKeyDetector.getPinned(shortCode);
+
+            if (pinned != null) {
+                if (hotKeyDetector.claimRefresh(shortCode)) {
+                    cacheRefresher.refreshAsync(shortCode, () -> refreshHotKey(shortCode));
+                }
+                return ResolveResult.of(pinned.longUrl(), pinned.expiresAt());
+            }
+        }
+
+        ResolveResult result = resolveThroughTiers(shortCode);
+
+        if (hot && result.isFound()) {
+            hotKeyDetector.pin(shortCode, new CachedUrl(result.longUrl(), result.expiresAt()));
+        }
+        return result;
+    }
+
+    private ResolveResult resolveThroughTiers(String shortCode) {
+        // Step 0: Try the local cache (viral codes never leave the pod)
+        CachedUrl localUrl = localUrlCache.get(shortCode);
+
+        if (localUrl != null) {
+            log.debug("Local cache HIT for: {}", shortCode);
+            return ResolveResult.found(localUrl.longUrl(), localUrl.expiresAt());
+        }
+
+        // Step 0b: Codes the filter has never seen cannot exist (scanning traffic)
+        if (!shortCodeFilter.mightExist(shortCode)) {
+            log.debug("Rejected by short code filter: {}", shortCode);
+            return ResolveResult.NOT_FOUND;
+        }
+
+        // Step 1: Try cache first (hot path - 90%+ of requests), within Redis' latency budget:
+        // if Redis is slow the database is queried in parallel, if it is down it is skipped
+        ResolveResult cached = redisLatencyGuard.execute(
+                () -> getFromRedisOrTombstone(shortCode),
+                () -> loadWithoutRedis(shortCode));
+
+        if (cached != null) {
+            return cached;
+        }
+
+        cacheRefresher.recordHardMiss();
+
+        // Step 1c: The local snapshot has every link up to its last sync
+        ResolveResult snapshotted = readSnapshot(shortCode);
+
+        if (snapshotted != null) {
+            return snapshotted;
+        }
+
+        // Step 2: Cache miss - one loader per code per pod, concurrent callers share its result
+        return loadCoalescer.load(shortCode, () -> loadUrl(shortCode));
+    }
+
+    /**
+     * Resolve many short codes at once, with the same outcomes as {@link #resolve(String)}.
+     * Redis is read in a single pipeline (entries and tombstones together) within its latency budget, the remaining
+     * codes in a single {@code IN} query, and everything loaded is written back in a single pipeline.
+     *
+     * @param shortCodes The short codes to look up; duplicates are resolved once
+     * @return Result per distinct short code, in request order
+     */
+    public Map<String, ResolveResult> resolveAll(Collection<String> shortCodes) {
+        Map<String, ResolveResult> results = new LinkedHashMap<>();
+        List<String> remote = new ArrayList<>();
+
+        for (String shortCode : new LinkedHashSet<>(shortCodes)) {
+            CachedUrl localUrl = localUrlCache.get(shortCode);
+
+            if (localUrl != null) {
+                results.put(shortCode, ResolveResult.found(localUrl.longUrl(), localUrl.expiresAt()));
+            } else if (!shortCodeFilter.mightExist(shortCode)) {
+                results.put(shortCode, ResolveResult.NOT_FOUND);
+            } else {
+                // Reserve the slot so the response keeps request order
+                results.put(shortCode, null);
+                remote.add(shortCode);
+            }
+        }
+
+        if (remote.isEmpty()) {
+            return results;
+        }
+
+        // Redis within its latency budget: if it is slow or down, the remaining codes go on to the
+        // snapshot and the database instead of waiting for it
+        Map<String, ResolveResult> cached = redisLatencyGuard.execute(() -> getAllFromRedis(remote), Map::of);
+        List<String> misses = new ArrayList<>();
+
+        for (String shortCode : remote) {
+            ResolveResult result = cached.get(shortCode);
+
+            if (result != null) {
+                results.put(shortCode, result);
+            } else {
+                misses.add(shortCode);
+            }
+        }
+
+        misses.removeIf(shortCode -> {
+            ResolveResult snapshotted = readSnapshot(shortCode);
+
+            if (snapshotted != null) {
+                results.put(shortCode, snapshotted);
+            }
+            return snapshotted != null;
+        });
+
+        if (!misses.isEmpty()) {
+            loadAllFromDatabase(misses, results);
+        }
+
+        return results;
+    }
+
+    /**
+     * Entries and tombstones for every code in a single round trip.
+     *
+     * @return Result per code Redis had an entry or tombstone for
+     */
+    private Map<String, ResolveResult> getAllFromRedis(List<String> shortCodes) {
+        int[] entryReads = new int[shortCodes.size()];
+        List<Object> values = redisTemplate.executePipelined(new SessionCallback<>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> stringOperations = (RedisOperations<String, String>) operations;
+
+                for (int i = 0; i < shortCodes.size(); i++) {
+                    entryReads[i] = urlCacheStore.queueGet(stringOperations, shortCodes.get(i));
+                    stringOperations.opsForValue().get(NegativeCache.CACHE_PREFIX + shortCodes.get(i));
+                }
+                return null;
+            }
+        });
+
+        Map<String, ResolveResult> cached = new HashMap<>();
+        int offset = 0;
+
+        for (int i = 0; i < shortCodes.size(); i++) {
+            String shortCode = shortCodes.get(i);
+            RedisUrlEntry entry = urlCacheStore.decode(values.subList(offset, offset + entryReads[i]));
+            Object tombstone = values.get(offset + entryReads[i]);
+            offset += entryReads[i] + 1;
+
+            if (entry != null) {
+                String location = RedirectUrls.toLocation(entry.longUrl());
+                localUrlCache.put(shortCode, new CachedUrl(location, entry.expiresAt()));
+                cached.put(shortCode, ResolveResult.of(location, entry.expiresAt()));
+            } else if (tombstone != null) {
+                cached.put(shortCode, Tombstone.valueOf((String) tombstone) == Tombstone.EXPIRED
+                        ? ResolveResult.EXPIRED
+                        : ResolveResult.NOT_FOUND);
+            }
+        }
+        return cached;
+    }
+
+    private void loadAllFromDatabase(List<String> shortCodes, Map<String, ResolveResult> results) {
+        long loadStartedAt = System.currentTimeMillis();
+        Map<String, UrlLookup> lookups = urlLookupRepository.findAllByShortCodeIn(shortCodes).stream()
+                .collect(Collectors.toMap(UrlLookup::shortCode, Function.identity()));
+        long loadMillis = System.currentTimeMillis() - loadStartedAt;
+
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Tombstone> tombstones = new LinkedHashMap<>();
+        Map<String, CachedUrl> found = new LinkedHashMap<>();
+
+        for (String shortCode : shortCodes) {
+            cacheRefresher.recordHardMiss();
+            UrlLookup lookup = lookups.get(shortCode);
+
+            if (lookup == null) {
+                tombstones.put(shortCode, Tombstone.NOT_FOUND);
+                results.put(shortCode, ResolveResult.NOT_FOUND);
+            } else if (lookup.expiresAt() != null && lookup.expiresAt().isBefore(now)) {
+                tombstones.put(shortCode, Tombstone.EXPIRED);
+                results.put(shortCode, ResolveResult.EXPIRED);
+            } else {
+                CachedUrl cachedUrl = new CachedUrl(RedirectUrls.toLocation(lookup.longUrl()), lookup.expiresAt());
+                found.put(shortCode, cachedUrl);
+                localUrlCache.put(shortCode, cachedUrl);
+                results.put(shortCode, ResolveResult.found(cachedUrl.longUrl(), cachedUrl.expiresAt()));
+            }
+        }
+
+        // Best effort, like writeToRedis: off the request thread, skipped while Redis is considered down
+        redisLatencyGuard.submitWrite(() -> {
+            try {
+                redisTemplate.executePipelined(new SessionCallback<>() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public <K, V> Object execute(RedisOperations<K, V> operations) {
+                        RedisOperations<String, String> stringOperations = (RedisOperations<String, String>) operations;
+
+                        found.forEach((shortCode, cachedUrl) -> cacheUrl(
+                                stringOperations, shortCode, cachedUrl.longUrl(), cachedUrl.expiresAt(), loadMillis));
+                        tombstones.forEach((shortCode, tombstone) ->
+                                negativeCache.put(stringOperations, shortCode, tombstone));
+                        return null;
+                    }
+                });
+            } catch (DataAccessException e) {
+                log.warn("Failed to cache {} bulk loaded codes", shortCodes.size(), e);
+            }
+        });
+
+        log.info("Bulk loaded {} codes from database ({} found)", shortCodes.size(), found.size());
+    }
+
+    /**
+     * Re-read a pinned hot code past the local cache, so updates and expiries reach it within the refresh interval.
+     */
+    private void refreshHotKey(String shortCode) {
+        ResolveResult refreshed = redisLatencyGuard.execute(
+                () -> getFromRedisOrTombstone(shortCode),
+                () -> loadWithoutRedis(shortCode));
+
+        if (refreshed == null) {
+            refreshed = loadCoalescer.load(shortCode, () -> loadUrl(shortCode));
+        }
+
+        if (refreshed.isFound()) {
+            hotKeyDetector.pin(shortCode, new CachedUrl(refreshed.longUrl(), refreshed.expiresAt()));
+        } else {
+            hotKeyDetector.unpin(shortCode);
+        }
+    }
+
+    /**
+     * Redis is slow or down: answer from the local snapshot if it has the link, otherwise from the database.
+     */
+    private ResolveResult loadWithoutRedis(String shortCode) {
+        ResolveResult snapshotted = readSnapshot(shortCode);
+        return snapshotted != null ? snapshotted : loadCoalescer.load(shortCode, () -> loadFromDatabase(shortCode));
+    }
+
+    /**
+     * Not written back to Redis: the snapshot can lag a deletion, and Redis would then spread it to every pod.
+     *
+     * @return The snapshotted result, or null if the snapshot does not have the code
+     */
+    private ResolveResult readSnapshot(String shortCode) {
+        CachedUrl snapshotted = linkSnapshot.get(shortCode);
+
+        if (snapshotted == null) {
+            return null;
+        }
+
+        log.debug("Snapshot HIT for: {}", shortCode);
+        ResolveResult result = ResolveResult.of(snapshotted.longUrl(), snapshotted.expiresAt());
+
+        if (result.isFound()) {
+            localUrlCache.put(shortCode, snapshotted);
+        }
+        return result;
+    }
+
+    private ResolveResult getFromRedis(String shortCode) {
+        RedisUrlEntry entry = urlCacheStore.get(shortCode);
+
+        if (entry == null) {
+            return null;
+        }
+
+        log.debug("Cache HIT for: {}", shortCode);
+
+        // Close to expiry: occasionally reload in the background while still serving this value
+        if (cacheRefresher.shouldRefreshEarly(entry)) {
+            cacheRefresher.refreshAsync(shortCode,
+                    () -> loadCoalescer.load(shortCode, () -> loadFromDatabase(shortCode)));
+        }
+
+        // Entries written before URLs were normalized on the way in may lack the protocol
+        String location = RedirectUrls.toLocation(entry.longUrl());
+        localUrlCache.put(shortCode, new CachedUrl(location, entry.expiresAt()));
+
+        // The Redis TTL can outlive the link by up to MIN_TTL_SECONDS
+        return ResolveResult.of(location, entry.expiresAt());
+    }
+
+    private ResolveResult getFromRedisOrTombstone(String shortCode) {
+        ResolveResult cached = getFromRedis(shortCode);
+
+        if (cached != null) {
+            return cached;
         }
 
         log.debug("Cache MISS for: {}", shortCode);
 
+        // Step 1b: Known-bad codes are answered from their tombstone
+        return getTombstone(shortCode);
+    }
+
+    private ResolveResult getTombstone(String shortCode) {
+        Tombstone tombstone = negativeCache.get(shortCode);
+
+        if (tombstone == null) {
+            return null;
+        }
+
+        return tombstone == Tombstone.EXPIRED ? ResolveResult.EXPIRED : ResolveResult.NOT_FOUND;
+    }
+
+    /**
+     * Load a URL on a cache miss.
+     * With the cluster-wide lease enabled, only the pod holding the lease queries the database;
+     * the others wait for its result to land in Redis and only fall back to the database on timeout.
+     *
+     * @param shortCode The short code to load
+     * @return The resolved result
+     */
+    private ResolveResult loadUrl(String shortCode) {
+        if (loadLease.isEnabled() && !loadLease.tryAcquire(shortCode)) {
+            ResolveResult peerLoaded = loadLease.awaitPeerLoad(() -> {
+                ResolveResult tombstoned = getTombstone(shortCode);
+                return tombstoned != null ? tombstoned : getFromRedis(shortCode);
+            });
+
+            if (peerLoaded != null) {
+                return peerLoaded;
+            }
+        }
+
+        return loadFromDatabase(shortCode);
+    }
+
+    private ResolveResult loadFromDatabase(String shortCode) {
         // Step 2: Cache miss - query database (cold path)
-        UrlEntity entity = urlRepository.findByShortCode(shortCode)
-                .orElseThrow(() -> {
-                    log.warn("URL not found: {}", shortCode);
-                    return new UrlNotFoundException();
-                });
+        long loadStartedAt = System.currentTimeMillis();
+        UrlLookup lookup = urlLookupRepository.findByShortCode(shortCode).orElse(null);
+        long loadMillis = System.currentTimeMillis() - loadStartedAt;
+
+        if (lookup == null) {
+            log.warn("URL not found: {}", shortCode);
+            writeToRedis(shortCode, () -> negativeCache.put(shortCode, Tombstone.NOT_FOUND));
+            return ResolveResult.NOT_FOUND;
+        }
 
         // Step 3: Check expiration
-        if (entity.getExpiresAt() != null &&
-                entity.getExpiresAt().isBefore(LocalDateTime.now())) {
+        if (lookup.expiresAt() != null &&
+                lookup.expiresAt().isBefore(LocalDateTime.now())) {
+            // Expired rows are deleted by url-shortener's background reaper
             log.warn("Expired URL accessed: {}", shortCode);
 
-            // Clean up expired URL asynchronously
-            urlRepository.delete(entity);
-
-            throw new UrlExpiredException();
+            writeToRedis(shortCode, () -> negativeCache.put(shortCode, Tombstone.EXPIRED));
+            return ResolveResult.EXPIRED;
         }
 
-        // Step 4: Warm cache for next request
-        String longUrl = entity.getLongUrl();
-        cacheUrl(shortCode, longUrl, entity.getExpiresAt());
+        // Step 4: Warm cache for next request, normalized once so redirects only copy it
+        String longUrl = RedirectUrls.toLocation(lookup.longUrl());
+        localUrlCache.put(shortCode, new CachedUrl(longUrl, lookup.expiresAt()));
+        writeToRedis(shortCode, () -> cacheUrl(redisTemplate, shortCode, longUrl, lookup.expiresAt(), loadMillis));
+
+        return ResolveResult.found(longUrl, lookup.expiresAt());
+    }
 
-        return longUrl;
+    /**
+     * Best-effort cache write after a database load: runs off the request thread (see
+     * {@link RedisLatencyGuard#submitWrite}), is skipped while Redis is considered down, and a failure
+     * does not fail the redirect that was just resolved.
+     */
+    private void writeToRedis(String shortCode, Runnable write) {
+        redisLatencyGuard.submitWrite(() -> {
+            try {
+                write.run();
+            } catch (DataAccessException e) {
+                log.warn("Failed to cache result for: {}", shortCode, e);
+            }
+        });
     }
 
     /**
      * Cache a URL with appropriate TTL.
+     * The TTL is jittered so links warmed together do not expire together, and the entry records
+     * its own expiry and load time for probabilistic early refresh.
      *
+     * @param operations Redis operations to write with, e.g. a pipeline
      * @param shortCode The short code
      * @param longUrl The long URL to cache
      * @param expiresAt When the URL expires (null if no expiration)
+     * @param loadMillis How long loading the URL took
      */
-    private void cacheUrl(String shortCode, String longUrl, LocalDateTime expiresAt) {
-        long ttl = calculateTtl(expiresAt);
+    private void cacheUrl(
+            RedisOperations<String, String> operations,
+            String shortCode,
+            String longUrl,
+            LocalDateTime expiresAt,
+            long loadMillis
+    ) {
+        long ttl = cacheRefresher.applyJitter(calculateTtl(expiresAt));
+        long cachedUntil = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ttl);
 
-        redisTemplate.opsForValue().set(
-                CACHE_PREFIX + shortCode,
-                longUrl,
-                ttl,
-                TimeUnit.SECONDS
-        );
+        urlCacheStore.put(operations, shortCode, new RedisUrlEntry(longUrl, expiresAt, cachedUntil, loadMillis), ttl);
 
-        log.info("Cached URL: {} (TTL: {}s)", shortCode, ttl);
+        log.debug("Cached URL: {} (TTL: {}s)", shortCode, ttl);
     }
 
     /**
@@ -96,7 +498,7 @@ public class RedirectService {
      * @param expiresAt When the URL expires (null if no expiration)
      * @return TTL in seconds
      */
-    private long calculateTtl(LocalDateTime expiresAt) {
+    static long calculateTtl(LocalDateTime expiresAt) {
         if (expiresAt == null) {
             // No expiration - use default TTL
             return TimeUnit.HOURS.toSeconds(DEFAULT_TTL_HOURS);
@@ -115,16 +517,48 @@ public class RedirectService {
         return Math.min(secondsUntilExpiry, TimeUnit.HOURS.toSeconds(DEFAULT_TTL_HOURS));
     }
 
+    /**
+     * Write links just created by url-shortener to Redis, so their first redirect is not a miss.
+     * One pipeline per call. Skipped while Redis is considered down: the links then load on first use.
+     *
+     * @param links Location and expiry per short code
+     */
+    public void cacheCreated(Map<String, CachedUrl> links) {
+        if (links.isEmpty() || !redisLatencyGuard.isRedisAvailable()) {
+            return;
+        }
+
+        redisTemplate.executePipelined(new SessionCallback<>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> stringOperations = (RedisOperations<String, String>) operations;
+
+                // Nothing was loaded, so no load time to weigh early refresh by
+                links.forEach((shortCode, cachedUrl) -> cacheUrl(
+                        stringOperations, shortCode, cachedUrl.longUrl(), cachedUrl.expiresAt(), 0));
+                return null;
+            }
+        });
+
+        log.debug("Cached {} created links", links.size());
+    }
+
     /**
      * Invalidate cache entry for a short code.
      * Useful when URL is deleted or updated.
+     * Other pods drop their local copy through Redis pub/sub.
      *
      * @param shortCode The short code to invalidate
      */
     public void invalidateCache(String shortCode) {
-        Boolean deleted = redisTemplate.delete(CACHE_PREFIX + shortCode);
-        if (Boolean.TRUE.equals(deleted)) {
+        if (urlCacheStore.delete(shortCode)) {
             log.info("Cache invalidated for: {}", shortCode);
         }
+
+        localUrlCache.invalidate(shortCode);
+        hotKeyDetector.unpin(shortCode);
+        linkSnapshot.remove(shortCode);
+        redisTemplate.convertAndSend(CacheInvalidationListener.CHANNEL, shortCode);
     }
 }
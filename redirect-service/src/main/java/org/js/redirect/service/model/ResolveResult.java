@@ -0,0 +1,48 @@
+package org.js.redirect.service.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of resolving a short code.
+ * Not-found and expired outcomes are shared constants, so misses allocate nothing.
+ *
+ * @param status    Whether the code resolved
+ * @param longUrl   The original long URL (only for {@link Status#FOUND})
+ * @param expiresAt When the link expires (only for {@link Status#FOUND}; null if it never expires)
+ */
+public record ResolveResult(Status status, String longUrl, LocalDateTime expiresAt) {
+
+    public enum Status {
+        FOUND,
+        NOT_FOUND,
+        EXPIRED
+    }
+
+    public static final ResolveResult NOT_FOUND = new ResolveResult(Status.NOT_FOUND, null, null);
+    public static final ResolveResult EXPIRED = new ResolveResult(Status.EXPIRED, null, null);
+
+    /**
+     * A link that never expires.
+     */
+    public static ResolveResult found(String longUrl) {
+        return found(longUrl, null);
+    }
+
+    public static ResolveResult found(String longUrl, LocalDateTime expiresAt) {
+        return new ResolveResult(Status.FOUND, longUrl, expiresAt);
+    }
+
+    /**
+     * Resolve a cached link, which may have expired since it was cached.
+     */
+    public static ResolveResult of(String longUrl, LocalDateTime expiresAt) {
+        if (expiresAt != null && expiresAt.isBefore(LocalDateTime.now())) {
+            return EXPIRED;
+        }
+        return found(longUrl, expiresAt);
+    }
+
+    public boolean isFound() {
+        return status == Status.FOUND;
+    }
+}
@@ -0,0 +1,318 @@
+package org.js.redirect.snapshot;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.js.redirect.cache.CachedUrl;
+import org.js.redirect.config.LinkSnapshotProperties;
+import org.js.redirect.repository.UrlLookupRepository;
+import org.js.redirect.utils.RedirectUrls;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Local, off-heap copy of every link, so redirects keep resolving without Redis and with fewer Postgres reads.
+ * <p>
+ * Built by streaming the urls table into a {@link MappedLinkTable}, kept current by an id-watermark delta
+ * sync, and rebuilt periodically to shed deleted links; invalidations remove links right away.
+ * Each build is a new generation directory, named by the {@code CURRENT} file, so a restarted pod maps the
+ * last generation and serves it while the startup rebuild sheds links deleted in the meantime.
+ */
+@Component
+@Slf4j
+public class LinkSnapshot {
+
+    private static final String CURRENT_FILE = "CURRENT";
+    private static final String GENERATION_PREFIX = "gen-";
+
+    private final UrlLookupRepository urlLookupRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final LinkSnapshotProperties properties;
+    private final Counter hits;
+    private final AtomicLong lastLoadMillis = new AtomicLong();
+
+    private volatile MappedLinkTable table;
+    // Removes that arrive while a build streams, replayed onto the new table; null outside builds
+    private volatile Set<String> removedDuringBuild;
+    // Removes since the start of the last sync, which its overlap re-read must not add back
+    private volatile Set<String> removedSinceSync = ConcurrentHashMap.newKeySet();
+    private long expectedLinks;
+
+    public LinkSnapshot(
+            UrlLookupRepository urlLookupRepository,
+            TransactionTemplate transactionTemplate,
+            LinkSnapshotProperties properties,
+            MeterRegistry meterRegistry
+    ) {
+        this.urlLookupRepository = urlLookupRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransaction.setReadOnly(true);
+        this.properties = properties;
+        this.expectedLinks = properties.getExpectedLinks();
+        this.hits = meterRegistry.counter("redirect.snapshot.hits");
+
+        Gauge.builder("redirect.snapshot.links", this, s -> s.table == null ? 0 : s.table.size())
+                .register(meterRegistry);
+        Gauge.builder("redirect.snapshot.memory", this, s -> s.table == null ? 0 : s.table.sizeInBytes())
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("redirect.snapshot.load.duration", lastLoadMillis, AtomicLong::get)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return The link, or null if there is no snapshot yet or the code is not in it (which does not mean
+     * it does not exist: it may have been created since the last sync)
+     */
+    public CachedUrl get(String shortCode) {
+        MappedLinkTable current = table;
+
+        if (current == null) {
+            return null;
+        }
+
+        CachedUrl cachedUrl = current.get(shortCode);
+        if (cachedUrl != null) {
+            hits.increment();
+        }
+        return cachedUrl;
+    }
+
+    /**
+     * Drop a deleted or changed link; a changed one is picked up again by the next rebuild.
+     * Not synchronized with builds, which take minutes: invalidation threads must not wait for them.
+     */
+    public void remove(String shortCode) {
+        Set<String> pending = removedDuringBuild;
+        if (pending != null) {
+            pending.add(shortCode);
+        }
+
+        MappedLinkTable current = table;
+        if (current != null) {
+            // Only syncs, which need a table, drain it
+            removedSinceSync.add(shortCode);
+            current.remove(shortCode);
+        }
+    }
+
+    /**
+     * Full rebuild from the urls table. The first run, at startup, serves the last generation if there is one
+     * while it rebuilds: links deleted while the pod was down are still in it.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${redirect.snapshot.rebuild-interval:PT6H}")
+    public synchronized void rebuild() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        if (table == null) {
+            reopen();
+        }
+
+        Set<String> pending = ConcurrentHashMap.newKeySet();
+        removedDuringBuild = pending;
+        try {
+            build(pending);
+        } finally {
+            removedDuringBuild = null;
+        }
+    }
+
+    private void build(Set<String> pending) {
+        while (true) {
+            long startedAt = System.currentTimeMillis();
+            Path generation = newGeneration(startedAt);
+            MappedLinkTable built = MappedLinkTable.create(generation, expectedLinks);
+            long[] maxId = {0};
+            long count = streamInto(built, 0, 0, code -> false, maxId);
+
+            if (count < 0) {
+                // More links than the index was sized for: retry twice as large
+                log.info("Link snapshot outgrew {} slots, rebuilding larger", built.capacity());
+                expectedLinks = Math.max(expectedLinks, built.capacity());
+                built.close();
+                deleteGeneration(generation);
+                continue;
+            }
+
+            // The build read a database snapshot from before these removes
+            pending.forEach(built::remove);
+            built.checkpoint(maxId[0], true);
+            publish(built);
+
+            // Removes that saw the old table after the replay above
+            removedDuringBuild = null;
+            pending.forEach(built::remove);
+            lastLoadMillis.set(System.currentTimeMillis() - startedAt);
+
+            log.info("Link snapshot built with {} links ({} bytes) in {}ms",
+                    count, built.sizeInBytes(), lastLoadMillis.get());
+            return;
+        }
+    }
+
+    /**
+     * Add links created since the last build or sync.
+     */
+    @Scheduled(fixedDelayString = "${redirect.snapshot.sync-interval:PT5S}")
+    public synchronized void syncCreatedLinks() {
+        MappedLinkTable current = table;
+
+        if (!properties.isEnabled() || current == null) {
+            return;
+        }
+
+        // A sync's read may predate the delete behind a remove, so codes removed since the previous sync
+        // started, or while this one runs, are not added back; a later sync or the rebuild picks up changes
+        Set<String> removedBefore = removedSinceSync;
+        Set<String> removedDuring = ConcurrentHashMap.newKeySet();
+        removedSinceSync = removedDuring;
+        Predicate<String> removed = code -> removedBefore.contains(code) || removedDuring.contains(code);
+
+        long watermark = current.watermark();
+        long[] maxId = {watermark};
+        long count = streamInto(
+                current, watermark, Math.max(0, watermark - properties.getSyncOverlap()), removed, maxId);
+
+        if (count < 0) {
+            log.info("Link snapshot index full, rebuilding larger");
+            expectedLinks = Math.max(expectedLinks, current.capacity());
+            rebuild();
+            return;
+        }
+
+        if (count > 0) {
+            current.checkpoint(maxId[0], true);
+            log.debug("Link snapshot synced {} new links", count);
+        }
+    }
+
+    /**
+     * @return Links added, or -1 if the table filled up
+     */
+    private long streamInto(
+            MappedLinkTable target, long watermark, long afterId, Predicate<String> removed, long[] maxId) {
+        Long count = readOnlyTransaction.execute(status -> {
+            long[] added = {0};
+            boolean[] full = {false};
+
+            urlLookupRepository.forEachLinkAfter(afterId, properties.getFetchSize(), row -> {
+                // Rows re-read below the watermark are only added if missing, and not if an invalidation
+                // removed them
+                if (full[0] || (row.id() <= watermark && target.get(row.shortCode()) != null)) {
+                    return;
+                }
+                if (removed.test(row.shortCode())) {
+                    // Past the watermark all the same: the overlap of a later sync re-reads it if it still exists
+                    maxId[0] = Math.max(maxId[0], row.id());
+                    return;
+                }
+
+                if (target.put(row.shortCode(), RedirectUrls.toLocation(row.longUrl()), row.expiresAt())) {
+                    added[0]++;
+                } else if (MappedLinkTable.pack(row.shortCode()) != 0) {
+                    full[0] = true;
+                    return;
+                }
+
+                // Codes that cannot be packed (not base62) are skipped and left to Postgres
+                maxId[0] = Math.max(maxId[0], row.id());
+            });
+
+            return full[0] ? -1 : added[0];
+        });
+
+        return count == null ? 0 : count;
+    }
+
+    private void reopen() {
+        Path currentFile = properties.getDirectory().resolve(CURRENT_FILE);
+
+        if (!Files.isRegularFile(currentFile)) {
+            return;
+        }
+
+        try {
+            long startedAt = System.currentTimeMillis();
+            MappedLinkTable reopened = MappedLinkTable.open(
+                    properties.getDirectory().resolve(Files.readString(currentFile).trim()));
+
+            if (reopened == null) {
+                return;
+            }
+
+            table = reopened;
+            expectedLinks = Math.max(expectedLinks, (long) (reopened.capacity() * 0.75));
+            syncCreatedLinks();
+            lastLoadMillis.set(System.currentTimeMillis() - startedAt);
+
+            log.info("Link snapshot reopened from {} with {} links in {}ms, rebuilding",
+                    reopened.directory(), reopened.size(), lastLoadMillis.get());
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Could not reopen link snapshot, rebuilding", e);
+            table = null;
+        }
+    }
+
+    private void publish(MappedLinkTable built) {
+        MappedLinkTable previous = table;
+        table = built;
+
+        try {
+            Path directory = properties.getDirectory();
+            Path next = directory.resolve(CURRENT_FILE + ".tmp");
+            Files.writeString(next, built.directory().getFileName().toString());
+            Files.move(next, directory.resolve(CURRENT_FILE),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            if (previous != null) {
+                previous.close();
+            }
+
+            // Readers may still hold the old mapping; unlinking its files is safe while mapped
+            try (Stream<Path> generations = Files.list(directory)) {
+                generations
+                        .filter(path -> path.getFileName().toString().startsWith(GENERATION_PREFIX))
+                        .filter(path -> !path.equals(built.directory()))
+                        .forEach(this::deleteGeneration);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to record link snapshot generation {}", built.directory(), e);
+        }
+    }
+
+    private Path newGeneration(long startedAt) {
+        // The generation just reopened may carry the same timestamp
+        long name = startedAt;
+        while (Files.exists(properties.getDirectory().resolve(GENERATION_PREFIX + name))) {
+            name++;
+        }
+        return properties.getDirectory().resolve(GENERATION_PREFIX + name);
+    }
+
+    private void deleteGeneration(Path generation) {
+        try (Stream<Path> files = Files.walk(generation)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to delete link snapshot generation {}", generation, e);
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package org.js.redirect.snapshot;
+
+import org.js.redirect.cache.CachedUrl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Off-heap code-to-URL table in two memory-mapped files, readable without locks while a single writer appends.
+ * <p>
+ * {@code index.bin} is a header followed by an open-addressing (linear probing) table of 16-byte slots:
+ * the code packed into a long by {@link #pack(String)}, and a reference to its record in {@code data.bin}.
+ * Records are {@code [expiresAtEpochSecond][length][UTF-8 url]}, appended in 1GB segments; a replaced or
+ * removed link leaves its old record behind until the next rebuild.
+ * <p>
+ * Slots are published with release/acquire semantics (key last), so a reader that sees a key also sees
+ * its record. The index mapping is limited to 2GB, i.e. {@link #MAX_CAPACITY} slots.
+ */
+public class MappedLinkTable {
+
+    public static final int MAX_CAPACITY = 1 << 26;
+
+    private static final String INDEX_FILE = "index.bin";
+    private static final String DATA_FILE = "data.bin";
+
+    private static final long MAGIC = 0x4c494e4b534e4150L; // "LINKSNAP"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 8;
+    private static final int CAPACITY_OFFSET = 16;
+    private static final int SIZE_OFFSET = 24;
+    private static final int DATA_END_OFFSET = 32;
+    private static final int WATERMARK_OFFSET = 40;
+    private static final int COMPLETE_OFFSET = 48;
+
+    private static final int SLOT_BYTES = 16;
+    private static final long REMOVED = -1;
+    private static final double MAX_LOAD_FACTOR = 0.75;
+
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_BYTES = 1L << SEGMENT_SHIFT;
+    private static final int RECORD_HEADER_BYTES = Long.BYTES + Integer.BYTES;
+    private static final long NO_EXPIRY = Long.MIN_VALUE;
+
+    private static final String BASE62 = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+    private static final int MAX_PACKED_LENGTH = 10;
+
+    private static final VarHandle LONGS =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final Path directory;
+    private final FileChannel dataChannel;
+    private final MappedByteBuffer index;
+    private final long capacity;
+    private final long mask;
+
+    // Grown by the writer only; readers take whichever array they see
+    private volatile MappedByteBuffer[] segments;
+
+    private MappedLinkTable(Path directory, FileChannel dataChannel, MappedByteBuffer index, MappedByteBuffer[] segments) {
+        this.directory = directory;
+        this.dataChannel = dataChannel;
+        this.index = index;
+        this.capacity = (long) LONGS.get(index, CAPACITY_OFFSET);
+        this.mask = capacity - 1;
+        this.segments = segments;
+    }
+
+    /**
+     * Create an empty table in the directory, sized for the expected number of links.
+     */
+    public static MappedLinkTable create(Path directory, long expectedLinks) {
+        long capacity = Long.highestOneBit(Math.max(16, (long) (expectedLinks / MAX_LOAD_FACTOR)) - 1) << 1;
+
+        if (capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Snapshot index limited to " + MAX_CAPACITY + " slots, "
+                    + expectedLinks + " links need " + capacity);
+        }
+
+        try {
+            Files.createDirectories(directory);
+
+            MappedByteBuffer index;
+            try (FileChannel indexChannel = FileChannel.open(directory.resolve(INDEX_FILE),
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + capacity * SLOT_BYTES);
+            }
+
+            LONGS.set(index, MAGIC_OFFSET, MAGIC);
+            LONGS.set(index, VERSION_OFFSET, (long) VERSION);
+            LONGS.set(index, CAPACITY_OFFSET, capacity);
+
+            FileChannel dataChannel = FileChannel.open(directory.resolve(DATA_FILE),
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            return new MappedLinkTable(directory, dataChannel, index, new MappedByteBuffer[0]);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create link snapshot in " + directory, e);
+        }
+    }
+
+    /**
+     * Map a table left by a previous run.
+     *
+     * @return The table, or null if the directory holds no complete table of this version
+     */
+    public static MappedLinkTable open(Path directory) {
+        Path indexFile = directory.resolve(INDEX_FILE);
+
+        if (!Files.isRegularFile(indexFile) || !Files.isRegularFile(directory.resolve(DATA_FILE))) {
+            return null;
+        }
+
+        try {
+            MappedByteBuffer index;
+            try (FileChannel indexChannel = FileChannel.open(indexFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                if (indexChannel.size() < HEADER_BYTES) {
+                    return null;
+                }
+                index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, indexChannel.size());
+            }
+
+            long capacity = (long) LONGS.get(index, CAPACITY_OFFSET);
+            boolean valid = (long) LONGS.get(index, MAGIC_OFFSET) == MAGIC
+                    && (long) LONGS.get(index, VERSION_OFFSET) == VERSION
+                    && (long) LONGS.get(index, COMPLETE_OFFSET) == 1
+                    && Long.bitCount(capacity) == 1
+                    && index.capacity() == HEADER_BYTES + capacity * SLOT_BYTES;
+
+            if (!valid) {
+                return null;
+            }
+
+            FileChannel dataChannel = FileChannel.open(directory.resolve(DATA_FILE),
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long dataEnd = (long) LONGS.get(index, DATA_END_OFFSET);
+            MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((dataEnd + SEGMENT_BYTES - 1) >>> SEGMENT_SHIFT)];
+
+            for (int i = 0; i < segments.length; i++) {
+                segments[i] = dataChannel.map(FileChannel.MapMode.READ_WRITE, i * SEGMENT_BYTES, SEGMENT_BYTES);
+            }
+            return new MappedLinkTable(directory, dataChannel, index, segments);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open link snapshot in " + directory, e);
+        }
+    }
+
+    /**
+     * Pack a base62 code of up to 10 characters into a positive long; a leading 1 keeps lengths apart.
+     *
+     * @return The packed code, or 0 if the code cannot be packed
+     */
+    public static long pack(String shortCode) {
+        int length = shortCode.length();
+
+        if (length == 0 || length > MAX_PACKED_LENGTH) {
+            return 0;
+        }
+
+        long packed = 1;
+        for (int i = 0; i < length; i++) {
+            int digit = BASE62.indexOf(shortCode.charAt(i));
+            if (digit < 0) {
+                return 0;
+            }
+            packed = packed * BASE62.length() + digit;
+        }
+        return packed;
+    }
+
+    /**
+     * @return The link, or null if the code is not in the table
+     */
+    public CachedUrl get(String shortCode) {
+        long key = pack(shortCode);
+
+        if (key == 0) {
+            return null;
+        }
+
+        for (long slot = slotOf(key), probes = 0; probes < capacity; slot = (slot + 1) & mask, probes++) {
+            long slotKey = (long) LONGS.getAcquire(index, keyOffset(slot));
+
+            if (slotKey == 0) {
+                return null;
+            }
+            if (slotKey == key) {
+                long ref = (long) LONGS.getAcquire(index, keyOffset(slot) + Long.BYTES);
+                return ref == REMOVED ? null : readRecord(ref - 1);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Add or replace a link. Single writer only.
+     *
+     * @return false if the code cannot be packed or the table is full
+     */
+    public synchronized boolean put(String shortCode, String longUrl, LocalDateTime expiresAt) {
+        long key = pack(shortCode);
+
+        if (key == 0) {
+            return false;
+        }
+
+        long slot = findSlot(key);
+        boolean added = (long) LONGS.get(index, keyOffset(slot)) == 0;
+
+        if (added && size() + 1 > capacity * MAX_LOAD_FACTOR) {
+            return false;
+        }
+
+        long ref = appendRecord(longUrl, expiresAt) + 1;
+        LONGS.setRelease(index, keyOffset(slot) + Long.BYTES, ref);
+
+        if (added) {
+            LONGS.setRelease(index, keyOffset(slot), key);
+            LONGS.setRelease(index, SIZE_OFFSET, size() + 1);
+        }
+        return true;
+    }
+
+    /**
+     * Mark a link removed; its slot stays taken so probing continues past it. Single writer only.
+     */
+    public synchronized void remove(String shortCode) {
+        long key = pack(shortCode);
+
+        if (key == 0) {
+            return;
+        }
+
+        long slot = findSlot(key);
+        if ((long) LONGS.get(index, keyOffset(slot)) == key) {
+            LONGS.setRelease(index, keyOffset(slot) + Long.BYTES, REMOVED);
+        }
+    }
+
+    /**
+     * Flush both files and record the id up to which the table is current.
+     *
+     * @param complete Whether the table holds a full build and may be reopened by a later run
+     */
+    public synchronized void checkpoint(long watermark, boolean complete) {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+
+        LONGS.setRelease(index, WATERMARK_OFFSET, watermark);
+        LONGS.setRelease(index, COMPLETE_OFFSET, complete ? 1L : 0L);
+        index.force();
+    }
+
+    public long watermark() {
+        return (long) LONGS.getAcquire(index, WATERMARK_OFFSET);
+    }
+
+    /**
+     * @return Occupied slots, including removed links
+     */
+    public long size() {
+        return (long) LONGS.getAcquire(index, SIZE_OFFSET);
+    }
+
+    public long capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return Bytes of both files in use, i.e. the resident size once fully paged in
+     */
+    public long sizeInBytes() {
+        return HEADER_BYTES + capacity * SLOT_BYTES + (long) LONGS.getAcquire(index, DATA_END_OFFSET);
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    /**
+     * Close the data file; existing mappings stay readable until they are garbage collected.
+     */
+    public void close() {
+        try {
+            dataChannel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long findSlot(long key) {
+        long slot = slotOf(key);
+
+        while (true) {
+            long slotKey = (long) LONGS.getAcquire(index, keyOffset(slot));
+            if (slotKey == 0 || slotKey == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private long slotOf(long key) {
+        // SplitMix64 finalizer: packed codes are sequential in their last character
+        long hash = (key ^ (key >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return (hash ^ (hash >>> 31)) & mask;
+    }
+
+    private static int keyOffset(long slot) {
+        return (int) (HEADER_BYTES + slot * SLOT_BYTES);
+    }
+
+    private long appendRecord(String longUrl, LocalDateTime expiresAt) {
+        byte[] url = longUrl.getBytes(StandardCharsets.UTF_8);
+        int recordBytes = RECORD_HEADER_BYTES + url.length;
+        long offset = (long) LONGS.get(index, DATA_END_OFFSET);
+
+        // Records never straddle two segments
+        if ((offset & (SEGMENT_BYTES - 1)) + recordBytes > SEGMENT_BYTES) {
+            offset = ((offset >>> SEGMENT_SHIFT) + 1) << SEGMENT_SHIFT;
+        }
+
+        MappedByteBuffer segment = segment((int) (offset >>> SEGMENT_SHIFT));
+        int position = (int) (offset & (SEGMENT_BYTES - 1));
+
+        segment.putLong(position, expiresAt == null ? NO_EXPIRY : expiresAt.toEpochSecond(ZoneOffset.UTC));
+        segment.putInt(position + Long.BYTES, url.length);
+        segment.put(position + RECORD_HEADER_BYTES, url);
+
+        // 8-byte aligned so the slot reference and header stay on aligned longs
+        LONGS.setRelease(index, DATA_END_OFFSET, (offset + recordBytes + 7) & ~7L);
+        return offset;
+    }
+
+    private CachedUrl readRecord(long offset) {
+        MappedByteBuffer segment = segments[(int) (offset >>> SEGMENT_SHIFT)];
+        int position = (int) (offset & (SEGMENT_BYTES - 1));
+
+        long expiry = segment.getLong(position);
+        byte[] url = new byte[segment.getInt(position + Long.BYTES)];
+        segment.get(position + RECORD_HEADER_BYTES, url);
+
+        LocalDateTime expiresAt = expiry == NO_EXPIRY ? null : LocalDateTime.ofEpochSecond(expiry, 0, ZoneOffset.UTC);
+        return new CachedUrl(new String(url, StandardCharsets.UTF_8), expiresAt);
+    }
+
+    private MappedByteBuffer segment(int number) {
+        MappedByteBuffer[] current = segments;
+
+        if (number < current.length) {
+            return current[number];
+        }
+
+        try {
+            MappedByteBuffer[] grown = Arrays.copyOf(current, number + 1);
+            for (int i = current.length; i <= number; i++) {
+                grown[i] = dataChannel.map(FileChannel.MapMode.READ_WRITE, i * SEGMENT_BYTES, SEGMENT_BYTES);
+            }
+            segments = grown;
+            return grown[number];
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to grow link snapshot in " + directory, e);
+        }
+    }
+}
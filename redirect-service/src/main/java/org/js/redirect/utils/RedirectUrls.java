@@ -0,0 +1,25 @@
+package org.js.redirect.utils;
+
+public final class RedirectUrls {
+
+    private static final String HTTP = "http://";
+    private static final String HTTPS = "https://";
+
+    private RedirectUrls() {
+    }
+
+    /**
+     * Turn a stored long URL into a ready-to-send Location value by adding the protocol if missing.
+     * Applied once when a URL enters a cache tier, so redirects only copy the cached value. url-shortener
+     * now stores URLs in canonical form (always with a protocol), so this only changes older links.
+     *
+     * @param longUrl The long URL as stored
+     * @return The same instance if it already has a protocol
+     */
+    public static String toLocation(String longUrl) {
+        if (longUrl.startsWith(HTTPS) || longUrl.startsWith(HTTP)) {
+            return longUrl;
+        }
+        return HTTPS + longUrl;
+    }
+}
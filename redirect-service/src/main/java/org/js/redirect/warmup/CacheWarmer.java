@@ -0,0 +1,169 @@
+package org.js.redirect.warmup;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.js.redirect.cache.CachedUrl;
+import org.js.redirect.cache.LocalUrlCache;
+import org.js.redirect.cache.RedisUrlEntry;
+import org.js.redirect.cache.UrlCacheStore;
+import org.js.redirect.config.WarmupProperties;
+import org.js.redirect.utils.RedirectUrls;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Preloads the cluster's hottest short codes into the local cache when the pod starts,
+ * so a freshly scheduled pod does not take live traffic with a cold L1 tier.
+ * Readiness is held back through {@link CacheWarmupHealthIndicator} until warm-up finishes,
+ * runs out of time or memory budget, or fails.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class CacheWarmer {
+
+    public enum State { PENDING, RUNNING, COMPLETED, TIMED_OUT, BUDGET_EXHAUSTED, FAILED, DISABLED }
+
+    private final UrlCacheStore urlCacheStore;
+    private final LocalUrlCache localUrlCache;
+    private final HotSetStore hotSetStore;
+    private final WarmupProperties properties;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.PENDING);
+    private final AtomicLong target = new AtomicLong();
+    private final AtomicLong loaded = new AtomicLong();
+    private final AtomicLong loadedBytes = new AtomicLong();
+    private final AtomicLong elapsedMillis = new AtomicLong();
+
+    /**
+     * Runs after the context is started but before the application is marked ready,
+     * on its own thread so the probes can report progress meanwhile.
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public void onApplicationStarted() {
+        if (!properties.isEnabled()) {
+            state.set(State.DISABLED);
+            return;
+        }
+
+        Thread thread = new Thread(this::warmUp, "cache-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void warmUp() {
+        state.set(State.RUNNING);
+        long startedAt = System.nanoTime();
+        long deadline = startedAt + properties.getMaxDuration().toNanos();
+
+        try {
+            List<String> codes = hotSetStore.topCodes(properties.getHotSetSize());
+            target.set(codes.size());
+
+            State outcome = State.COMPLETED;
+            for (int from = 0; from < codes.size(); from += properties.getBatchSize()) {
+                if (System.nanoTime() > deadline) {
+                    outcome = State.TIMED_OUT;
+                    break;
+                }
+
+                if (!loadBatch(codes.subList(from, Math.min(from + properties.getBatchSize(), codes.size())))) {
+                    outcome = State.BUDGET_EXHAUSTED;
+                    break;
+                }
+
+                elapsedMillis.set(Duration.ofNanos(System.nanoTime() - startedAt).toMillis());
+            }
+
+            state.set(outcome);
+        } catch (RuntimeException e) {
+            // A cold cache is slower, not broken: never keep the pod out of rotation over it
+            log.warn("Cache warm-up failed, serving with a cold local cache", e);
+            state.set(State.FAILED);
+        } finally {
+            elapsedMillis.set(Duration.ofNanos(System.nanoTime() - startedAt).toMillis());
+        }
+
+        log.info("Cache warm-up {}: {}/{} entries, {} bytes in {}ms",
+                state.get(), loaded.get(), target.get(), loadedBytes.get(), elapsedMillis.get());
+    }
+
+    /**
+     * @return false once the memory budget is used up
+     */
+    private boolean loadBatch(List<String> codes) {
+        List<RedisUrlEntry> entries = urlCacheStore.getAll(codes);
+
+        for (int i = 0; i < codes.size(); i++) {
+            RedisUrlEntry entry = entries.get(i);
+            if (entry == null) {
+                continue;
+            }
+
+            CachedUrl cachedUrl = new CachedUrl(RedirectUrls.toLocation(entry.longUrl()), entry.expiresAt());
+            long bytes = LocalUrlCache.estimateBytes(codes.get(i), cachedUrl);
+
+            if (loadedBytes.get() + bytes > properties.getMaxBytes()) {
+                return false;
+            }
+
+            localUrlCache.put(codes.get(i), cachedUrl);
+            loadedBytes.addAndGet(bytes);
+            loaded.incrementAndGet();
+        }
+
+        return true;
+    }
+
+    /**
+     * Contribute this pod's hottest local entries to the shared hot set.
+     */
+    @Scheduled(initialDelayString = "${redirect.warmup.publish-interval:PT1M}",
+            fixedDelayString = "${redirect.warmup.publish-interval:PT1M}")
+    public void publishHotSet() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        try {
+            hotSetStore.publish(localUrlCache.hottest(properties.getHotSetSize()));
+        } catch (RuntimeException e) {
+            log.warn("Failed to publish hot set", e);
+        }
+    }
+
+    /**
+     * @return true while warm-up should hold back readiness
+     */
+    public boolean isWarmingUp() {
+        State current = state.get();
+        return current == State.PENDING || current == State.RUNNING;
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    public long getTarget() {
+        return target.get();
+    }
+
+    public long getLoaded() {
+        return loaded.get();
+    }
+
+    public long getLoadedBytes() {
+        return loadedBytes.get();
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis.get();
+    }
+}
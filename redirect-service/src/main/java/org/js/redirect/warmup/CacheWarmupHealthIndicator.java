@@ -0,0 +1,30 @@
+package org.js.redirect.warmup;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports warm-up progress as the {@code cacheWarmup} health component.
+ * Included in the readiness group, so the pod only receives traffic once warm-up is over.
+ */
+@Component
+@RequiredArgsConstructor
+public class CacheWarmupHealthIndicator implements HealthIndicator {
+
+    private final CacheWarmer cacheWarmer;
+
+    @Override
+    public Health health() {
+        Health.Builder builder = cacheWarmer.isWarmingUp() ? Health.outOfService() : Health.up();
+
+        return builder
+                .withDetail("state", cacheWarmer.getState())
+                .withDetail("loaded", cacheWarmer.getLoaded())
+                .withDetail("target", cacheWarmer.getTarget())
+                .withDetail("loadedBytes", cacheWarmer.getLoadedBytes())
+                .withDetail("elapsedMillis", cacheWarmer.getElapsedMillis())
+                .build();
+    }
+}
@@ -0,0 +1,73 @@
+package org.js.redirect.warmup;
+
+import lombok.RequiredArgsConstructor;
+import org.js.redirect.config.WarmupProperties;
+import org.springframework.data.redis.connection.zset.Aggregate;
+import org.springframework.data.redis.connection.zset.Weights;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Cluster-wide hot set of short codes, persisted in Redis as a decaying sorted set.
+ * Pods add their hottest local entries; new pods read the top of the set to warm up.
+ * The set is decayed once per publish interval by whichever pod publishes first, whatever the replica count.
+ */
+@Component
+@RequiredArgsConstructor
+public class HotSetStore {
+
+    public static final String HOT_SET_KEY = "hotset:urls";
+    public static final String DECAY_KEY = "hotset:urls:decayed";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final WarmupProperties properties;
+
+    /**
+     * @param hottestCodes Codes hottest first; earlier codes get a higher score
+     */
+    public void publish(List<String> hottestCodes) {
+        if (hottestCodes.isEmpty()) {
+            return;
+        }
+
+        // Decay existing scores so codes that cooled off drop out over time; the marker key lets only
+        // one pod per interval do it
+        if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(DECAY_KEY, "1", properties.getPublishInterval()))) {
+            redisTemplate.opsForZSet().unionAndStore(
+                    HOT_SET_KEY, List.of(), HOT_SET_KEY, Aggregate.SUM, Weights.of(properties.getDecay()));
+        }
+
+        // All increments and the trim in one round trip
+        redisTemplate.executePipelined(new SessionCallback<>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> stringOperations = (RedisOperations<String, String>) operations;
+
+                int size = hottestCodes.size();
+                for (int rank = 0; rank < size; rank++) {
+                    stringOperations.opsForZSet().incrementScore(HOT_SET_KEY, hottestCodes.get(rank), size - rank);
+                }
+
+                // Keep only the top entries
+                stringOperations.opsForZSet().removeRange(HOT_SET_KEY, 0, -properties.getStoredHotSetSize() - 1L);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * @param limit Maximum number of codes to return
+     * @return The hottest codes across the cluster, hottest first
+     */
+    public List<String> topCodes(int limit) {
+        Set<String> codes = redisTemplate.opsForZSet().reverseRange(HOT_SET_KEY, 0, limit - 1L);
+        return codes == null ? List.of() : new ArrayList<>(codes);
+    }
+}
@@ -0,0 +1,32 @@
+package org.js.redirect;
+
+import io.r2dbc.spi.ConnectionFactory;
+import org.js.redirect.controller.ReactiveRedirectController;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Boots the whole application on the reactive stack, which needs JDBC alongside R2DBC.
+ */
+@SpringBootTest(properties = "spring.main.web-application-type=reactive")
+class ReactiveRedirectApplicationTests {
+
+	@Autowired
+	private ApplicationContext context;
+
+	@Test
+	void contextLoads() {
+		assertEquals(1, context.getBeansOfType(ReactiveRedirectController.class).size());
+		assertEquals(1, context.getBeansOfType(ConnectionFactory.class).size());
+		assertEquals(1, context.getBeansOfType(DataSource.class).size());
+		assertEquals(1, context.getBeansOfType(JdbcTemplate.class).size());
+	}
+
+}
@@ -0,0 +1,59 @@
+package org.js.redirect.cache;
+
+import org.js.redirect.config.RedisLayoutProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class HashBucketUrlCacheStoreTests {
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private RedisOperations<String, String> operations;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    private HashBucketUrlCacheStore store;
+
+    @BeforeEach
+    void setUp() {
+        RedisLayoutProperties properties = new RedisLayoutProperties();
+        store = new HashBucketUrlCacheStore(redisTemplate, new UrlValueCodec(properties), properties);
+    }
+
+    @Test
+    void test_removeExpired_deletesOnlyExpiredEntries() {
+        long now = System.currentTimeMillis();
+        String expired = new RedisUrlEntry("https://example.com/old", null, now - 1_000, 5).encode();
+        String live = new RedisUrlEntry("https://example.com/new", null, now + 60_000, 5).encode();
+
+        when(operations.opsForHash()).thenReturn(hashOperations);
+        when(redisTemplate.executePipelined(any(SessionCallback.class)))
+                .thenReturn(List.of(Map.of("old123", expired, "new123", live), Map.of()))
+                .thenAnswer(invocation -> invocation.<SessionCallback<?>>getArgument(0).execute(operations));
+
+        assertEquals(1, store.removeExpired(0, 2));
+
+        verify(hashOperations).delete("urlb:0", "old123");
+        verifyNoMoreInteractions(hashOperations);
+    }
+}
@@ -0,0 +1,132 @@
+package org.js.redirect.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.js.redirect.config.LatencyBudgetProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RedisLatencyGuardTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch releaseRedis = new CountDownLatch(1);
+    private RedisLatencyGuard guard;
+
+    @BeforeEach
+    void setUp() {
+        LatencyBudgetProperties properties = new LatencyBudgetProperties();
+        properties.setMaxHedgeDelay(Duration.ofMillis(20));
+        properties.setFailureThreshold(2);
+        properties.setOpenDuration(Duration.ofMinutes(1));
+        guard = new RedisLatencyGuard(properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseRedis.countDown();
+        guard.shutdown();
+    }
+
+    @Test
+    void test_execute_fastRedisAnswersWithoutFallback() {
+        AtomicInteger fallbacks = new AtomicInteger();
+
+        String result = guard.execute(() -> "redis", () -> "db" + fallbacks.incrementAndGet());
+
+        assertEquals("redis", result);
+        assertEquals(0, fallbacks.get());
+    }
+
+    @Test
+    void test_execute_redisMissIsReturnedAsNull() {
+        assertNull(guard.execute(() -> null, () -> "db"));
+    }
+
+    @Test
+    void test_execute_slowRedisHedgedToFallback() {
+        String result = guard.execute(this::stuckRedis, () -> "db");
+
+        assertEquals("db", result);
+        assertEquals(1.0, meterRegistry.counter("redirect.redis.hedges", "winner", "fallback").count());
+    }
+
+    @Test
+    void test_execute_breakerOpensAndBypassesRedis() {
+        AtomicInteger redisCalls = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            guard.execute(() -> {
+                redisCalls.incrementAndGet();
+                throw new RedisConnectionFailureException("down");
+            }, () -> "db");
+        }
+
+        String result = guard.execute(() -> "redis" + redisCalls.incrementAndGet(), () -> "db");
+
+        assertEquals("db", result);
+        assertEquals(2, redisCalls.get());
+        assertEquals(RedisCircuitBreaker.State.OPEN, guard.getBreakerState());
+        assertEquals(1.0, meterRegistry.counter("redirect.redis.bypasses").count());
+    }
+
+    @Test
+    void test_execute_rejectedProbeReopensBreaker() {
+        LatencyBudgetProperties properties = new LatencyBudgetProperties();
+        properties.setMaxHedgeDelay(Duration.ofMillis(20));
+        properties.setRedisThreads(1);
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(1, Duration.ZERO);
+        RedisLatencyGuard singleThreadGuard = new RedisLatencyGuard(properties, meterRegistry, breaker);
+
+        try {
+            // The only Redis thread is stuck, then the breaker opens and its probe is due at once
+            singleThreadGuard.execute(this::stuckRedis, () -> "db");
+            breaker.recordFailure();
+
+            assertEquals("db", singleThreadGuard.execute(() -> "redis", () -> "db"));
+            // Not left half-open: the next due probe is let through again
+            assertEquals(RedisCircuitBreaker.State.OPEN, breaker.getState());
+            assertTrue(breaker.allowRequest());
+        } finally {
+            singleThreadGuard.shutdown();
+        }
+    }
+
+    @Test
+    void test_submitWrite_runsOffCallerAndDropsWhenFull() {
+        LatencyBudgetProperties properties = new LatencyBudgetProperties();
+        properties.setWriteThreads(1);
+        properties.setWriteQueueCapacity(1);
+        RedisLatencyGuard writeGuard = new RedisLatencyGuard(properties, meterRegistry);
+
+        try {
+            // A stuck write holds the only thread, the next one queues, the third is dropped
+            assertTrue(writeGuard.submitWrite(this::stuckRedis));
+            assertTrue(writeGuard.submitWrite(() -> { }));
+            assertFalse(writeGuard.submitWrite(() -> { }));
+
+            assertEquals(1.0, meterRegistry.counter("redirect.redis.writes.dropped").count());
+        } finally {
+            writeGuard.shutdown();
+        }
+    }
+
+    private String stuckRedis() {
+        try {
+            releaseRedis.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "redis";
+    }
+}
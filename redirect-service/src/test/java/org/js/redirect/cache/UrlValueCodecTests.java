@@ -0,0 +1,47 @@
+package org.js.redirect.cache;
+
+import org.js.redirect.config.RedisLayoutProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class UrlValueCodecTests {
+
+    private static final RedisUrlEntry LONG_ENTRY = new RedisUrlEntry(
+            "https://example.com/campaign?utm_source=newsletter&utm_medium=email&utm_campaign=spring_sale"
+                    + "&utm_content=header_banner&utm_term=shoes&utm_source=newsletter&utm_medium=email"
+                    + "&utm_campaign=spring_sale&utm_content=footer_banner&utm_term=boots",
+            LocalDateTime.of(2030, 1, 1, 0, 0),
+            1_700_000_000_000L,
+            12);
+
+    @Test
+    void test_encode_compressesLongEntriesAndRoundTrips() {
+        RedisLayoutProperties properties = new RedisLayoutProperties();
+        properties.setCompressionEnabled(true);
+        properties.setCompressionThreshold(64);
+        UrlValueCodec codec = new UrlValueCodec(properties);
+
+        String encoded = codec.encode(LONG_ENTRY);
+
+        assertTrue(encoded.startsWith("z|"));
+        assertTrue(encoded.length() < LONG_ENTRY.encode().length());
+        assertEquals(LONG_ENTRY, codec.decode(encoded));
+    }
+
+    @Test
+    void test_decode_readsCompressedValuesWithCompressionDisabled() {
+        RedisLayoutProperties enabled = new RedisLayoutProperties();
+        enabled.setCompressionEnabled(true);
+        enabled.setCompressionThreshold(64);
+        String encoded = new UrlValueCodec(enabled).encode(LONG_ENTRY);
+
+        UrlValueCodec disabled = new UrlValueCodec(new RedisLayoutProperties());
+
+        assertEquals(LONG_ENTRY, disabled.decode(encoded));
+        assertEquals(LONG_ENTRY.encode(), disabled.encode(LONG_ENTRY));
+    }
+}
@@ -0,0 +1,34 @@
+package org.js.redirect.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+public class ReactiveStackAutoConfigurationFilterTests {
+
+    private static final String[] CANDIDATES = {
+            "org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration",
+            "org.springframework.boot.actuate.autoconfigure.r2dbc.ConnectionFactoryHealthContributorAutoConfiguration",
+            "org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration",
+            null
+    };
+
+    @Test
+    void test_match_servletStackSkipsR2dbc() {
+        assertArrayEquals(new boolean[]{false, false, true, true}, filter(new MockEnvironment()).match(CANDIDATES, null));
+    }
+
+    @Test
+    void test_match_reactiveStackKeepsR2dbc() {
+        MockEnvironment environment = new MockEnvironment().withProperty("spring.main.web-application-type", "reactive");
+
+        assertArrayEquals(new boolean[]{true, true, true, true}, filter(environment).match(CANDIDATES, null));
+    }
+
+    private static ReactiveStackAutoConfigurationFilter filter(MockEnvironment environment) {
+        ReactiveStackAutoConfigurationFilter filter = new ReactiveStackAutoConfigurationFilter();
+        filter.setEnvironment(environment);
+        return filter;
+    }
+}
@@ -0,0 +1,80 @@
+package org.js.redirect.controller;
+
+import org.js.redirect.config.RedirectHttpProperties;
+import org.js.redirect.service.ReactiveRedirectService;
+import org.js.redirect.service.model.ResolveResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+import static org.mockito.Mockito.when;
+
+@WebFluxTest(controllers = ReactiveRedirectController.class)
+@Import(RedirectCachePolicy.class)
+@EnableConfigurationProperties(RedirectHttpProperties.class)
+public class ReactiveRedirectControllerTests {
+
+    @MockitoBean
+    private ReactiveRedirectService redirectService;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    private final String validShortCode = "123abc";
+
+    @Test
+    public void test_redirect_validShortCodeReturns301() {
+        final String longUrl = "https://google.com";
+
+        when(redirectService.resolve(validShortCode))
+                .thenReturn(Mono.just(ResolveResult.found(longUrl, LocalDateTime.now().plusDays(365))));
+
+        webTestClient.get().uri("/" + validShortCode)
+                .exchange()
+                .expectStatus().isEqualTo(301)
+                .expectHeader().valueEquals("Location", longUrl)
+                .expectHeader().exists("Cache-Control");
+    }
+
+    @Test
+    void test_redirect_shortLivedLinkReturns302() {
+        when(redirectService.resolve(validShortCode))
+                .thenReturn(Mono.just(ResolveResult.found("https://google.com", LocalDateTime.now().plusDays(1))));
+
+        webTestClient.get().uri("/" + validShortCode)
+                .exchange()
+                .expectStatus().isFound()
+                .expectHeader().exists("Expires")
+                // A day left, capped at max-age
+                .expectHeader().valueEquals("Cache-Control", "public, max-age=3600");
+    }
+
+    @Test
+    void test_redirect_notFoundReturns404() {
+        when(redirectService.resolve(validShortCode))
+                .thenReturn(Mono.just(ResolveResult.NOT_FOUND));
+
+        webTestClient.get().uri("/" + validShortCode)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody().jsonPath("$.message").isEqualTo("No URL found");
+    }
+
+    @Test
+    void test_redirect_expiredReturns410() {
+        when(redirectService.resolve(validShortCode))
+                .thenReturn(Mono.just(ResolveResult.EXPIRED));
+
+        webTestClient.get().uri("/" + validShortCode)
+                .exchange()
+                .expectStatus().isEqualTo(410)
+                .expectBody().jsonPath("$.message").isEqualTo("URL Expired");
+    }
+}
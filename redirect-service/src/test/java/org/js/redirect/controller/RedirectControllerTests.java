@@ -1,22 +1,35 @@
 package org.js.redirect.controller;
 
-import org.js.redirect.exception.model.UrlExpiredException;
-import org.js.redirect.exception.model.UrlNotFoundException;
+import org.js.redirect.config.RedirectHttpProperties;
 import org.js.redirect.service.RedirectService;
+import org.js.redirect.service.model.ResolveResult;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = RedirectController.class)
+@Import(RedirectCachePolicy.class)
+@EnableConfigurationProperties(RedirectHttpProperties.class)
 public class RedirectControllerTests {
 
     @MockitoBean
@@ -31,34 +44,95 @@ public class RedirectControllerTests {
     public void test_redirect_validShortCodeReturns301() throws Exception {
         final String longUrl = "https://google.com";
 
-        when(redirectService.getLongUrl(validShortCode))
-                .thenReturn(longUrl);
+        when(redirectService.resolve(validShortCode))
+                .thenReturn(ResolveResult.found(longUrl, LocalDateTime.now().plusDays(365)));
 
         mockMvc.perform(get("/" + validShortCode))
                 .andExpect(status().isMovedPermanently())
                 .andExpect(header().string("Location", longUrl))
                 .andExpect(header().exists("Cache-Control"));
 
-        verify(redirectService).getLongUrl(validShortCode);
+        verify(redirectService).resolve(validShortCode);
+    }
+
+    @Test
+    void test_redirect_neverExpiringLinkIsTemporaryAndCachedForMaxAge() throws Exception {
+        when(redirectService.resolve(validShortCode))
+                .thenReturn(ResolveResult.found("https://google.com"));
+
+        // It may still be deleted, so browsers must not keep it forever
+        mockMvc.perform(get("/" + validShortCode))
+                .andExpect(status().isFound())
+                .andExpect(header().string("Cache-Control", "public, max-age=3600"))
+                .andExpect(header().exists("Expires"))
+                .andExpect(header().doesNotExist("Vary"));
+    }
+
+    @Test
+    void test_redirect_shortLivedLinkIsTemporaryAndCappedAtExpiry() throws Exception {
+        when(redirectService.resolve(validShortCode))
+                .thenReturn(ResolveResult.found("https://google.com", LocalDateTime.now().plusMinutes(10)));
+
+        mockMvc.perform(get("/" + validShortCode))
+                .andExpect(status().isFound())
+                .andExpect(header().string("Location", "https://google.com"))
+                .andExpect(header().string("Cache-Control", matchesPattern(
+                        "public, max-age=(59[0-9]|600)")));
     }
 
     @Test
     void test_redirect_notFoundReturns404() throws Exception {
-        when(redirectService.getLongUrl(validShortCode))
-                .thenThrow(new UrlNotFoundException());
+        when(redirectService.resolve(validShortCode))
+                .thenReturn(ResolveResult.NOT_FOUND);
 
         mockMvc.perform(get("/" + validShortCode))
                 .andExpect(status().isNotFound())
-                .andExpect(jsonPath("$.message").exists());
+                .andExpect(jsonPath("$.message").value("No URL found"));
     }
 
     @Test
     void redirect_expired_returns410() throws Exception {
-        when(redirectService.getLongUrl(validShortCode))
-                .thenThrow(new UrlExpiredException());
+        when(redirectService.resolve(validShortCode))
+                .thenReturn(ResolveResult.EXPIRED);
 
         mockMvc.perform(get("/" + validShortCode))
                 .andExpect(status().isGone())
-                .andExpect(jsonPath("$.message").exists());
+                .andExpect(jsonPath("$.message").value("URL Expired"));
+    }
+
+    @Test
+    void test_resolveAll_returnsStatusPerCode() throws Exception {
+        Map<String, ResolveResult> results = new LinkedHashMap<>();
+        results.put(validShortCode, ResolveResult.found("https://google.com"));
+        results.put("gone12", ResolveResult.EXPIRED);
+
+        when(redirectService.resolveAll(anyList())).thenReturn(results);
+
+        mockMvc.perform(post("/api/resolve")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"shortCodes\":[\"123abc\",\"gone12\"]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results['123abc'].status").value("FOUND"))
+                .andExpect(jsonPath("$.results['123abc'].url").value("https://google.com"))
+                .andExpect(jsonPath("$.results.gone12.status").value("EXPIRED"))
+                .andExpect(jsonPath("$.results.gone12.url").doesNotExist());
+    }
+
+    @Test
+    void test_resolveAll_emptyRequestRejected() throws Exception {
+        mockMvc.perform(post("/api/resolve")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"shortCodes\":[]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void test_resolveAll_nullOrBlankCodeRejected() throws Exception {
+        mockMvc.perform(post("/api/resolve")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"shortCodes\":[\"123abc\",null,\" \"]}"))
+                .andExpect(status().isBadRequest());
+
+        verify(redirectService, never()).resolveAll(anyList());
     }
 }
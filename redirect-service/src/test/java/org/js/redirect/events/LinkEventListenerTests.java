@@ -0,0 +1,118 @@
+package org.js.redirect.events;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.js.redirect.cache.CachedUrl;
+import org.js.redirect.config.LinkEventsConfig;
+import org.js.redirect.config.LinkEventsProperties;
+import org.js.redirect.service.RedirectService;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        classes = {LinkEventListener.class, LinkEventsConfig.class, LinkEventListenerTests.Config.class},
+        properties = {
+                "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+                "spring.kafka.consumer.auto-offset-reset=earliest",
+                "redirect.events.enabled=true",
+                "redirect.events.max-retry-time=30s"
+        })
+@EmbeddedKafka(partitions = 1, topics = LinkEventListenerTests.TOPIC)
+class LinkEventListenerTests {
+
+    static final String TOPIC = "url-lifecycle";
+    private static final long TIMEOUT_MILLIS = 30_000;
+
+    @Configuration
+    @ImportAutoConfiguration({KafkaAutoConfiguration.class, JacksonAutoConfiguration.class})
+    @EnableConfigurationProperties(LinkEventsProperties.class)
+    static class Config {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    @Autowired
+    private LinkEventListener linkEventListener;
+
+    @MockitoBean
+    private RedirectService redirectService;
+
+    @Test
+    void test_createdEvent_writtenThroughWithLocation() {
+        kafkaTemplate.send(TOPIC, "crt001",
+                "{\"type\":\"CREATED\",\"shortCode\":\"crt001\",\"longUrl\":\"example.com\",\"expiresAt\":\"2099-01-01T00:00:00\"}");
+
+        CachedUrl expected = new CachedUrl("https://example.com", LocalDateTime.of(2099, 1, 1, 0, 0));
+        verify(redirectService, timeout(TIMEOUT_MILLIS))
+                .cacheCreated(argThat(links -> expected.equals(links.get("crt001"))));
+    }
+
+    @Test
+    void test_deletedEvent_invalidatesCache() {
+        kafkaTemplate.send(TOPIC, "del001", "{\"type\":\"DELETED\",\"shortCode\":\"del001\"}");
+
+        verify(redirectService, timeout(TIMEOUT_MILLIS)).invalidateCache("del001");
+    }
+
+    @Test
+    void test_batch_lastEventPerCodeWins() {
+        linkEventListener.onEvents(List.of(
+                "{\"type\":\"CREATED\",\"shortCode\":\"bat001\",\"longUrl\":\"https://a.example\"}",
+                "{\"type\":\"DELETED\",\"shortCode\":\"bat001\"}",
+                "{\"type\":\"DELETED\",\"shortCode\":\"bat002\"}",
+                "{\"type\":\"CREATED\",\"shortCode\":\"bat002\",\"longUrl\":\"https://b.example\"}"));
+
+        InOrder inOrder = inOrder(redirectService);
+        inOrder.verify(redirectService).invalidateCache("bat001");
+        inOrder.verify(redirectService).invalidateCache("bat002");
+        inOrder.verify(redirectService).cacheCreated(
+                Map.of("bat002", new CachedUrl("https://b.example", null)));
+    }
+
+    @Test
+    void test_failedBatch_retriedUntilApplied() {
+        doThrow(new RedisConnectionFailureException("Redis unavailable"))
+                .doNothing()
+                .when(redirectService).invalidateCache("rty001");
+
+        kafkaTemplate.send(TOPIC, "rty001", "{\"type\":\"DELETED\",\"shortCode\":\"rty001\"}");
+
+        verify(redirectService, timeout(TIMEOUT_MILLIS).times(2)).invalidateCache("rty001");
+    }
+
+    @Test
+    void test_malformedEvent_skippedWithoutBlockingLaterOnes() {
+        kafkaTemplate.send(TOPIC, "bad001", "not json");
+        kafkaTemplate.send(TOPIC, "del002", "{\"type\":\"DELETED\",\"shortCode\":\"del002\"}");
+
+        verify(redirectService, timeout(TIMEOUT_MILLIS)).invalidateCache("del002");
+    }
+}
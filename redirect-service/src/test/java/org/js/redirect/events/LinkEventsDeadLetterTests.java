@@ -0,0 +1,76 @@
+package org.js.redirect.events;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.js.redirect.config.LinkEventsConfig;
+import org.js.redirect.service.RedirectService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.NONE,
+        classes = {LinkEventListener.class, LinkEventsConfig.class, LinkEventListenerTests.Config.class},
+        properties = {
+                "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+                "spring.kafka.consumer.auto-offset-reset=earliest",
+                "redirect.events.enabled=true",
+                "redirect.events.max-retry-time=1s",
+                "redirect.events.dead-letter-topic=" + LinkEventsDeadLetterTests.DEAD_LETTER_TOPIC
+        })
+@EmbeddedKafka(partitions = 1, topics = {LinkEventListenerTests.TOPIC, LinkEventsDeadLetterTests.DEAD_LETTER_TOPIC})
+class LinkEventsDeadLetterTests {
+
+    static final String DEAD_LETTER_TOPIC = "url-lifecycle.DLT";
+
+    @Autowired
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafka;
+
+    @MockitoBean
+    private RedirectService redirectService;
+
+    @Test
+    void test_exhaustedBatch_publishedToDeadLetterTopic() {
+        doThrow(new RedisConnectionFailureException("Redis unavailable"))
+                .when(redirectService).invalidateCache(anyString());
+        String payload = "{\"type\":\"DELETED\",\"shortCode\":\"dlt001\"}";
+
+        kafkaTemplate.send(LinkEventListenerTests.TOPIC, "dlt001", payload);
+
+        Map<String, Object> consumerProperties = Map.of(
+                ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, embeddedKafka.getBrokersAsString(),
+                ConsumerConfig.GROUP_ID_CONFIG, "dead-letter-reader",
+                ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        try (Consumer<String, String> consumer = new DefaultKafkaConsumerFactory<>(
+                consumerProperties, new StringDeserializer(), new StringDeserializer()).createConsumer()) {
+            embeddedKafka.consumeFromAnEmbeddedTopic(consumer, DEAD_LETTER_TOPIC);
+            ConsumerRecord<String, String> record =
+                    KafkaTestUtils.getSingleRecord(consumer, DEAD_LETTER_TOPIC, Duration.ofSeconds(30));
+
+            assertEquals("dlt001", record.key());
+            assertEquals(payload, record.value());
+            assertNotNull(record.headers().lastHeader(KafkaHeaders.DLT_EXCEPTION_FQCN));
+        }
+    }
+}
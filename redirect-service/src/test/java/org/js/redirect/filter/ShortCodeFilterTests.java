@@ -0,0 +1,71 @@
+package org.js.redirect.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.js.redirect.config.ShortCodeFilterProperties;
+import org.js.redirect.repository.ShortCodeRow;
+import org.js.redirect.repository.UrlRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ShortCodeFilterTests {
+
+    @Mock
+    private UrlRepository urlRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ShortCodeFilter shortCodeFilter;
+
+    @BeforeEach
+    void setUp() {
+        ShortCodeFilterProperties properties = new ShortCodeFilterProperties();
+        properties.setEnabled(true);
+        properties.setExpectedInsertions(1_000);
+        properties.setSyncOverlap(10);
+
+        shortCodeFilter = new ShortCodeFilter(
+                urlRepository, new TransactionTemplate(transactionManager), properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void test_syncCreatedCodes_rereadsOverlapForLateCommits() {
+        when(urlRepository.streamShortCodesAfter(0)).thenReturn(Stream.of(new ShortCodeRow(100L, "abc123")));
+        shortCodeFilter.rebuild();
+
+        // id 95 committed after the watermark had passed it
+        when(urlRepository.streamShortCodesAfter(90)).thenReturn(Stream.of(
+                new ShortCodeRow(95L, "late12"), new ShortCodeRow(100L, "abc123")));
+        shortCodeFilter.syncCreatedCodes();
+
+        assertTrue(shortCodeFilter.mightExist("late12"));
+        assertFalse(shortCodeFilter.mightExist("never1"));
+    }
+
+    @Test
+    void test_rebuild_keepsCodesAddedWhileStreaming() {
+        when(urlRepository.streamShortCodesAfter(0)).thenReturn(Stream.of(new ShortCodeRow(1L, "abc123")));
+        shortCodeFilter.rebuild();
+
+        when(urlRepository.streamShortCodesAfter(0)).thenAnswer(invocation -> {
+            // Created, and announced on the invalidation channel, after the rebuild's read began
+            shortCodeFilter.add("new123");
+            return Stream.of(new ShortCodeRow(1L, "abc123"));
+        });
+        shortCodeFilter.rebuild();
+
+        assertTrue(shortCodeFilter.mightExist("new123"));
+    }
+}
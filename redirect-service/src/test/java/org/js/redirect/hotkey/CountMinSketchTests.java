@@ -0,0 +1,55 @@
+package org.js.redirect.hotkey;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CountMinSketchTests {
+
+    @Test
+    public void test_estimate_neverUndercounts() {
+        CountMinSketch sketch = new CountMinSketch(4, 1024);
+
+        for (int i = 0; i < 10_000; i++) {
+            sketch.add("code" + (i % 500));
+        }
+
+        for (int i = 0; i < 500; i++) {
+            assertTrue(sketch.estimate("code" + i) >= 20);
+        }
+    }
+
+    @Test
+    public void test_estimate_heavyHitterStandsOutFromBackground() {
+        CountMinSketch sketch = new CountMinSketch(4, 4096);
+
+        for (int i = 0; i < 100_000; i++) {
+            sketch.add("background" + i);
+        }
+        for (int i = 0; i < 5_000; i++) {
+            sketch.add("viral");
+        }
+
+        // Overcount bound is about e / width of everything added: ~70 here
+        assertTrue(sketch.estimate("viral") < 5_000 + 200, "viral: " + sketch.estimate("viral"));
+        assertTrue(sketch.estimate("background1") < 200, "background: " + sketch.estimate("background1"));
+    }
+
+    @Test
+    public void test_halve_decaysCounts() {
+        CountMinSketch sketch = new CountMinSketch(4, 1024);
+
+        for (int i = 0; i < 100; i++) {
+            sketch.add("viral");
+        }
+        sketch.halve();
+
+        assertEquals(50, sketch.estimate("viral"));
+    }
+
+    @Test
+    public void test_sizeInBytes_fixedByDimensions() {
+        assertEquals(4 * 1024 * Integer.BYTES, new CountMinSketch(4, 1000).sizeInBytes());
+    }
+}
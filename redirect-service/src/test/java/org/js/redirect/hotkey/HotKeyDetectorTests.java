@@ -0,0 +1,94 @@
+package org.js.redirect.hotkey;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.js.redirect.cache.CachedUrl;
+import org.js.redirect.config.HotKeyProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HotKeyDetectorTests {
+
+    private HotKeyProperties properties;
+    private HotKeyDetector detector;
+
+    @BeforeEach
+    void setUp() {
+        properties = new HotKeyProperties();
+        properties.setThreshold(100);
+        properties.setMaxHotKeys(2);
+        properties.setRefreshInterval(Duration.ofHours(1));
+        detector = new HotKeyDetector(properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    public void test_record_codeBecomesHotAtThreshold() {
+        for (int i = 1; i < 100; i++) {
+            assertFalse(detector.record("viral"));
+        }
+
+        assertTrue(detector.record("viral"));
+        assertEquals("viral", detector.hotKeys().getFirst().shortCode());
+    }
+
+    @Test
+    public void test_record_hotSetBoundedKeepsHottest() {
+        requests("warm", 100);
+        requests("hot", 200);
+        requests("hottest", 300);
+
+        assertEquals(2, detector.hotKeys().size());
+        assertEquals("hottest", detector.hotKeys().get(0).shortCode());
+        assertEquals("hot", detector.hotKeys().get(1).shortCode());
+        assertFalse(detector.isHot("warm"));
+    }
+
+    @Test
+    public void test_decay_coolCodesLeaveHotSet() {
+        requests("viral", 100);
+
+        detector.decay();
+        assertTrue(detector.isHot("viral"));
+
+        detector.decay();
+        assertFalse(detector.isHot("viral"));
+    }
+
+    @Test
+    public void test_pin_onlyHotCodesAreRefreshedOncePerInterval() {
+        CachedUrl cachedUrl = new CachedUrl("https://example.com", null);
+
+        detector.pin("cold", cachedUrl);
+        assertNull(detector.getPinned("cold"));
+
+        requests("viral", 100);
+        detector.pin("viral", cachedUrl);
+        assertNotNull(detector.getPinned("viral"));
+        assertFalse(detector.claimRefresh("viral"));
+
+        detector.unpin("viral");
+        assertNull(detector.getPinned("viral"));
+    }
+
+    @Test
+    public void test_record_disabledNeverHot() {
+        properties.setEnabled(false);
+
+        assertFalse(requests("viral", 1_000));
+    }
+
+    private boolean requests(String shortCode, int count) {
+        boolean hot = false;
+        for (int i = 0; i < count; i++) {
+            hot = detector.record(shortCode);
+        }
+        return hot;
+    }
+}
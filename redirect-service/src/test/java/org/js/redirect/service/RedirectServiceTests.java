@@ -1,25 +1,60 @@
 package org.js.redirect.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.js.redirect.cache.CacheInvalidationListener;
+import org.js.redirect.cache.CacheRefresher;
+import org.js.redirect.cache.CachedUrl;
+import org.js.redirect.cache.LoadLease;
+import org.js.redirect.cache.LocalUrlCache;
+import org.js.redirect.cache.NegativeCache;
+import org.js.redirect.cache.RedisLatencyGuard;
+import org.js.redirect.cache.RedisUrlEntry;
+import org.js.redirect.cache.StringUrlCacheStore;
+import org.js.redirect.cache.Tombstone;
+import org.js.redirect.cache.UrlValueCodec;
+import org.js.redirect.config.HotKeyProperties;
+import org.js.redirect.config.LatencyBudgetProperties;
+import org.js.redirect.config.RedisLayoutProperties;
 import org.js.redirect.exception.model.UrlExpiredException;
-import org.js.redirect.persistence.entity.UrlEntity;
-import org.js.redirect.repository.UrlRepository;
+import org.js.redirect.exception.model.UrlNotFoundException;
+import org.js.redirect.filter.ShortCodeFilter;
+import org.js.redirect.hotkey.HotKeyDetector;
+import org.js.redirect.repository.UrlLookup;
+import org.js.redirect.repository.UrlLookupRepository;
+import org.js.redirect.service.model.ResolveResult;
+import org.js.redirect.snapshot.LinkSnapshot;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.ValueOperations;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.clearInvocations;
 import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -28,7 +63,7 @@ import static org.mockito.Mockito.when;
 @ExtendWith(MockitoExtension.class)
 public class RedirectServiceTests {
     @Mock
-    private UrlRepository urlRepository;
+    private UrlLookupRepository urlLookupRepository;
 
     @Mock
     private RedisTemplate<String, String> redisTemplate;
@@ -36,11 +71,118 @@ public class RedirectServiceTests {
     @Mock
     private ValueOperations<String, String> valueOperations;
 
-    @InjectMocks
+    @Mock
+    private LocalUrlCache localUrlCache;
+
+    @Mock
+    private NegativeCache negativeCache;
+
+    @Mock
+    private LoadLease loadLease;
+
+    @Spy
+    private LoadCoalescer loadCoalescer = new LoadCoalescer();
+
+    @Mock
+    private ShortCodeFilter shortCodeFilter;
+
+    @Mock
+    private CacheRefresher cacheRefresher;
+
+    @Mock
+    private LinkSnapshot linkSnapshot;
+
+    private StringUrlCacheStore urlCacheStore;
+
+    private RedisLatencyGuard redisLatencyGuard;
+
     private RedirectService redirectService;
 
     private final String validShortCode = "xyz789";
-    private final String cachePrefix = "url:";
+    private final String cachePrefix = "urlv1:";
+
+    @BeforeEach
+    void setUp() {
+        // Real string layout over the mocked template, so Redis calls can be verified directly
+        urlCacheStore = new StringUrlCacheStore(
+                redisTemplate, new UrlValueCodec(new RedisLayoutProperties()));
+        // Latency budget off: Redis is called inline, as the tests below expect
+        LatencyBudgetProperties latencyBudget = new LatencyBudgetProperties();
+        latencyBudget.setEnabled(false);
+        redisLatencyGuard = new RedisLatencyGuard(latencyBudget, new SimpleMeterRegistry());
+
+        // Default threshold: no code in these tests gets hot
+        redirectService = newRedirectService(new HotKeyDetector(new HotKeyProperties(), new SimpleMeterRegistry()));
+
+        lenient().when(shortCodeFilter.mightExist(any())).thenReturn(true);
+    }
+
+    private RedirectService newRedirectService(HotKeyDetector hotKeyDetector) {
+        return new RedirectService(redisTemplate, urlLookupRepository, localUrlCache, negativeCache, loadCoalescer,
+                loadLease, shortCodeFilter, cacheRefresher, urlCacheStore, redisLatencyGuard, hotKeyDetector, linkSnapshot);
+    }
+
+    @Test
+    public void test_resolve_hotKeyServedFromPinnedCopy() {
+        final String longUrl = "https://example.com";
+        HotKeyProperties properties = new HotKeyProperties();
+        properties.setThreshold(2);
+        HotKeyDetector hotKeyDetector = new HotKeyDetector(properties, new SimpleMeterRegistry());
+        RedirectService hotKeyService = newRedirectService(hotKeyDetector);
+
+        when(localUrlCache.get(validShortCode)).thenReturn(new CachedUrl(longUrl, null));
+
+        hotKeyService.resolve(validShortCode);
+        hotKeyService.resolve(validShortCode);  // crosses the threshold, gets pinned
+        clearInvocations(localUrlCache);
+
+        assertEquals(ResolveResult.found(longUrl), hotKeyService.resolve(validShortCode));
+        assertEquals(new CachedUrl(longUrl, null), hotKeyDetector.getPinned(validShortCode));
+
+        verify(localUrlCache, never()).get(any());
+        verify(redisTemplate, never()).opsForValue();
+    }
+
+    @Test
+    public void test_getLongUrl_snapshotHitNoDbQueryNorRedisWrite() {
+        final String longUrl = "https://example.com";
+        final LocalDateTime expiresAt = LocalDateTime.now().plusDays(1);
+
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(linkSnapshot.get(validShortCode)).thenReturn(new CachedUrl(longUrl, expiresAt));
+
+        assertEquals(longUrl, redirectService.getLongUrl(validShortCode));
+
+        verify(urlLookupRepository, never()).findByShortCode(any());
+        verify(localUrlCache).put(validShortCode, new CachedUrl(longUrl, expiresAt));
+        verify(valueOperations, never()).set(eq(cachePrefix + validShortCode), any(), anyLong(), eq(TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void test_getLongUrl_filterRejectsUnknownCodeWithoutIo() {
+        when(shortCodeFilter.mightExist(validShortCode)).thenReturn(false);
+
+        assertThrows(UrlNotFoundException.class,
+                () -> redirectService.getLongUrl(validShortCode));
+
+        verify(redisTemplate, never()).opsForValue();
+        verify(urlLookupRepository, never()).findByShortCode(any());
+    }
+
+    @Test
+    public void test_getLongUrl_localCacheHitNoRedisQuery() {
+        final String longUrl = "https://example.com";
+
+        when(localUrlCache.get(validShortCode))
+                .thenReturn(new CachedUrl(longUrl, LocalDateTime.now().plusDays(1)));
+
+        final String result = redirectService.getLongUrl(validShortCode);
+
+        assertEquals(longUrl, result);
+
+        verify(redisTemplate, never()).opsForValue();
+        verify(urlLookupRepository, never()).findByShortCode(any());
+    }
 
     @Test
     public void test_getLongUrl_cacheHitNoDbQuery() {
@@ -54,71 +196,223 @@ public class RedirectServiceTests {
 
         assertEquals(longUrl, getLongUrl);
 
-        verify(urlRepository, never()).findByShortCode(any());
+        verify(urlLookupRepository, never()).findByShortCode(any());
         verify(valueOperations, never()).set(any(), any(), anyLong(), any());
+        verify(localUrlCache).put(validShortCode, new CachedUrl(longUrl, null));
+    }
+
+    @Test
+    public void test_getLongUrl_entryNearExpiryRefreshedInBackground() {
+        final String longUrl = "https://example.com";
+        final LocalDateTime expiresAt = LocalDateTime.now().plusDays(1).withNano(0);
+        final String cachedValue = new RedisUrlEntry(longUrl, expiresAt, System.currentTimeMillis() + 10, 5).encode();
+
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get(cachePrefix + validShortCode))
+                .thenReturn(cachedValue);
+        when(cacheRefresher.shouldRefreshEarly(any())).thenReturn(true);
+
+        final String result = redirectService.getLongUrl(validShortCode);
+
+        // Cached value is still served while the refresh is scheduled
+        assertEquals(longUrl, result);
+        verify(cacheRefresher).refreshAsync(eq(validShortCode), any());
+        verify(localUrlCache).put(validShortCode, new CachedUrl(longUrl, expiresAt));
+        verify(urlLookupRepository, never()).findByShortCode(any());
+    }
+
+    @Test
+    public void test_getLongUrl_cachedUrlWithoutProtocolIsNormalizedOnce() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get(cachePrefix + validShortCode))
+                .thenReturn("example.com/path");
+
+        final String result = redirectService.getLongUrl(validShortCode);
+
+        assertEquals("https://example.com/path", result);
+        verify(localUrlCache).put(validShortCode, new CachedUrl("https://example.com/path", null));
     }
 
     @Test
     public void test_getLongUrl_cacheMissDbQuery() {
         final String longUrl = "https://example.com";
         final LocalDateTime expiresAt = LocalDateTime.now().plusDays(6);
-        UrlEntity urlEntity = UrlEntity.builder()
-                .shortCode("xyz789")
-                .longUrl(longUrl)
-                .createdAt(LocalDateTime.now())
-                .expiresAt(expiresAt)
-                .build();
+        UrlLookup urlLookup = new UrlLookup("xyz789", longUrl, expiresAt);
 
         when(redisTemplate.opsForValue()).thenReturn(valueOperations);
         when(valueOperations.get(cachePrefix + validShortCode))
                 .thenReturn(null);
-        when(urlRepository.findByShortCode(validShortCode))
-                .thenReturn(Optional.of(urlEntity));
+        when(urlLookupRepository.findByShortCode(validShortCode))
+                .thenReturn(Optional.of(urlLookup));
 
         final String result = redirectService.getLongUrl(validShortCode);
 
         assertEquals(longUrl, result);
         verify(valueOperations).get(cachePrefix + validShortCode);
-        verify(urlRepository).findByShortCode(validShortCode);
+        verify(urlLookupRepository).findByShortCode(validShortCode);
         verify(valueOperations).set(
                 eq(cachePrefix + validShortCode),
-                eq(longUrl),
+                argThat(value -> RedisUrlEntry.decode(value).longUrl().equals(longUrl)),
                 anyLong(),
                 eq(TimeUnit.SECONDS)
         );
+        verify(cacheRefresher).recordHardMiss();
+        verify(localUrlCache).put(validShortCode, new CachedUrl(longUrl, expiresAt));
     }
 
     @Test
     public void test_getLongUrl_whenUrlExpiredThrowException() {
         final String longUrl = "https://example.com";
-        UrlEntity urlEntity = UrlEntity.builder()
-                .shortCode("xyz789")
-                .longUrl(longUrl)
-                .createdAt(LocalDateTime.now().minusDays(3))
-                .expiresAt(LocalDateTime.now().minusDays(1))
-                .build();
+        UrlLookup urlLookup = new UrlLookup("xyz789", longUrl, LocalDateTime.now().minusDays(1));
 
         when(redisTemplate.opsForValue()).thenReturn(valueOperations);
         when(valueOperations.get(cachePrefix + validShortCode))
                 .thenReturn(null);
-        when(urlRepository.findByShortCode(validShortCode))
-                .thenReturn(Optional.of(urlEntity));
+        when(urlLookupRepository.findByShortCode(validShortCode))
+                .thenReturn(Optional.of(urlLookup));
 
         assertThrows(UrlExpiredException.class,
                 () -> redirectService.getLongUrl(validShortCode));
 
-        verify(urlRepository, times(1)).findByShortCode(any());
+        verify(urlLookupRepository, times(1)).findByShortCode(any());
         verify(valueOperations, never()).set(any(), any());
-        verify(urlRepository).delete(urlEntity);
+        verify(negativeCache).put(validShortCode, Tombstone.EXPIRED);
+    }
+
+    @Test
+    public void test_getLongUrl_unknownCodeIsTombstoned() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get(cachePrefix + validShortCode))
+                .thenReturn(null);
+        when(urlLookupRepository.findByShortCode(validShortCode))
+                .thenReturn(Optional.empty());
+
+        assertThrows(UrlNotFoundException.class,
+                () -> redirectService.getLongUrl(validShortCode));
+
+        verify(negativeCache).put(validShortCode, Tombstone.NOT_FOUND);
+    }
+
+    @Test
+    public void test_getLongUrl_tombstoneHitNoDbQuery() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get(cachePrefix + validShortCode))
+                .thenReturn(null);
+        when(negativeCache.get(validShortCode))
+                .thenReturn(Tombstone.EXPIRED);
+
+        assertThrows(UrlExpiredException.class,
+                () -> redirectService.getLongUrl(validShortCode));
+
+        verify(urlLookupRepository, never()).findByShortCode(any());
+    }
+
+    @Test
+    public void test_getLongUrl_concurrentMissesCoalesceIntoOneDbQuery() throws Exception {
+        final int callers = 8;
+        final String longUrl = "https://example.com";
+        UrlLookup urlLookup = new UrlLookup(validShortCode, longUrl, LocalDateTime.now().plusDays(1));
+
+        CountDownLatch releaseDb = new CountDownLatch(1);
+
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get(cachePrefix + validShortCode))
+                .thenReturn(null);
+        when(urlLookupRepository.findByShortCode(validShortCode))
+                .thenAnswer(invocation -> {
+                    releaseDb.await(5, TimeUnit.SECONDS);
+                    return Optional.of(urlLookup);
+                });
+
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> redirectService.getLongUrl(validShortCode)));
+            }
+
+            // Every caller has checked its tombstone, i.e. reached the coalescer, before the DB answers
+            while (Mockito.mockingDetails(negativeCache).getInvocations().size() < callers) {
+                Thread.sleep(5);
+            }
+            Thread.sleep(100);
+            releaseDb.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals(longUrl, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(urlLookupRepository, times(1)).findByShortCode(validShortCode);
     }
 
     @Test
     public void test_invalidateCache_deletesFromRedis() {
-        when(redisTemplate.delete(cachePrefix + validShortCode))
-                .thenReturn(true);
+        when(redisTemplate.delete(List.of(cachePrefix + validShortCode, "url:" + validShortCode)))
+                .thenReturn(1L);
 
         redirectService.invalidateCache(validShortCode);
 
-        verify(redisTemplate).delete(cachePrefix + validShortCode);
+        verify(redisTemplate).delete(List.of(cachePrefix + validShortCode, "url:" + validShortCode));
+        verify(localUrlCache).invalidate(validShortCode);
+        verify(redisTemplate).convertAndSend(CacheInvalidationListener.CHANNEL, validShortCode);
+    }
+
+    @Test
+    public void test_resolveAll_oneRoundTripPerTier() {
+        final LocalDateTime expiresAt = LocalDateTime.now().plusDays(1).withNano(0);
+        final UrlLookup loaded = new UrlLookup("dbhit1", "example.org", expiresAt);
+        final UrlLookup expired = new UrlLookup("old123", "https://old.example.com", LocalDateTime.now().minusDays(1));
+
+        // Pipelined reads come back as entry, tombstone per code; the write-back pipeline returns nothing
+        when(redisTemplate.executePipelined(any(SessionCallback.class)))
+                .thenReturn(Arrays.asList(
+                        "https://example.com", null,
+                        null, "NOT_FOUND",
+                        null, null,
+                        null, null,
+                        null, null))
+                .thenReturn(List.of());
+        when(urlLookupRepository.findAllByShortCodeIn(List.of("dbhit1", "old123", "nope12")))
+                .thenReturn(List.of(loaded, expired));
+
+        Map<String, ResolveResult> results = redirectService.resolveAll(
+                List.of("redis1", "gone12", "dbhit1", "old123", "nope12", "redis1"));
+
+        assertEquals(List.of("redis1", "gone12", "dbhit1", "old123", "nope12"), List.copyOf(results.keySet()));
+        assertEquals(ResolveResult.found("https://example.com"), results.get("redis1"));
+        assertEquals(ResolveResult.NOT_FOUND, results.get("gone12"));
+        assertEquals(ResolveResult.found("https://example.org", expiresAt), results.get("dbhit1"));
+        assertEquals(ResolveResult.EXPIRED, results.get("old123"));
+        assertEquals(ResolveResult.NOT_FOUND, results.get("nope12"));
+
+        verify(urlLookupRepository, times(1)).findAllByShortCodeIn(any());
+        verify(urlLookupRepository, never()).findByShortCode(any());
+        verify(redisTemplate, times(2)).executePipelined(any(SessionCallback.class));
+        verify(localUrlCache).put("dbhit1", new CachedUrl("https://example.org", expiresAt));
+    }
+
+    @Test
+    public void test_resolveAll_redisFailureFallsBackToDatabase() {
+        final UrlLookup loaded = new UrlLookup("dbhit1", "https://example.org", null);
+
+        // Latency budget on: a failed Redis read falls back, and the failed write-back is only logged
+        redisLatencyGuard = new RedisLatencyGuard(new LatencyBudgetProperties(), new SimpleMeterRegistry());
+        redirectService = newRedirectService(new HotKeyDetector(new HotKeyProperties(), new SimpleMeterRegistry()));
+
+        when(redisTemplate.executePipelined(any(SessionCallback.class)))
+                .thenThrow(new RedisConnectionFailureException("Redis is down"));
+        when(urlLookupRepository.findAllByShortCodeIn(List.of("dbhit1", "nope12"))).thenReturn(List.of(loaded));
+
+        try {
+            Map<String, ResolveResult> results = redirectService.resolveAll(List.of("dbhit1", "nope12"));
+
+            assertEquals(ResolveResult.found("https://example.org"), results.get("dbhit1"));
+            assertEquals(ResolveResult.NOT_FOUND, results.get("nope12"));
+        } finally {
+            redisLatencyGuard.shutdown();
+        }
     }
 }
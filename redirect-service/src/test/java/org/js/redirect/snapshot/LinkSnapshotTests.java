@@ -0,0 +1,110 @@
+package org.js.redirect.snapshot;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.js.redirect.cache.CachedUrl;
+import org.js.redirect.config.LinkSnapshotProperties;
+import org.js.redirect.repository.LinkRow;
+import org.js.redirect.repository.UrlLookupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+
+@ExtendWith(MockitoExtension.class)
+public class LinkSnapshotTests {
+
+    @TempDir
+    private Path directory;
+
+    @Mock
+    private UrlLookupRepository urlLookupRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private LinkSnapshotProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new LinkSnapshotProperties();
+        properties.setEnabled(true);
+        properties.setDirectory(directory);
+        properties.setExpectedLinks(100);
+    }
+
+    @Test
+    void test_rebuild_afterReopenShedsLinksDeletedWhileDown() {
+        streamLinks(List.of(link(1, "abc123"), link(2, "def456")));
+        newLinkSnapshot().rebuild();
+
+        // def456 was deleted while the pod was down
+        streamLinks(List.of(link(1, "abc123")));
+        LinkSnapshot restarted = newLinkSnapshot();
+        restarted.rebuild();
+
+        assertEquals(new CachedUrl("https://example.com/abc123", null), restarted.get("abc123"));
+        assertNull(restarted.get("def456"));
+    }
+
+    @Test
+    void test_rebuild_replaysRemovesMadeWhileStreaming() {
+        LinkSnapshot linkSnapshot = newLinkSnapshot();
+
+        doAnswer(invocation -> {
+            // Deleted, and invalidated, after the build's read began
+            linkSnapshot.remove("abc123");
+            invocation.<Consumer<LinkRow>>getArgument(2).accept(link(1, "abc123"));
+            return null;
+        }).when(urlLookupRepository).forEachLinkAfter(anyLong(), anyInt(), any());
+        linkSnapshot.rebuild();
+
+        assertNull(linkSnapshot.get("abc123"));
+    }
+
+    @Test
+    void test_syncCreatedLinks_overlapDoesNotResurrectRemovedLinks() {
+        LinkSnapshot linkSnapshot = newLinkSnapshot();
+        streamLinks(List.of(link(1, "abc123"), link(2, "def456")));
+        linkSnapshot.rebuild();
+
+        // Deleted and invalidated, but the sync's read still sees it
+        linkSnapshot.remove("abc123");
+        streamLinks(List.of(link(1, "abc123"), link(2, "def456"), link(3, "ghi789")));
+        linkSnapshot.syncCreatedLinks();
+
+        assertNull(linkSnapshot.get("abc123"));
+        assertEquals(new CachedUrl("https://example.com/def456", null), linkSnapshot.get("def456"));
+        assertEquals(new CachedUrl("https://example.com/ghi789", null), linkSnapshot.get("ghi789"));
+    }
+
+    private LinkSnapshot newLinkSnapshot() {
+        return new LinkSnapshot(urlLookupRepository, new TransactionTemplate(transactionManager), properties,
+                new SimpleMeterRegistry());
+    }
+
+    private void streamLinks(List<LinkRow> links) {
+        doAnswer(invocation -> {
+            links.forEach(invocation.<Consumer<LinkRow>>getArgument(2));
+            return null;
+        }).when(urlLookupRepository).forEachLinkAfter(anyLong(), anyInt(), any());
+    }
+
+    private static LinkRow link(long id, String shortCode) {
+        return new LinkRow(id, shortCode, "https://example.com/" + shortCode, null);
+    }
+}
@@ -0,0 +1,89 @@
+package org.js.redirect.snapshot;
+
+import org.js.redirect.cache.CachedUrl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MappedLinkTableTests {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    public void test_get_returnsEveryLinkPut() {
+        MappedLinkTable table = MappedLinkTable.create(directory.resolve("gen"), 10_000);
+        LocalDateTime expiresAt = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(table.put(code(i), "https://example.com/" + i, i % 2 == 0 ? null : expiresAt));
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(new CachedUrl("https://example.com/" + i, i % 2 == 0 ? null : expiresAt), table.get(code(i)));
+        }
+        assertNull(table.get("zzzzzz"));
+        assertEquals(10_000, table.size());
+    }
+
+    @Test
+    public void test_open_reusesCheckpointedTable() {
+        Path generation = directory.resolve("gen");
+        MappedLinkTable table = MappedLinkTable.create(generation, 100);
+        table.put("abc123", "https://example.com", null);
+
+        // Not reusable until a complete build is checkpointed
+        assertNull(MappedLinkTable.open(generation));
+
+        table.checkpoint(42, true);
+        table.close();
+
+        MappedLinkTable reopened = MappedLinkTable.open(generation);
+        assertEquals(42, reopened.watermark());
+        assertEquals(new CachedUrl("https://example.com", null), reopened.get("abc123"));
+    }
+
+    @Test
+    public void test_remove_hidesLinkUntilPutAgain() {
+        MappedLinkTable table = MappedLinkTable.create(directory.resolve("gen"), 100);
+        table.put("abc123", "https://example.com", null);
+
+        table.remove("abc123");
+        assertNull(table.get("abc123"));
+
+        table.put("abc123", "https://example.org", null);
+        assertEquals(new CachedUrl("https://example.org", null), table.get("abc123"));
+    }
+
+    @Test
+    public void test_put_falseWhenFullOrNotBase62() {
+        MappedLinkTable table = MappedLinkTable.create(directory.resolve("gen"), 12);
+
+        assertFalse(table.put("not-base62", "https://example.com", null));
+
+        int added = 0;
+        while (table.put(code(added), "https://example.com", null)) {
+            added++;
+        }
+        assertEquals((long) (table.capacity() * 0.75), added);
+    }
+
+    @Test
+    public void test_pack_distinctForDifferentLengths() {
+        assertNotEquals(MappedLinkTable.pack("0"), MappedLinkTable.pack("00"));
+        assertTrue(MappedLinkTable.pack("zzzzzzzzzz") > 0);
+        assertEquals(0, MappedLinkTable.pack("zzzzzzzzzzz"));
+    }
+
+    private static String code(int i) {
+        return Integer.toString(1_000_000 + i, 36);
+    }
+}
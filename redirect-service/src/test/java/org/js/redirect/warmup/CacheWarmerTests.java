@@ -0,0 +1,73 @@
+package org.js.redirect.warmup;
+
+import org.js.redirect.cache.CachedUrl;
+import org.js.redirect.cache.LocalUrlCache;
+import org.js.redirect.cache.RedisUrlEntry;
+import org.js.redirect.cache.UrlCacheStore;
+import org.js.redirect.config.WarmupProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class CacheWarmerTests {
+    @Mock
+    private UrlCacheStore urlCacheStore;
+
+    @Mock
+    private LocalUrlCache localUrlCache;
+
+    @Mock
+    private HotSetStore hotSetStore;
+
+    @Spy
+    private WarmupProperties properties = new WarmupProperties();
+
+    @InjectMocks
+    private CacheWarmer cacheWarmer;
+
+    @Test
+    void test_warmUp_loadsHotCodesPresentInRedis() {
+        when(hotSetStore.topCodes(properties.getHotSetSize())).thenReturn(List.of("abc123", "gone12"));
+        when(urlCacheStore.getAll(List.of("abc123", "gone12")))
+                .thenReturn(Arrays.asList(new RedisUrlEntry("https://example.com", null, 0, 0), null));
+
+        cacheWarmer.warmUp();
+
+        verify(localUrlCache).put("abc123", new CachedUrl("https://example.com", null));
+        verify(localUrlCache, never()).put(eq("gone12"), any());
+        assertEquals(CacheWarmer.State.COMPLETED, cacheWarmer.getState());
+        assertEquals(1, cacheWarmer.getLoaded());
+        assertFalse(cacheWarmer.isWarmingUp());
+    }
+
+    @Test
+    void test_warmUp_stopsAtMemoryBudget() {
+        properties.setMaxBytes(1);
+        when(hotSetStore.topCodes(properties.getHotSetSize())).thenReturn(List.of("abc123"));
+        when(urlCacheStore.getAll(anyList()))
+                .thenReturn(List.of(new RedisUrlEntry("https://example.com", null, 0, 0)));
+
+        cacheWarmer.warmUp();
+
+        verify(localUrlCache, never()).put(anyString(), any());
+        assertEquals(CacheWarmer.State.BUDGET_EXHAUSTED, cacheWarmer.getState());
+        assertFalse(cacheWarmer.isWarmingUp());
+    }
+}
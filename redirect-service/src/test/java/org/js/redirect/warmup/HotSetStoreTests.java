@@ -0,0 +1,67 @@
+package org.js.redirect.warmup;
+
+import org.js.redirect.config.WarmupProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class HotSetStoreTests {
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Mock
+    private ZSetOperations<String, String> zSetOperations;
+
+    @Spy
+    private WarmupProperties properties = new WarmupProperties();
+
+    @InjectMocks
+    private HotSetStore hotSetStore;
+
+    @Test
+    void test_publish_decaysOncePerIntervalAndPipelinesIncrements() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(HotSetStore.DECAY_KEY, "1", properties.getPublishInterval()))
+                .thenReturn(false);
+
+        hotSetStore.publish(List.of("abc123", "def456"));
+
+        // Another pod already decayed the set in this interval
+        verify(redisTemplate, never()).opsForZSet();
+        verify(redisTemplate, times(1)).executePipelined(any(SessionCallback.class));
+    }
+
+    @Test
+    void test_publish_firstPodInIntervalDecays() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(valueOperations.setIfAbsent(HotSetStore.DECAY_KEY, "1", properties.getPublishInterval()))
+                .thenReturn(true);
+
+        hotSetStore.publish(List.of("abc123"));
+
+        verify(zSetOperations).unionAndStore(eq(HotSetStore.HOT_SET_KEY), eq(List.of()), eq(HotSetStore.HOT_SET_KEY), any(), any());
+        verify(redisTemplate, times(1)).executePipelined(any(SessionCallback.class));
+    }
+}
@@ -15,6 +15,7 @@ plugins {
 	id("io.spring.dependency-management") version "1.1.7"
 	id("io.freefair.lombok") version "8.4"
 	id("org.flywaydb.flyway") version "10.10.0"
+	id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "org.js"
@@ -44,8 +45,10 @@ dependencies {
 	implementation("com.fasterxml.jackson.core:jackson-databind:2.15.3")
 	implementation("org.springframework.kafka:spring-kafka")
 	implementation("org.springdoc:springdoc-openapi-starter-webmvc-ui:2.8.13")
+	implementation("org.springframework.boot:spring-boot-starter-data-redis")
+	implementation("com.github.ben-manes.caffeine:caffeine")
 
-	runtimeOnly("org.postgresql:postgresql:42.7.2")
+	implementation("org.postgresql:postgresql:42.7.2")  // CopyManager for bulk import
 	testImplementation("org.mockito:mockito-core:5.7.0")
 	testImplementation("junit:junit:4.13.1")
 
@@ -64,8 +67,15 @@ tasks.withType<Test> {
 	useJUnitPlatform()
 }
 
+// Microbenchmarks under src/jmh, run with ./gradlew jmh
+jmh {
+	profilers.add("gc")
+}
+
 flyway {
 	url = "jdbc:postgresql://localhost:5432/postgres"
 	user = "user"
 	password = "password"
+	// Flyway's default lock is held by a transaction, which CREATE INDEX CONCURRENTLY (V4, V10) waits on forever
+	pluginConfiguration = mapOf("postgresqlTransactionalLock" to "false")
 }
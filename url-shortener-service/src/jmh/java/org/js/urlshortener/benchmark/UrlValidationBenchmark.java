@@ -0,0 +1,74 @@
+package org.js.urlshortener.benchmark;
+
+import org.js.urlshortener.utils.LongUrls;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Cost of validating a create request's URL: the backtracking regex previously on PostUrlShortenRequest
+ * versus the single-pass LongUrls parser, which also builds the canonical form.
+ * The adversarial inputs are hosts of up to the 2048 characters a request may have (the size check
+ * does not stop the pattern from running on longer ones). Compare how each scales from typical input.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UrlValidationBenchmark {
+
+    // PostUrlShortenRequest.VALID_URL_REGEX before LongUrls
+    private static final Pattern VALID_URL_REGEX = Pattern.compile("^(https?://)?" +
+            "[a-zA-Z0-9]([a-zA-Z0-9_-]*[a-zA-Z0-9])?" +
+            "(\\.[a-zA-Z0-9]([a-zA-Z0-9_-]*[a-zA-Z0-9])?)*" +
+            "\\.[a-zA-Z]{2,}" +
+            "(:[0-9]{1,5})?" +
+            "(/.*)?$");
+
+    @Param({"typical", "longPath", "dashedLabel", "manyLabels", "noTopLevelLabel"})
+    public String input;
+
+    private String url;
+
+    @Setup
+    public void setUp() {
+        url = switch (input) {
+            case "typical" -> "https://example.com/landing/page?utm_source=newsletter";
+            case "longPath" -> "https://example.com/" + "segment/".repeat(250);
+            // One label the inner quantifiers can split in many ways, failing on its last character
+            case "dashedLabel" -> "a-".repeat(1023) + "!";
+            // A label per backtracking frame, failing on a numeric top-level label
+            case "manyLabels" -> "a.".repeat(1023) + "1";
+            case "noTopLevelLabel" -> "a-a.".repeat(511) + "a";
+            default -> throw new IllegalArgumentException("Unknown input: " + input);
+        };
+    }
+
+    @Benchmark
+    public boolean regex() {
+        try {
+            return VALID_URL_REGEX.matcher(url).matches();
+        } catch (StackOverflowError e) {
+            // What a request saw on long enough hosts: a 500 instead of a 400
+            return false;
+        }
+    }
+
+    @Benchmark
+    public String parser() {
+        return LongUrls.canonicalize(url);
+    }
+}
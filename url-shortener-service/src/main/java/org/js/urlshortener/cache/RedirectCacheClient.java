@@ -0,0 +1,89 @@
+package org.js.urlshortener.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+
+/**
+ * Keeps redirect-service's Redis state consistent with writes made here.
+ * Key names and channel mirror redirect-service's NegativeCache and CacheInvalidationListener.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class RedirectCacheClient {
+
+    private static final String TOMBSTONE_PREFIX = "miss:";
+    private static final String INVALIDATION_CHANNEL = "url-invalidations";
+
+    private final StringRedisTemplate redisTemplate;
+
+    /**
+     * Remove any not-found/expired tombstone left for a code that now exists.
+     * Failures are logged only; the tombstone expires on its own.
+     * Inside a transaction, this happens once it commits.
+     *
+     * @param shortCode The newly created short code
+     */
+    public void clearTombstone(String shortCode) {
+        afterCommit(() -> {
+            try {
+                redisTemplate.delete(TOMBSTONE_PREFIX + shortCode);
+                redisTemplate.convertAndSend(INVALIDATION_CHANNEL, shortCode);
+            } catch (RuntimeException e) {
+                log.warn("Failed to clear tombstone for: {}", shortCode, e);
+            }
+        });
+    }
+
+    /**
+     * {@link #clearTombstone(String)} for many codes: one DEL and one pipelined round of invalidations.
+     *
+     * @param shortCodes The newly created short codes
+     */
+    public void clearTombstones(Collection<String> shortCodes) {
+        if (shortCodes.isEmpty()) {
+            return;
+        }
+
+        try {
+            redisTemplate.delete(shortCodes.stream().map(shortCode -> TOMBSTONE_PREFIX + shortCode).toList());
+            redisTemplate.executePipelined(new SessionCallback<>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, String> stringOperations = (RedisOperations<String, String>) operations;
+                    shortCodes.forEach(shortCode -> stringOperations.convertAndSend(INVALIDATION_CHANNEL, shortCode));
+                    return null;
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Failed to clear tombstones for {} codes", shortCodes.size(), e);
+        }
+    }
+
+    /**
+     * Run once the current transaction commits, or now if there is none. A tombstone cleared before the
+     * row is visible could be written again by a redirect reading the database in between.
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,13 @@
+package org.js.urlshortener.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "url-shortener.batch")
+public class BatchShortenProperties {
+    /**
+     * Links inserted per statement, and so per transaction.
+     */
+    private int chunkSize = 1000;
+}
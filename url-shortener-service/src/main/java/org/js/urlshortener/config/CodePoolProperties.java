@@ -0,0 +1,44 @@
+package org.js.urlshortener.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the pre-generated code pool, used when url-shortener.codes.strategy is POOL.
+ */
+@Data
+@ConfigurationProperties(prefix = "url-shortener.code-pool")
+public class CodePoolProperties {
+    /**
+     * Refill the table once fewer unclaimed codes than this are left.
+     */
+    private int lowWaterMark = 20000;
+
+    /**
+     * Codes generated and inserted per refill statement.
+     */
+    private int refillBatchSize = 5000;
+
+    /**
+     * Cap on refill statements per run.
+     */
+    private int maxRefillBatchesPerRun = 10;
+
+    /**
+     * Codes claimed from the table into memory at a time.
+     */
+    private int claimSize = 1000;
+
+    /**
+     * Claim the next chunk in the background once fewer codes than this are left in memory.
+     */
+    private int localLowWaterMark = 500;
+
+    /**
+     * A claim not renewed for this long is considered abandoned (its replica crashed) and can be reclaimed.
+     * Must be well above url-shortener.code-pool.renew-interval.
+     */
+    private Duration claimLease = Duration.ofMinutes(5);
+}
@@ -0,0 +1,26 @@
+package org.js.urlshortener.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "url-shortener.dedup")
+public class DedupProperties {
+    /**
+     * Return an existing link for a long URL that already has one outliving the requested expiry.
+     * Links are then shared between clients: deleting one deletes it for all of them.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Recently created links kept in memory to absorb bursts of the same URL.
+     */
+    private int recentCacheSize = 10000;
+
+    /**
+     * Bounds how long another replica can keep returning a link deleted elsewhere.
+     */
+    private Duration recentCacheTimeToLive = Duration.ofSeconds(30);
+}
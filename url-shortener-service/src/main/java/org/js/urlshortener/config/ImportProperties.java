@@ -0,0 +1,18 @@
+package org.js.urlshortener.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "url-shortener.import")
+public class ImportProperties {
+    /**
+     * Lines per COPY and per transaction; also bounds the rows held in memory.
+     */
+    private int chunkSize = 5000;
+
+    /**
+     * Longer lines are rejected without being buffered.
+     */
+    private int maxLineLength = 8192;
+}
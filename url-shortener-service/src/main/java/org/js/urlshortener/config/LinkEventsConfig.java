@@ -0,0 +1,23 @@
+package org.js.urlshortener.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+@Configuration
+public class LinkEventsConfig {
+
+    /**
+     * Created at startup if missing. Only declared with events enabled, so a disabled service never
+     * contacts the broker.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "url-shortener.events", name = "enabled", havingValue = "true")
+    public NewTopic linkEventsTopic(LinkEventsProperties properties) {
+        return TopicBuilder.name(properties.getTopic())
+                .partitions(properties.getPartitions())
+                .build();
+    }
+}
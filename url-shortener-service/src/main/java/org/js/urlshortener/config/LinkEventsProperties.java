@@ -0,0 +1,35 @@
+package org.js.urlshortener.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "url-shortener.events")
+public class LinkEventsProperties {
+    /**
+     * Record created/deleted events in url_outbox and relay them to Kafka.
+     */
+    private boolean enabled = false;
+
+    private String topic = "url-lifecycle";
+
+    /**
+     * Partitions of the topic when it is created here. Events are keyed by short code, so the events of
+     * one link stay in order whatever the count.
+     */
+    private int partitions = 6;
+
+    /**
+     * Events read, sent and deleted per transaction.
+     */
+    private int batchSize = 500;
+
+    private int maxBatchesPerRun = 20;
+
+    /**
+     * A batch not acknowledged by the broker within this is rolled back and sent again.
+     */
+    private Duration sendTimeout = Duration.ofSeconds(10);
+}
@@ -0,0 +1,32 @@
+package org.js.urlshortener.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Expiry-date partitions of url_links (see V12, V13).
+ */
+@Data
+@ConfigurationProperties(prefix = "url-shortener.partitions")
+public class PartitionProperties {
+    /**
+     * Expiry days per partition. Fewer means expired links are dropped sooner, but lookups plan over more
+     * partitions. Applies to partitions created from now on.
+     */
+    private int days = 7;
+
+    /**
+     * Partitions are kept created this far ahead; must exceed the longest validity (365 days).
+     * There is no default partition: links expiring later fail to insert.
+     */
+    private int daysAhead = 400;
+
+    /**
+     * Attaching or detaching a partition waits on a SHARE UPDATE EXCLUSIVE lock on url_links, and a
+     * concurrent detach on queries still using the partition. It gives up after this rather than wait
+     * behind a long-running query, and is retried on the next run.
+     */
+    private Duration lockTimeout = Duration.ofMillis(500);
+}
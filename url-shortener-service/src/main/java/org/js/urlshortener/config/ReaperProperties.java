@@ -0,0 +1,27 @@
+package org.js.urlshortener.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "url-shortener.reaper")
+public class ReaperProperties {
+    private boolean enabled = true;
+
+    /**
+     * Expired codes released, or default-partition rows deleted, per transaction.
+     */
+    private int batchSize = 1000;
+
+    /**
+     * Cap on batches per run so one run cannot monopolise the database.
+     */
+    private int maxBatchesPerRun = 50;
+
+    /**
+     * Pause between batches to leave room for foreground queries.
+     */
+    private Duration pauseBetweenBatches = Duration.ofMillis(200);
+}
@@ -0,0 +1,39 @@
+package org.js.urlshortener.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "url-shortener.codes")
+public class ShortCodeProperties {
+
+    public enum Strategy {
+        /**
+         * Random codes, redrawn on collision.
+         */
+        RANDOM,
+        /**
+         * Ids leased in blocks from a sequence and permuted into codes: no lookups, and retries only
+         * where a code of the same length was taken otherwise (random, pooled or imported).
+         */
+        COUNTER,
+        /**
+         * Codes pre-generated into short_code_pool and claimed in chunks: no lookups on create.
+         */
+        POOL
+    }
+
+    private Strategy strategy = Strategy.RANDOM;
+
+    /**
+     * Key of the id-to-code permutation used by COUNTER. Changing it on a live table can reissue existing codes.
+     */
+    private String secret = "";
+
+    /**
+     * Length of the first COUNTER codes; longer ones follow once that space is used up.
+     * Set it above the random code length (6) when switching an existing table, so creates do not keep
+     * drawing codes that are taken.
+     */
+    private int minLength = 6;
+}
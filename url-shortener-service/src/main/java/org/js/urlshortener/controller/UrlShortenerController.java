@@ -1,14 +1,21 @@
 package org.js.urlshortener.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.js.urlshortener.controller.model.PostUrlShortenBatchRequest;
 import org.js.urlshortener.controller.model.PostUrlShortenRequest;
+import org.js.urlshortener.controller.model.ShortenBatchResponse;
 import org.js.urlshortener.controller.model.ShortenResponse;
+import org.js.urlshortener.service.UrlImportService;
 import org.js.urlshortener.service.UrlShortenerService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api")
@@ -17,6 +24,7 @@ import org.springframework.web.bind.annotation.*;
 public class UrlShortenerController {
 
     private final UrlShortenerService urlShortenerService;
+    private final UrlImportService urlImportService;
 
     @PostMapping("/shorten")
     public ResponseEntity<ShortenResponse> shortenUrl(
@@ -27,6 +35,37 @@ public class UrlShortenerController {
                 .body(urlShortenerService.shortenUrl(requestBody));
     }
 
+    @PostMapping("/shorten/batch")
+    public ResponseEntity<ShortenBatchResponse> shortenUrls(
+            @Valid @RequestBody final PostUrlShortenBatchRequest requestBody
+    ) {
+        ShortenBatchResponse response = urlShortenerService.shortenUrls(requestBody);
+
+        // 207 when some items failed; each result says which
+        return ResponseEntity
+                .status(response.getFailed() == 0 ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS)
+                .body(response);
+    }
+
+    /**
+     * Stream rows in and results out: the body is read as it arrives and progress is written per chunk.
+     */
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv"}, produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> importUrls(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) final String contentType,
+            @RequestParam(value = "importId", required = false) final String importId,
+            final HttpServletRequest request
+    ) {
+        UrlImportService.Format format = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.valueOf("text/csv"))
+                ? UrlImportService.Format.CSV
+                : UrlImportService.Format.NDJSON;
+
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .contentType(MediaType.valueOf("application/x-ndjson"))
+                .body(output -> urlImportService.importUrls(request.getInputStream(), format, importId, output));
+    }
+
     @GetMapping("/shorten/{shortUrl}")
     public ResponseEntity<ShortenResponse> getShortUrlDetails(
             @PathVariable("shortUrl") final String shortUrl
@@ -16,6 +16,7 @@ public interface UrlMapper {
     @Mapping(target = "longUrl", source = "request.url")
     @Mapping(target = "createdAt", source = "createdAt")
     @Mapping(target = "expiresAt", source = "expiresAt")
+    @Mapping(target = "longUrlHash", ignore = true)
     UrlEntity mapToUrlEntity(PostUrlShortenRequest request, String shortCode, LocalDateTime createdAt, LocalDateTime expiresAt);
 
     @Mapping(target = "shortCode", source = "entity.shortCode")
@@ -0,0 +1,40 @@
+package org.js.urlshortener.controller.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One line of a bulk import's NDJSON response.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportEvent {
+
+    public static final String REJECTED = "rejected";
+    public static final String PROGRESS = "progress";
+    public static final String DONE = "done";
+    public static final String FAILED = "failed";
+
+    private String type;
+
+    /**
+     * Line of the rejected row.
+     */
+    private Long line;
+
+    private String error;
+
+    /**
+     * Lines committed so far, including any skipped on resume: resume from the line after this one.
+     */
+    private Long linesCommitted;
+
+    private Long imported;
+    private Long rejected;
+}
@@ -0,0 +1,22 @@
+package org.js.urlshortener.controller.model;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PostUrlShortenBatchRequest {
+
+    // Items are validated one by one, so an invalid item fails alone instead of the whole batch
+    @NotEmpty(message = "Batch cannot be empty")
+    @Size(max = 10000, message = "Batch cannot exceed 10000 items")
+    private List<PostUrlShortenRequest> items;
+}
@@ -0,0 +1,27 @@
+package org.js.urlshortener.controller.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ShortenBatchItemResult {
+    /**
+     * Position of the item in the request.
+     */
+    private int index;
+
+    /**
+     * Set if the link was created.
+     */
+    private ShortenResponse result;
+
+    /**
+     * Set if it was not.
+     */
+    private String error;
+}
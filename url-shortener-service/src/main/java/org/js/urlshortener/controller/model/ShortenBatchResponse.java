@@ -0,0 +1,18 @@
+package org.js.urlshortener.controller.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ShortenBatchResponse {
+    private int created;
+    private int failed;
+    private List<ShortenBatchItemResult> results;
+}
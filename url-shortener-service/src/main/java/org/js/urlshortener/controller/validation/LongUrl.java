@@ -0,0 +1,26 @@
+package org.js.urlshortener.controller.validation;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * A long URL that {@link org.js.urlshortener.utils.LongUrls#canonicalize} accepts. Null is valid.
+ */
+@Documented
+@Constraint(validatedBy = LongUrlValidator.class)
+@Target({ElementType.FIELD, ElementType.PARAMETER})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface LongUrl {
+
+    String message() default "Invalid URL";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
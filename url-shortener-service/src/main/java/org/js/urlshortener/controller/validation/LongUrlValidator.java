@@ -0,0 +1,13 @@
+package org.js.urlshortener.controller.validation;
+
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+import org.js.urlshortener.utils.LongUrls;
+
+public class LongUrlValidator implements ConstraintValidator<LongUrl, String> {
+
+    @Override
+    public boolean isValid(final String value, final ConstraintValidatorContext context) {
+        return value == null || LongUrls.canonicalize(value) != null;
+    }
+}
@@ -0,0 +1,16 @@
+package org.js.urlshortener.events;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+
+/**
+ * Payload of a url-lifecycle record, keyed by short code. Mirrored by redirect-service's LinkEvent.
+ *
+ * @param type      CREATED or DELETED
+ * @param longUrl   Null for deletions
+ * @param expiresAt Null for deletions
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record LinkEvent(String type, String shortCode, String longUrl, LocalDateTime expiresAt) {
+}
@@ -0,0 +1,117 @@
+package org.js.urlshortener.events;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.js.urlshortener.config.LinkEventsProperties;
+import org.js.urlshortener.repository.OutboxEvent;
+import org.js.urlshortener.repository.UrlOutboxRepository;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Relays url_outbox to Kafka. A batch is read, sent, and deleted only once the broker has acknowledged
+ * every record, all in one transaction: a failure rolls the batch back to be sent again, so events are
+ * delivered at least once and consumers must be idempotent.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    private final UrlOutboxRepository urlOutboxRepository;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final LinkEventsProperties properties;
+    private final Counter published;
+    private final Counter failures;
+
+    public OutboxRelay(
+            UrlOutboxRepository urlOutboxRepository,
+            KafkaTemplate<String, String> kafkaTemplate,
+            TransactionTemplate transactionTemplate,
+            ObjectMapper objectMapper,
+            LinkEventsProperties properties,
+            MeterRegistry meterRegistry
+    ) {
+        this.urlOutboxRepository = urlOutboxRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.published = meterRegistry.counter("url.events.published");
+        this.failures = meterRegistry.counter("url.events.failures");
+    }
+
+    @Scheduled(fixedDelayString = "${url-shortener.events.relay-interval:PT0.2S}")
+    public void relay() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        for (int batch = 0; batch < properties.getMaxBatchesPerRun(); batch++) {
+            Integer sent;
+
+            try {
+                sent = transactionTemplate.execute(status -> relayBatch());
+            } catch (RuntimeException e) {
+                failures.increment();
+                log.warn("Failed to relay link events, retrying on the next run", e);
+                return;
+            }
+
+            if (sent == null || sent < properties.getBatchSize()) {
+                return;
+            }
+        }
+    }
+
+    private int relayBatch() {
+        if (!urlOutboxRepository.tryLockRelay()) {
+            return 0;
+        }
+
+        List<OutboxEvent> events = urlOutboxRepository.findOldest(properties.getBatchSize());
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        // Sent without waiting in between, so the producer batches them; a key's records keep their order
+        CompletableFuture<?>[] sends = events.stream()
+                .map(event -> kafkaTemplate.send(properties.getTopic(), event.shortCode(), toJson(event)))
+                .toArray(CompletableFuture[]::new);
+
+        try {
+            CompletableFuture.allOf(sends).get(properties.getSendTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while relaying link events", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Link events were not acknowledged", e);
+        }
+
+        urlOutboxRepository.delete(events.stream().map(OutboxEvent::id).toList());
+        published.increment(events.size());
+        log.debug("Relayed {} link events", events.size());
+        return events.size();
+    }
+
+    private String toJson(OutboxEvent event) {
+        try {
+            return objectMapper.writeValueAsString(
+                    new LinkEvent(event.eventType(), event.shortCode(), event.longUrl(), event.expiresAt()));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize link event " + event.id(), e);
+        }
+    }
+}
@@ -34,4 +34,7 @@ public class UrlEntity {
 
     @Column(name = "expires_at")
     private LocalDateTime expiresAt;
+
+    @Column(name = "long_url_hash")
+    private Long longUrlHash;
 }
@@ -0,0 +1,6 @@
+package org.js.urlshortener.repository;
+
+public record ImportProgress(long linesCommitted, long imported, long rejected) {
+
+    public static final ImportProgress NONE = new ImportProgress(0, 0, 0);
+}
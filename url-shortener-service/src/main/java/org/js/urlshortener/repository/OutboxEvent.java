@@ -0,0 +1,21 @@
+package org.js.urlshortener.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * A row of url_outbox.
+ *
+ * @param longUrl   Null for deletions
+ * @param expiresAt Null for deletions
+ */
+public record OutboxEvent(
+        long id,
+        String eventType,
+        String shortCode,
+        String longUrl,
+        LocalDateTime expiresAt
+) {
+
+    public static final String CREATED = "CREATED";
+    public static final String DELETED = "DELETED";
+}
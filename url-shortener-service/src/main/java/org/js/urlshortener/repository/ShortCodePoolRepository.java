@@ -0,0 +1,90 @@
+package org.js.urlshortener.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Plain JDBC access to short_code_pool. Each method is a single statement, so each runs in its own
+ * auto-commit transaction and row locks are held only for that statement, unless the caller has one open;
+ * ShortCodePool claims in a new transaction for that reason.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ShortCodePoolRepository {
+
+    private static final String INSERT_UNUSED =
+            "INSERT INTO short_code_pool (short_code) " +
+            "SELECT code FROM unnest(?) AS code " +
+            "WHERE NOT EXISTS (SELECT 1 FROM urls u WHERE u.short_code = code) " +
+            "ON CONFLICT DO NOTHING";
+    // SKIP LOCKED lets replicas claim concurrently without waiting on each other's chunks
+    private static final String CLAIM =
+            "UPDATE short_code_pool SET claimed_by = ?, claimed_at = now() " +
+            "WHERE short_code IN (" +
+            "SELECT p.short_code FROM short_code_pool p " +
+            "WHERE (p.claimed_at IS NULL OR p.claimed_at < now() - ? * INTERVAL '1 second') " +
+            "AND NOT EXISTS (SELECT 1 FROM urls u WHERE u.short_code = p.short_code) " +
+            "LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "RETURNING short_code";
+    private static final String RENEW_CLAIMS =
+            "UPDATE short_code_pool SET claimed_at = now() WHERE claimed_by = ?";
+    private static final String RELEASE =
+            "UPDATE short_code_pool SET claimed_by = NULL, claimed_at = NULL WHERE claimed_by = ? AND short_code = ANY (?)";
+    private static final String DELETE_USED =
+            "DELETE FROM short_code_pool p USING urls u WHERE p.short_code = u.short_code AND p.claimed_at IS NOT NULL";
+    private static final String COUNT_UNCLAIMED =
+            "SELECT count(*) FROM short_code_pool WHERE claimed_at IS NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Add codes to the pool, skipping any already pooled or already used by a link.
+     *
+     * @return Number of codes added
+     */
+    public int insertUnused(final Collection<String> shortCodes) {
+        return jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT_UNUSED);
+            statement.setArray(1, connection.createArrayOf("varchar", shortCodes.toArray()));
+            return statement;
+        });
+    }
+
+    /**
+     * Claim up to limit codes that are unclaimed, or whose claim has not been renewed within the lease.
+     */
+    public List<String> claim(final String claimedBy, final int limit, final Duration lease) {
+        return jdbcTemplate.queryForList(CLAIM, String.class, claimedBy, lease.toSeconds(), limit);
+    }
+
+    public int renewClaims(final String claimedBy) {
+        return jdbcTemplate.update(RENEW_CLAIMS, claimedBy);
+    }
+
+    /**
+     * Return unused codes to the pool right away instead of waiting for the lease to run out.
+     */
+    public int release(final String claimedBy, final Collection<String> shortCodes) {
+        return jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(RELEASE);
+            statement.setString(1, claimedBy);
+            statement.setArray(2, connection.createArrayOf("varchar", shortCodes.toArray()));
+            return statement;
+        });
+    }
+
+    public int deleteUsed() {
+        return jdbcTemplate.update(DELETE_USED);
+    }
+
+    public long countUnclaimed() {
+        Long count = jdbcTemplate.queryForObject(COUNT_UNCLAIMED, Long.class);
+        return count == null ? 0 : count;
+    }
+}
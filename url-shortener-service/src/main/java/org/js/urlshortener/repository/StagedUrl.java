@@ -0,0 +1,21 @@
+package org.js.urlshortener.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * A link staged for import.
+ *
+ * @param line        Line of the import stream it came from
+ * @param allocated   Whether the short code was allocated here rather than supplied by the import
+ * @param longUrlHash Dedup hash of the long URL, as stored for created links
+ */
+public record StagedUrl(
+        long line,
+        String shortCode,
+        String longUrl,
+        LocalDateTime createdAt,
+        LocalDateTime expiresAt,
+        boolean allocated,
+        long longUrlHash
+) {
+}
@@ -0,0 +1,70 @@
+package org.js.urlshortener.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.js.urlshortener.config.LinkEventsProperties;
+import org.js.urlshortener.persistence.entity.UrlEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Multi-row inserts for batch creation. The IDENTITY id stops Hibernate from batching inserts,
+ * so a chunk of links goes in as one statement over JDBC arrays instead: one round trip and one
+ * transaction per chunk, prepared once whatever the chunk size.
+ */
+@Repository
+@RequiredArgsConstructor
+public class UrlBatchRepository {
+
+    private static final String LINKS =
+            "SELECT * FROM unnest(?::varchar[], ?::text[], ?::timestamp[], ?::timestamp[], ?::bigint[]) " +
+            "AS l (short_code, long_url, created_at, expires_at, long_url_hash)";
+    private static final String INSERT_IGNORING_TAKEN_CODES =
+            UrlLinkInserts.skippingTakenCodes(LINKS);
+    private static final String INSERT_IGNORING_TAKEN_CODES_RECORDING_EVENTS =
+            UrlLinkInserts.skippingTakenCodesRecordingEvents(LINKS);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LinkEventsProperties linkEventsProperties;
+
+    /**
+     * Insert the links whose short code is free; those whose code is already taken are skipped.
+     * Short codes within one call must be distinct. With link events enabled, the same statement records
+     * a created event per inserted link.
+     *
+     * @return Short codes of the links inserted
+     */
+    public Set<String> insertIgnoringTakenCodes(final List<UrlEntity> urls) {
+        String[] shortCodes = new String[urls.size()];
+        String[] longUrls = new String[urls.size()];
+        Timestamp[] createdAt = new Timestamp[urls.size()];
+        Timestamp[] expiresAt = new Timestamp[urls.size()];
+        Long[] longUrlHashes = new Long[urls.size()];
+
+        for (int i = 0; i < urls.size(); i++) {
+            UrlEntity url = urls.get(i);
+            shortCodes[i] = url.getShortCode();
+            longUrls[i] = url.getLongUrl();
+            createdAt[i] = url.getCreatedAt() == null ? null : Timestamp.valueOf(url.getCreatedAt());
+            expiresAt[i] = url.getExpiresAt() == null ? null : Timestamp.valueOf(url.getExpiresAt());
+            longUrlHashes[i] = url.getLongUrlHash();
+        }
+
+        return new HashSet<>(jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(linkEventsProperties.isEnabled()
+                    ? INSERT_IGNORING_TAKEN_CODES_RECORDING_EVENTS
+                    : INSERT_IGNORING_TAKEN_CODES);
+            statement.setArray(1, connection.createArrayOf("varchar", shortCodes));
+            statement.setArray(2, connection.createArrayOf("text", longUrls));
+            statement.setArray(3, connection.createArrayOf("timestamp", createdAt));
+            statement.setArray(4, connection.createArrayOf("timestamp", expiresAt));
+            statement.setArray(5, connection.createArrayOf("bigint", longUrlHashes));
+            return statement;
+        }, (resultSet, rowNum) -> resultSet.getString(1)));
+    }
+}
@@ -0,0 +1,116 @@
+package org.js.urlshortener.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.js.urlshortener.config.LinkEventsProperties;
+import org.postgresql.PGConnection;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Bulk import writes. A chunk is streamed with COPY into a session-local staging table, then moved into
+ * the links tables with one INSERT ... SELECT that skips taken codes, which COPY alone cannot do.
+ */
+@Repository
+@RequiredArgsConstructor
+public class UrlImportRepository {
+
+    // Kept for the session (so not recreated per chunk) and emptied by every commit
+    private static final String CREATE_STAGING =
+            "CREATE TEMP TABLE IF NOT EXISTS url_import_staging (" +
+            "line_no BIGINT, short_code VARCHAR(10), long_url TEXT, " +
+            "created_at TIMESTAMP, expires_at TIMESTAMP, allocated BOOLEAN, long_url_hash BIGINT) ON COMMIT DELETE ROWS";
+    private static final String COPY_STAGING =
+            "COPY url_import_staging (line_no, short_code, long_url, created_at, expires_at, allocated, long_url_hash) " +
+            "FROM STDIN (FORMAT csv)";
+    // Within a chunk, a supplied code wins over an allocated one, then the earliest line wins
+    private static final String STAGED_LINKS =
+            "SELECT DISTINCT ON (short_code) short_code, long_url, created_at, expires_at, long_url_hash " +
+            "FROM url_import_staging ORDER BY short_code, allocated, line_no";
+    private static final String INSERT_FROM_STAGING =
+            UrlLinkInserts.skippingTakenCodes(STAGED_LINKS);
+    private static final String INSERT_FROM_STAGING_RECORDING_EVENTS =
+            UrlLinkInserts.skippingTakenCodesRecordingEvents(STAGED_LINKS);
+    private static final String FIND_PROGRESS =
+            "SELECT lines_committed, imported, rejected FROM url_imports WHERE import_id = ?";
+    private static final String SAVE_PROGRESS =
+            "INSERT INTO url_imports (import_id, lines_committed, imported, rejected, updated_at) " +
+            "VALUES (?, ?, ?, ?, now()) " +
+            "ON CONFLICT (import_id) DO UPDATE SET lines_committed = EXCLUDED.lines_committed, " +
+            "imported = EXCLUDED.imported, rejected = EXCLUDED.rejected, updated_at = now()";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LinkEventsProperties linkEventsProperties;
+
+    /**
+     * Copy the links into urls, skipping those whose short code is taken.
+     * Must run inside a transaction, as the staging table is emptied on commit. With link events enabled,
+     * the insert also records a created event per inserted link.
+     *
+     * @return Short codes of the links inserted
+     */
+    public Set<String> copyAndInsert(final List<StagedUrl> urls) {
+        jdbcTemplate.execute(CREATE_STAGING);
+        jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI()
+                        .copyIn(COPY_STAGING, new StringReader(toCsv(urls)));
+            } catch (IOException e) {
+                throw new DataAccessResourceFailureException("COPY into url_import_staging failed", e);
+            }
+        });
+
+        return new HashSet<>(jdbcTemplate.query(
+                linkEventsProperties.isEnabled() ? INSERT_FROM_STAGING_RECORDING_EVENTS : INSERT_FROM_STAGING,
+                (resultSet, rowNum) -> resultSet.getString(1)));
+    }
+
+    public ImportProgress findProgress(final String importId) {
+        return jdbcTemplate.query(FIND_PROGRESS, (resultSet, rowNum) -> new ImportProgress(
+                        resultSet.getLong(1), resultSet.getLong(2), resultSet.getLong(3)), importId)
+                .stream()
+                .findFirst()
+                .orElse(ImportProgress.NONE);
+    }
+
+    public void saveProgress(final String importId, final ImportProgress progress) {
+        jdbcTemplate.update(SAVE_PROGRESS,
+                importId, progress.linesCommitted(), progress.imported(), progress.rejected());
+    }
+
+    private static String toCsv(final List<StagedUrl> urls) {
+        StringBuilder csv = new StringBuilder(urls.size() * 128);
+
+        for (StagedUrl url : urls) {
+            csv.append(url.line()).append(',')
+                    .append(url.shortCode()).append(',');
+            appendQuoted(csv, url.longUrl());
+            csv.append(',').append(url.createdAt())
+                    .append(',').append(url.expiresAt())
+                    .append(',').append(url.allocated())
+                    .append(',').append(url.longUrlHash())
+                    .append('\n');
+        }
+
+        return csv.toString();
+    }
+
+    private static void appendQuoted(final StringBuilder csv, final String value) {
+        csv.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                csv.append('"');
+            }
+            csv.append(c);
+        }
+        csv.append('"');
+    }
+}
@@ -0,0 +1,46 @@
+package org.js.urlshortener.repository;
+
+/**
+ * Multi-row link inserts that skip taken short codes. urls is a view whose writes go through INSTEAD OF
+ * triggers (V12), which ON CONFLICT cannot be used with, so codes are claimed in url_codes first and only
+ * the claimed links are inserted into url_links, in one statement. The claim also writes url_codes' copy
+ * of long_url and expires_at (V14).
+ */
+final class UrlLinkInserts {
+
+    private static final String CLAIM_CODES =
+            "claimed AS (INSERT INTO url_codes (short_code, expires_on, long_url, expires_at) " +
+            "SELECT short_code, url_expires_on(expires_at), long_url, expires_at FROM input " +
+            "ON CONFLICT (short_code) DO NOTHING " +
+            "RETURNING short_code)";
+    private static final String INSERT_CLAIMED =
+            "INSERT INTO url_links (id, short_code, long_url, created_at, expires_at, expires_on, long_url_hash) " +
+            "SELECT nextval('urls_id_seq'), i.short_code, i.long_url, i.created_at, i.expires_at, " +
+            "url_expires_on(i.expires_at), i.long_url_hash " +
+            "FROM input i JOIN claimed USING (short_code) " +
+            "RETURNING short_code, long_url, expires_at";
+
+    private UrlLinkInserts() {
+    }
+
+    /**
+     * @param input Query of the links to insert, as (short_code, long_url, created_at, expires_at, long_url_hash)
+     *              with distinct short codes
+     * @return Statement returning the inserted short codes
+     */
+    static String skippingTakenCodes(final String input) {
+        return "WITH input AS (" + input + "), " + CLAIM_CODES + ", " +
+               "inserted AS (" + INSERT_CLAIMED + ") " +
+               "SELECT short_code FROM inserted";
+    }
+
+    /**
+     * {@link #skippingTakenCodes(String)} that also records a created event per inserted link.
+     */
+    static String skippingTakenCodesRecordingEvents(final String input) {
+        return "WITH input AS (" + input + "), " + CLAIM_CODES + ", " +
+               "inserted AS (" + INSERT_CLAIMED + "), " +
+               UrlOutboxRepository.createdEventsOf("inserted") + " " +
+               "SELECT short_code FROM inserted";
+    }
+}
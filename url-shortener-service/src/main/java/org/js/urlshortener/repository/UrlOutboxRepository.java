@@ -0,0 +1,98 @@
+package org.js.urlshortener.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.js.urlshortener.persistence.entity.UrlEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Plain JDBC access to url_outbox. Events must be appended in the transaction that makes the change they
+ * describe, so either both commit or neither does.
+ */
+@Repository
+@RequiredArgsConstructor
+public class UrlOutboxRepository {
+
+    private static final String APPEND =
+            "INSERT INTO url_outbox (event_type, short_code, long_url, expires_at) " +
+            "SELECT ?::varchar, * FROM unnest(?::varchar[], ?::text[], ?::timestamp[])";
+    // One relay at a time across replicas, so events leave in the order they were read
+    private static final String TRY_LOCK_RELAY =
+            "SELECT pg_try_advisory_xact_lock(?)";
+    private static final String FIND_OLDEST =
+            "SELECT id, event_type, short_code, long_url, expires_at FROM url_outbox ORDER BY id LIMIT ?";
+    private static final String DELETE =
+            "DELETE FROM url_outbox WHERE id = ANY (?)";
+
+    private static final long RELAY_LOCK_KEY = 0x75726C5F6F757462L;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * CTE recording a created event for each row of the named CTE, which returns short_code, long_url and
+     * expires_at of inserted links: used to record events in the same statement as a multi-row insert.
+     */
+    static String createdEventsOf(final String insertedCte) {
+        return "outbox AS (INSERT INTO url_outbox (event_type, short_code, long_url, expires_at) " +
+               "SELECT '" + OutboxEvent.CREATED + "', short_code, long_url, expires_at FROM " + insertedCte + ")";
+    }
+
+    public void append(final String eventType, final List<UrlEntity> urls) {
+        String[] shortCodes = new String[urls.size()];
+        String[] longUrls = new String[urls.size()];
+        Timestamp[] expiresAt = new Timestamp[urls.size()];
+
+        for (int i = 0; i < urls.size(); i++) {
+            UrlEntity url = urls.get(i);
+            shortCodes[i] = url.getShortCode();
+            longUrls[i] = OutboxEvent.DELETED.equals(eventType) ? null : url.getLongUrl();
+            expiresAt[i] = OutboxEvent.DELETED.equals(eventType) || url.getExpiresAt() == null
+                    ? null
+                    : Timestamp.valueOf(url.getExpiresAt());
+        }
+
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(APPEND);
+            statement.setString(1, eventType);
+            statement.setArray(2, connection.createArrayOf("varchar", shortCodes));
+            statement.setArray(3, connection.createArrayOf("text", longUrls));
+            statement.setArray(4, connection.createArrayOf("timestamp", expiresAt));
+            return statement;
+        });
+    }
+
+    /**
+     * Take the relay lock until the current transaction ends.
+     *
+     * @return false if another relay holds it
+     */
+    public boolean tryLockRelay() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(TRY_LOCK_RELAY, Boolean.class, RELAY_LOCK_KEY));
+    }
+
+    public List<OutboxEvent> findOldest(final int limit) {
+        return jdbcTemplate.query(FIND_OLDEST, (resultSet, rowNum) -> {
+            Timestamp expiresAt = resultSet.getTimestamp("expires_at");
+
+            return new OutboxEvent(
+                    resultSet.getLong("id"),
+                    resultSet.getString("event_type"),
+                    resultSet.getString("short_code"),
+                    resultSet.getString("long_url"),
+                    expiresAt == null ? null : expiresAt.toLocalDateTime());
+        }, limit);
+    }
+
+    public int delete(final Collection<Long> ids) {
+        return jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(DELETE);
+            statement.setArray(1, connection.createArrayOf("bigint", ids.toArray()));
+            return statement;
+        });
+    }
+}
@@ -0,0 +1,131 @@
+package org.js.urlshortener.repository;
+
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.js.urlshortener.config.PartitionProperties;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Maintenance of the expiry-date partitions behind the urls view (see V12, V13). A link is resolvable while
+ * its code is in url_codes; once the codes of a partition are released, the partition can be dropped.
+ */
+@Repository
+@RequiredArgsConstructor
+public class UrlPartitionRepository {
+
+    private static final String SET_LOCK_TIMEOUT =
+            "SET LOCAL lock_timeout = '%dms'";
+    private static final String SET_SESSION_LOCK_TIMEOUT =
+            "SET lock_timeout = '%dms'";
+    private static final String RESET_LOCK_TIMEOUT =
+            "RESET lock_timeout";
+    private static final String CREATE_PARTITIONS =
+            "SELECT url_links_create_partitions(?, ?)";
+    private static final String RELEASE_EXPIRED_CODES =
+            "DELETE FROM url_codes WHERE short_code IN (" +
+            "SELECT short_code FROM url_codes WHERE expires_on < ? ORDER BY expires_on LIMIT ? FOR UPDATE SKIP LOCKED)";
+    private static final String FIND_OLDEST_EXPIRED_CODE =
+            "SELECT min(expires_on) FROM url_codes WHERE expires_on < ?";
+    // Partitions whose whole range is before the given date (url_links_never ends at MAXVALUE, which the
+    // pattern skips), first any left detached but not dropped by an earlier run
+    private static final String FIND_PARTITIONS_BEFORE =
+            "SELECT relname FROM (" +
+            "SELECT c.relname, false AS detached, " +
+            "substring(pg_get_expr(c.relpartbound, c.oid) FROM 'TO \\(''([^'']+)''\\)')::date AS upper_bound " +
+            "FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+            "WHERE i.inhparent = 'url_links'::regclass " +
+            "UNION ALL " +
+            "SELECT c.relname, true, NULL FROM pg_class c " +
+            "WHERE c.relname LIKE 'url\\_links\\_%' AND c.relkind = 'r' AND NOT c.relispartition " +
+            "AND c.relnamespace = (SELECT relnamespace FROM pg_class WHERE oid = 'url_links'::regclass)) p " +
+            "WHERE detached OR upper_bound <= ? ORDER BY detached DESC, upper_bound";
+    // One row if still a partition: true if an earlier concurrent detach was interrupted
+    private static final String FIND_DETACH_PENDING =
+            "SELECT inhdetachpending FROM pg_inherits WHERE inhrelid = to_regclass(?) AND inhparent = 'url_links'::regclass";
+    private static final String DETACH_PARTITION =
+            "ALTER TABLE url_links DETACH PARTITION %s CONCURRENTLY";
+    private static final String FINALIZE_DETACH_PARTITION =
+            "ALTER TABLE url_links DETACH PARTITION %s FINALIZE";
+    private static final String DROP_PARTITION =
+            "DROP TABLE IF EXISTS %s";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PartitionProperties properties;
+
+    /**
+     * Create partitions after the last one until the given date is covered.
+     *
+     * @return Number of partitions created
+     */
+    @Transactional
+    public int createPartitionsUntil(final LocalDate until) {
+        setLockTimeout();
+        Integer created = jdbcTemplate.queryForObject(CREATE_PARTITIONS, Integer.class, until, properties.getDays());
+        return created == null ? 0 : created;
+    }
+
+    /**
+     * Release up to batchSize codes of links that expired before the given date: their links stop
+     * resolving, and the codes can be used again. SKIP LOCKED lets replicas release concurrently.
+     *
+     * @return Number of codes released
+     */
+    @Transactional
+    public int releaseExpiredCodes(final LocalDate before, final int batchSize) {
+        return jdbcTemplate.update(RELEASE_EXPIRED_CODES, before, batchSize);
+    }
+
+    /**
+     * @return Expiry date of the oldest code not yet released, or null if all are
+     */
+    public LocalDate findOldestExpiredCode(final LocalDate before) {
+        return jdbcTemplate.queryForObject(FIND_OLDEST_EXPIRED_CODE, LocalDate.class, before);
+    }
+
+    public List<String> findPartitionsBefore(final LocalDate before) {
+        return jdbcTemplate.queryForList(FIND_PARTITIONS_BEFORE, String.class, before);
+    }
+
+    /**
+     * Drop a partition found by {@link #findPartitionsBefore(LocalDate)}. Its codes must have been released.
+     * <p>
+     * It is detached CONCURRENTLY first, which only takes a SHARE UPDATE EXCLUSIVE lock on url_links, so
+     * lookups and inserts carry on; dropping the detached table then locks nothing they use. CONCURRENTLY
+     * cannot run in a transaction, so neither can this. A detach interrupted by the lock timeout is
+     * finalized on the next run.
+     */
+    public void dropPartition(final String partition) {
+        String table = quoteIdentifier(partition);
+        List<Boolean> detachPending = jdbcTemplate.queryForList(FIND_DETACH_PENDING, Boolean.class, table);
+
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                // Session-wide, as each statement commits on its own; reset before the connection is reused
+                statement.execute(SET_SESSION_LOCK_TIMEOUT.formatted(properties.getLockTimeout().toMillis()));
+                try {
+                    if (!detachPending.isEmpty()) {
+                        statement.execute((detachPending.get(0) ? FINALIZE_DETACH_PARTITION : DETACH_PARTITION).formatted(table));
+                    }
+                    statement.execute(DROP_PARTITION.formatted(table));
+                } finally {
+                    statement.execute(RESET_LOCK_TIMEOUT);
+                }
+            }
+            return null;
+        });
+    }
+
+    private void setLockTimeout() {
+        jdbcTemplate.execute(SET_LOCK_TIMEOUT.formatted(properties.getLockTimeout().toMillis()));
+    }
+
+    private static String quoteIdentifier(final String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -1,12 +1,37 @@
 package org.js.urlshortener.repository;
 
+import jakarta.transaction.Transactional;
 import org.js.urlshortener.persistence.entity.UrlEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 public interface UrlRepository extends JpaRepository<UrlEntity, Long> {
     Optional<UrlEntity> findByShortCode(final String shortCode);
 
+    boolean existsByShortCode(final String shortCode);
+
     void deleteByShortCode(final String shortCode);
+
+    /**
+     * Links with the given long URL hash valid until at least expiresAt, earliest-expiring first.
+     * Hashes can collide: callers must compare the URLs.
+     */
+    @Query("select u from UrlEntity u where u.longUrlHash = :hash and u.expiresAt >= :expiresAt order by u.expiresAt")
+    List<UrlEntity> findValidByLongUrlHash(@Param("hash") final long hash, @Param("expiresAt") final LocalDateTime expiresAt);
+
+    /**
+     * Lease the next block of short code ids: the block starts at the returned value and spans the
+     * sequence's increment. Not read-only, as nextval is refused in read-only transactions.
+     */
+    @Transactional
+    @Query(value = "SELECT nextval('short_code_id_seq')", nativeQuery = true)
+    long leaseShortCodeIdBlock();
+
+    @Query(value = "SELECT increment_by FROM pg_sequences WHERE sequencename = 'short_code_id_seq'", nativeQuery = true)
+    long findShortCodeIdBlockSize();
 }
@@ -0,0 +1,117 @@
+package org.js.urlshortener.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.js.urlshortener.config.ReaperProperties;
+import org.js.urlshortener.repository.UrlPartitionRepository;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Removes expired links in the background, so neither create nor redirect requests delete rows inline.
+ * <p>
+ * Links are partitioned by expiry date (see V12, V13). The codes of links that expired before today are
+ * released in bounded and throttled batches, which removes the links from urls. Partitions left with
+ * only released links are then detached and dropped whole.
+ */
+@Component
+@Slf4j
+public class ExpiredUrlReaper {
+
+    private final UrlPartitionRepository urlPartitionRepository;
+    private final ReaperProperties properties;
+    private final Counter codesReleased;
+    private final Counter partitionsDropped;
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    public ExpiredUrlReaper(
+            UrlPartitionRepository urlPartitionRepository,
+            ReaperProperties properties,
+            MeterRegistry meterRegistry
+    ) {
+        this.urlPartitionRepository = urlPartitionRepository;
+        this.properties = properties;
+        this.codesReleased = meterRegistry.counter("url.reaper.rows");
+        this.partitionsDropped = meterRegistry.counter("url.reaper.partitions");
+
+        // Time since the oldest expired link still present became releasable, i.e. how far behind the reaper is
+        Gauge.builder("url.reaper.lag", lagSeconds, AtomicLong::get)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${url-shortener.reaper.interval:PT1M}")
+    public void reap() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        LocalDate today = LocalDate.now();
+        long released = 0;
+        boolean drained = false;
+
+        for (int batch = 0; batch < properties.getMaxBatchesPerRun(); batch++) {
+            int count = urlPartitionRepository.releaseExpiredCodes(today, properties.getBatchSize());
+            codesReleased.increment(count);
+            released += count;
+
+            if (count < properties.getBatchSize()) {
+                drained = true;
+                break;
+            }
+
+            if (!pause()) {
+                break;
+            }
+        }
+
+        // A partition is only dropped once none of its codes is left, or its codes would look free while taken
+        if (drained) {
+            dropExpiredPartitions(today);
+        }
+
+        LocalDate oldestExpired = urlPartitionRepository.findOldestExpiredCode(today);
+        lagSeconds.set(oldestExpired == null
+                ? 0
+                : Math.max(0, Duration.between(oldestExpired.plusDays(1).atStartOfDay(), LocalDateTime.now()).toSeconds()));
+
+        if (released > 0) {
+            log.info("Reaped {} expired URLs (lag: {}s)", released, lagSeconds.get());
+        }
+    }
+
+    private void dropExpiredPartitions(LocalDate today) {
+        for (String partition : urlPartitionRepository.findPartitionsBefore(today)) {
+            try {
+                urlPartitionRepository.dropPartition(partition);
+                partitionsDropped.increment();
+                log.info("Dropped expired partition {}", partition);
+            } catch (DataAccessException e) {
+                // Typically the lock timeout; the next run retries
+                log.warn("Failed to drop expired partition {}", partition, e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return false if interrupted
+     */
+    private boolean pause() {
+        try {
+            Thread.sleep(properties.getPauseBetweenBatches());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.js.urlshortener.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.js.urlshortener.repository.UrlRepository;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hands out unique ids for counter-generated short codes.
+ * Ids are leased from {@code short_code_id_seq} a block at a time, so replicas never share an id and
+ * only one create in every block size queries the database.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ShortCodeIdAllocator {
+
+    private final UrlRepository urlRepository;
+
+    private long blockSize;
+    private long next;
+    private long end;
+
+    public synchronized long nextId() {
+        if (next == end) {
+            if (blockSize == 0) {
+                blockSize = urlRepository.findShortCodeIdBlockSize();
+            }
+
+            next = urlRepository.leaseShortCodeIdBlock();
+            end = next + blockSize;
+            log.debug("Leased short code ids [{}, {})", next, end);
+        }
+
+        return next++;
+    }
+}
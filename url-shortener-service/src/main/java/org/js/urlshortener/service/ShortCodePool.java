@@ -0,0 +1,235 @@
+package org.js.urlshortener.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.js.urlshortener.config.CodePoolProperties;
+import org.js.urlshortener.config.ShortCodeProperties;
+import org.js.urlshortener.repository.ShortCodePoolRepository;
+import org.js.urlshortener.utils.UrlShortCodeUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pre-generated short codes for the POOL strategy, so a create takes a code from memory instead of
+ * drawing random ones and looking each up.
+ * <p>
+ * A scheduled refill keeps short_code_pool above its low-water mark with codes not used by any link.
+ * Each replica claims chunks of them into a local queue, claiming the next chunk in the background before
+ * the queue runs dry, and renews its claims while it holds them. Claims of a crashed replica stop being
+ * renewed and are reclaimed by others once the lease runs out; on shutdown unused codes are released at once.
+ * A code is only known to be free when it is claimed; the create's insert claims it in url_codes, and a code
+ * whose create does not commit goes back to the local queue. A chunk is claimed in a transaction of its own,
+ * even when a create claims it inline, so the pool rows are locked only for the claim and a rolled back create
+ * does not undo the claim of codes already queued here.
+ */
+@Component
+@Slf4j
+public class ShortCodePool {
+
+    private final ShortCodePoolRepository shortCodePoolRepository;
+    private final UrlShortCodeUtils urlShortCodeUtils;
+    private final ShortCodeProperties shortCodeProperties;
+    private final CodePoolProperties properties;
+    private final TransactionTemplate claimTransaction;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final BlockingQueue<String> codes = new LinkedBlockingQueue<>();
+    private final AtomicBoolean claiming = new AtomicBoolean();
+    private final AtomicLong unclaimed = new AtomicLong();
+    private final ThreadPoolExecutor claimExecutor;
+    private final Timer refillTimer;
+    private final Timer claimTimer;
+    private final Counter exhausted;
+
+    public ShortCodePool(
+            ShortCodePoolRepository shortCodePoolRepository,
+            UrlShortCodeUtils urlShortCodeUtils,
+            ShortCodeProperties shortCodeProperties,
+            CodePoolProperties properties,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry
+    ) {
+        this.shortCodePoolRepository = shortCodePoolRepository;
+        this.urlShortCodeUtils = urlShortCodeUtils;
+        this.shortCodeProperties = shortCodeProperties;
+        this.properties = properties;
+        this.claimTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.claimTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.claimExecutor = new ThreadPoolExecutor(
+                1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1),
+                // At most one background claim at a time; take() claims inline if it falls behind
+                new ThreadPoolExecutor.DiscardPolicy()
+        );
+        this.refillTimer = Timer.builder("url.codepool.refill").register(meterRegistry);
+        this.claimTimer = Timer.builder("url.codepool.claim").register(meterRegistry);
+        this.exhausted = meterRegistry.counter("url.codepool.exhausted");
+
+        Gauge.builder("url.codepool.depth", codes, BlockingQueue::size).register(meterRegistry);
+        Gauge.builder("url.codepool.unclaimed", unclaimed, AtomicLong::get).register(meterRegistry);
+    }
+
+    /**
+     * Taken inside a transaction, the code is put back if the transaction does not commit.
+     *
+     * @return A code no link used when it was pooled, or null if the pool is empty
+     */
+    public String take() {
+        String shortCode = codes.poll();
+
+        if (shortCode == null) {
+            // Drained faster than the background claim could keep up
+            try {
+                claimChunk();
+            } catch (DataAccessException e) {
+                log.warn("Failed to claim short codes", e);
+            }
+            shortCode = codes.poll();
+        }
+
+        if (codes.size() < properties.getLocalLowWaterMark()) {
+            claimAsync();
+        }
+
+        if (shortCode == null) {
+            exhausted.increment();
+        } else if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            String taken = shortCode;
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        putBack(List.of(taken));
+                    }
+                }
+            });
+        }
+        return shortCode;
+    }
+
+    /**
+     * Return codes that were taken but not used, e.g. because their insert failed. They are still claimed
+     * by this replica, so they are handed out again from memory instead of waiting for the lease to run out.
+     * A code found taken in the meantime is skipped by the next create's insert.
+     */
+    public void putBack(final Collection<String> shortCodes) {
+        codes.addAll(shortCodes);
+    }
+
+    @Scheduled(fixedDelayString = "${url-shortener.code-pool.refill-interval:PT10S}")
+    public void refill() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        long startedAt = System.nanoTime();
+        shortCodePoolRepository.deleteUsed();
+        long available = shortCodePoolRepository.countUnclaimed();
+        long added = 0;
+
+        for (int batch = 0; batch < properties.getMaxRefillBatchesPerRun()
+                && available + added < properties.getLowWaterMark(); batch++) {
+            Set<String> generated = new LinkedHashSet<>();
+            while (generated.size() < properties.getRefillBatchSize()) {
+                generated.add(urlShortCodeUtils.generateShortCode());
+            }
+
+            added += shortCodePoolRepository.insertUnused(generated);
+        }
+
+        unclaimed.set(available + added);
+
+        if (added > 0) {
+            refillTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            log.info("Refilled short code pool with {} codes, {} unclaimed", added, available + added);
+        }
+    }
+
+    /**
+     * Keep this replica's claims alive, so they are not reclaimed while their codes are still queued here.
+     */
+    @Scheduled(fixedDelayString = "${url-shortener.code-pool.renew-interval:PT1M}")
+    public void renewClaims() {
+        if (isEnabled()) {
+            shortCodePoolRepository.renewClaims(instanceId);
+        }
+    }
+
+    @PreDestroy
+    public void release() {
+        claimExecutor.shutdownNow();
+
+        List<String> unused = new ArrayList<>();
+        codes.drainTo(unused);
+
+        if (unused.isEmpty()) {
+            return;
+        }
+
+        try {
+            shortCodePoolRepository.release(instanceId, unused);
+            log.info("Released {} unused short codes", unused.size());
+        } catch (DataAccessException e) {
+            // They are reclaimed once the lease runs out
+            log.warn("Failed to release {} unused short codes", unused.size(), e);
+        }
+    }
+
+    private void claimAsync() {
+        if (!claiming.compareAndSet(false, true)) {
+            return;
+        }
+
+        claimExecutor.execute(() -> {
+            try {
+                claimChunk();
+            } catch (RuntimeException e) {
+                log.warn("Failed to claim short codes", e);
+            } finally {
+                claiming.set(false);
+            }
+        });
+    }
+
+    private synchronized void claimChunk() {
+        // Another thread may have claimed while this one waited
+        if (codes.size() >= properties.getLocalLowWaterMark() && !codes.isEmpty()) {
+            return;
+        }
+
+        // Never part of the create that may be claiming inline
+        List<String> claimed = claimTimer.record(() -> claimTransaction.execute(status ->
+                shortCodePoolRepository.claim(instanceId, properties.getClaimSize(), properties.getClaimLease())));
+
+        if (claimed != null) {
+            codes.addAll(claimed);
+            log.debug("Claimed {} short codes", claimed.size());
+        }
+    }
+
+    private boolean isEnabled() {
+        return shortCodeProperties.getStrategy() == ShortCodeProperties.Strategy.POOL;
+    }
+}
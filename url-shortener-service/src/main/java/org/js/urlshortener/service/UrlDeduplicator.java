@@ -0,0 +1,135 @@
+package org.js.urlshortener.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.js.urlshortener.config.DedupProperties;
+import org.js.urlshortener.persistence.entity.UrlEntity;
+import org.js.urlshortener.repository.UrlRepository;
+import org.js.urlshortener.utils.LongUrls;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Finds an existing link for a long URL, so repeated creates of the same URL can share one code.
+ * <p>
+ * URLs are matched on a fixed-width hash of their canonical form ({@link LongUrls#canonicalize}), stored in
+ * an indexed column, and confirmed by comparing the canonical URLs. A link is only reused if it stays valid at least as long
+ * as the new one would; otherwise a new link is created, which then serves later requests.
+ * Recently created links are also kept in memory, keyed by hash; since another replica may have deleted one,
+ * a remembered link is confirmed to still exist (one indexed lookup) before it is reused.
+ */
+@Component
+@Slf4j
+public class UrlDeduplicator {
+
+    private record RecentLink(String canonicalUrl, UrlEntity urlEntity) {
+    }
+
+    private final UrlRepository urlRepository;
+    private final DedupProperties properties;
+    private final Cache<Long, RecentLink> recentLinks;
+    private final Counter reused;
+
+    public UrlDeduplicator(UrlRepository urlRepository, DedupProperties properties, MeterRegistry meterRegistry) {
+        this.urlRepository = urlRepository;
+        this.properties = properties;
+        this.recentLinks = Caffeine.newBuilder()
+                .maximumSize(properties.getRecentCacheSize())
+                .expireAfterWrite(properties.getRecentCacheTimeToLive())
+                .build();
+        this.reused = meterRegistry.counter("url.dedup.reused");
+    }
+
+    /**
+     * @return A link for the same URL valid until at least expiresAt, if dedup is enabled and there is one
+     */
+    public Optional<UrlEntity> findReusable(final String longUrl, final LocalDateTime expiresAt) {
+        if (!properties.isEnabled()) {
+            return Optional.empty();
+        }
+
+        String canonicalUrl = canonical(longUrl);
+        long hash = hash(canonicalUrl);
+
+        RecentLink recent = recentLinks.getIfPresent(hash);
+        if (recent != null && recent.canonicalUrl().equals(canonicalUrl)
+                && !recent.urlEntity().getExpiresAt().isBefore(expiresAt)) {
+            if (urlRepository.existsByShortCode(recent.urlEntity().getShortCode())) {
+                reused.increment();
+                return Optional.of(recent.urlEntity());
+            }
+            recentLinks.invalidate(hash);
+        }
+
+        // The earliest-expiring link that still covers the request, so links outlive what was asked as little as possible
+        Optional<UrlEntity> existing = urlRepository.findValidByLongUrlHash(hash, expiresAt).stream()
+                .filter(urlEntity -> canonical(urlEntity.getLongUrl()).equals(canonicalUrl))
+                .findFirst();
+
+        existing.ifPresent(urlEntity -> {
+            reused.increment();
+            remember(canonicalUrl, hash, urlEntity);
+        });
+        return existing;
+    }
+
+    /**
+     * Keep a newly created link in memory for the next request of the same URL.
+     */
+    public void remember(final UrlEntity urlEntity) {
+        if (properties.isEnabled()) {
+            String canonicalUrl = canonical(urlEntity.getLongUrl());
+            remember(canonicalUrl, hash(canonicalUrl), urlEntity);
+        }
+    }
+
+    /**
+     * Drop a deleted link from this replica's memory; other replicas find out when they next confirm it.
+     */
+    public void forget(final String shortCode) {
+        recentLinks.asMap().values().removeIf(recent -> recent.urlEntity().getShortCode().equals(shortCode));
+    }
+
+    /**
+     * Hash stored with every link, whether or not dedup is enabled, so enabling it later finds them.
+     */
+    public long hashOf(final String longUrl) {
+        return hash(canonical(longUrl));
+    }
+
+    private void remember(final String canonicalUrl, final long hash, final UrlEntity urlEntity) {
+        RecentLink current = recentLinks.getIfPresent(hash);
+
+        // Keep whichever link lives longest, as it can serve the most requests
+        if (current == null || current.urlEntity().getExpiresAt().isBefore(urlEntity.getExpiresAt())) {
+            recentLinks.put(hash, new RecentLink(canonicalUrl, urlEntity));
+        }
+    }
+
+    /**
+     * The form links are stored in, which callers already pass. Links stored before URLs were
+     * canonicalized may not be; one that is not a valid URL any more only matches itself.
+     */
+    private static String canonical(final String longUrl) {
+        String canonical = LongUrls.canonicalize(longUrl);
+        return canonical == null ? longUrl : canonical;
+    }
+
+    private static long hash(final String canonicalUrl) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonicalUrl.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,418 @@
+package org.js.urlshortener.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.js.urlshortener.cache.RedirectCacheClient;
+import org.js.urlshortener.config.ImportProperties;
+import org.js.urlshortener.controller.model.ImportEvent;
+import org.js.urlshortener.controller.model.PostUrlShortenRequest;
+import org.js.urlshortener.persistence.entity.UrlEntity;
+import org.js.urlshortener.repository.ImportProgress;
+import org.js.urlshortener.repository.StagedUrl;
+import org.js.urlshortener.repository.UrlBatchRepository;
+import org.js.urlshortener.repository.UrlImportRepository;
+import org.js.urlshortener.utils.LongUrls;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static org.js.urlshortener.service.UrlShortenerService.DEFAULT_VALID_FOR_DAYS;
+import static org.js.urlshortener.service.UrlShortenerService.MAX_COLLISION_RETRIES;
+import static org.js.urlshortener.service.UrlShortenerService.rejectionReason;
+
+/**
+ * Streaming bulk import of existing links, for migrations from other shorteners.
+ * <p>
+ * Rows are read a line at a time and written a chunk at a time through COPY, so memory is bounded by the
+ * chunk size and the client is slowed to the database's pace by the blocking reads. Each chunk commits
+ * together with the import's progress, so an import with an id can be resumed by sending the same stream
+ * again: lines already committed are skipped.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class UrlImportService {
+
+    public enum Format {
+        NDJSON,
+        /**
+         * {@code url[,shortCode[,validForDays]]}, optionally quoted; a first line whose first field is "url" is a header.
+         */
+        CSV
+    }
+
+    private static final Pattern SHORT_CODE = Pattern.compile("[0-9A-Za-z]{1,10}");
+    private static final Pattern IMPORT_ID = Pattern.compile("[0-9A-Za-z_-]{1,64}");
+    private static final int END_OF_STREAM = -1;
+    private static final int TOO_LONG = -2;
+
+    private final UrlImportRepository urlImportRepository;
+    private final UrlBatchRepository urlBatchRepository;
+    private final UrlShortenerService urlShortenerService;
+    private final RedirectCacheClient redirectCacheClient;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ImportProperties properties;
+    private final UrlDeduplicator urlDeduplicator;
+
+    record ImportRow(String url, String shortCode, Integer validForDays) {
+    }
+
+    /**
+     * Import the rows of the input, writing progress, rejected rows and a final summary to the output as NDJSON.
+     *
+     * @param importId Optional; with one, progress is recorded and a repeated import resumes where it stopped
+     */
+    public void importUrls(
+            final InputStream input,
+            final Format format,
+            final String importId,
+            final OutputStream output
+    ) throws IOException {
+        if (importId != null && !IMPORT_ID.matcher(importId).matches()) {
+            write(output, ImportEvent.builder().type(ImportEvent.FAILED).error("Invalid import id").build());
+            output.flush();
+            return;
+        }
+
+        ImportProgress progress = importId == null ? ImportProgress.NONE : urlImportRepository.findProgress(importId);
+        long resumeAfter = progress.linesCommitted();
+
+        if (resumeAfter > 0) {
+            log.info("Resuming import {} after line {}", importId, resumeAfter);
+        }
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        StringBuilder line = new StringBuilder();
+        List<StagedUrl> chunk = new ArrayList<>(properties.getChunkSize());
+        List<ImportEvent> rejected = new ArrayList<>();
+        long lineNumber = 0;
+        int length;
+
+        while ((length = readLine(reader, line)) != END_OF_STREAM) {
+            lineNumber++;
+
+            if (lineNumber <= resumeAfter) {
+                continue;
+            }
+
+            if (length == TOO_LONG) {
+                rejected.add(rejection(lineNumber, "Line too long"));
+            } else if (!line.isEmpty() && !(format == Format.CSV && lineNumber == 1 && isCsvHeader(line))) {
+                stage(line.toString(), format, lineNumber, chunk, rejected);
+            }
+
+            if (lineNumber - progress.linesCommitted() >= properties.getChunkSize()) {
+                progress = commitChunk(importId, progress, lineNumber, chunk, rejected, output);
+
+                if (progress == null) {
+                    return;
+                }
+            }
+        }
+
+        if (lineNumber > progress.linesCommitted()) {
+            progress = commitChunk(importId, progress, lineNumber, chunk, rejected, output);
+
+            if (progress == null) {
+                return;
+            }
+        }
+
+        log.info("Import {} done: {} imported, {} rejected", importId, progress.imported(), progress.rejected());
+        write(output, ImportEvent.builder()
+                .type(ImportEvent.DONE)
+                .linesCommitted(progress.linesCommitted())
+                .imported(progress.imported())
+                .rejected(progress.rejected())
+                .build());
+        output.flush();
+    }
+
+    private void stage(
+            final String line,
+            final Format format,
+            final long lineNumber,
+            final List<StagedUrl> chunk,
+            final List<ImportEvent> rejected
+    ) {
+        ImportRow row = format == Format.CSV ? parseCsv(line) : parseJson(line);
+
+        if (row == null) {
+            rejected.add(rejection(lineNumber, "Malformed row"));
+            return;
+        }
+
+        // Same rules as a single create
+        PostUrlShortenRequest request = PostUrlShortenRequest.builder()
+                .url(row.url())
+                .validForDays(row.validForDays())
+                .build();
+
+        String error = rejectionReason(validator.validate(request));
+
+        if (error != null) {
+            rejected.add(rejection(lineNumber, error));
+            return;
+        }
+
+        if (row.shortCode() != null && !SHORT_CODE.matcher(row.shortCode()).matches()) {
+            rejected.add(rejection(lineNumber, "Invalid short code"));
+            return;
+        }
+
+        LocalDateTime createdAt = LocalDateTime.now();
+        int validForDays = row.validForDays() == null ? DEFAULT_VALID_FOR_DAYS : row.validForDays();
+        String longUrl = LongUrls.canonicalize(row.url());
+        // Hashed as a created link would be, so dedup finds imported links too
+        chunk.add(new StagedUrl(lineNumber, row.shortCode(), longUrl, createdAt, createdAt.plusDays(validForDays),
+                row.shortCode() == null, urlDeduplicator.hashOf(longUrl)));
+    }
+
+    /**
+     * Write the chunk and the progress in one transaction, then report the chunk.
+     *
+     * @return Progress after the chunk, or null if it failed and the import stopped
+     */
+    private ImportProgress commitChunk(
+            final String importId,
+            final ImportProgress progress,
+            final long lastLine,
+            final List<StagedUrl> chunk,
+            final List<ImportEvent> rejected,
+            final OutputStream output
+    ) throws IOException {
+        Set<String> imported;
+        ImportProgress next;
+
+        try {
+            imported = new HashSet<>();
+            next = transactionTemplate.execute(status -> {
+                imported.addAll(insert(chunk, rejected));
+                ImportProgress committed = new ImportProgress(
+                        lastLine, progress.imported() + imported.size(), progress.rejected() + rejected.size());
+
+                if (importId != null) {
+                    urlImportRepository.saveProgress(importId, committed);
+                }
+                return committed;
+            });
+        } catch (DataAccessException | TransactionException e) {
+            // TransactionException: the commit itself failed, e.g. the connection dropped
+            log.error("Import {} failed after line {}", importId, progress.linesCommitted(), e);
+            write(output, ImportEvent.builder()
+                    .type(ImportEvent.FAILED)
+                    .error("Failed to save rows")
+                    .linesCommitted(progress.linesCommitted())
+                    .imported(progress.imported())
+                    .rejected(progress.rejected())
+                    .build());
+            output.flush();
+            return null;
+        }
+
+        redirectCacheClient.clearTombstones(imported);
+
+        rejected.sort(Comparator.comparing(ImportEvent::getLine));
+        for (ImportEvent rejection : rejected) {
+            write(output, rejection);
+        }
+        write(output, ImportEvent.builder()
+                .type(ImportEvent.PROGRESS)
+                .linesCommitted(next.linesCommitted())
+                .imported(next.imported())
+                .rejected(next.rejected())
+                .build());
+        output.flush();
+
+        chunk.clear();
+        rejected.clear();
+        return next;
+    }
+
+    /**
+     * @return Short codes inserted; rows not inserted are added to rejected
+     */
+    private Set<String> insert(final List<StagedUrl> chunk, final List<ImportEvent> rejected) {
+        if (chunk.isEmpty()) {
+            return Set.of();
+        }
+
+        List<String> allocatedCodes = urlShortenerService.allocateShortCodes(
+                (int) chunk.stream().filter(StagedUrl::allocated).count());
+        List<StagedUrl> staged = new ArrayList<>(chunk.size());
+        int next = 0;
+
+        for (StagedUrl url : chunk) {
+            staged.add(url.allocated()
+                    ? new StagedUrl(url.line(), allocatedCodes.get(next++), url.longUrl(), url.createdAt(), url.expiresAt(),
+                            true, url.longUrlHash())
+                    : url);
+        }
+
+        Set<String> inserted = urlImportRepository.copyAndInsert(staged);
+        Set<String> imported = new HashSet<>();
+        List<StagedUrl> retry = new ArrayList<>();
+
+        // Mirrors the staging insert: supplied codes claim first, then earlier lines
+        staged.sort(Comparator.comparing(StagedUrl::allocated).thenComparing(StagedUrl::line));
+        for (StagedUrl url : staged) {
+            if (inserted.contains(url.shortCode()) && imported.add(url.shortCode())) {
+                continue;
+            }
+
+            if (url.allocated()) {
+                retry.add(url);
+            } else {
+                rejected.add(rejection(url.line(), "Short code already exists"));
+            }
+        }
+
+        // Allocated codes that turned out to be taken get new ones, like a single create's collision retries
+        for (int attempt = 0; attempt < MAX_COLLISION_RETRIES && !retry.isEmpty(); attempt++) {
+            List<String> shortCodes = urlShortenerService.allocateShortCodes(retry.size());
+            List<UrlEntity> urlEntities = new ArrayList<>(retry.size());
+
+            for (int i = 0; i < retry.size(); i++) {
+                StagedUrl url = retry.get(i);
+                urlEntities.add(UrlEntity.builder()
+                        .shortCode(shortCodes.get(i))
+                        .longUrl(url.longUrl())
+                        .createdAt(url.createdAt())
+                        .expiresAt(url.expiresAt())
+                        .longUrlHash(url.longUrlHash())
+                        .build());
+            }
+
+            Set<String> retried = urlBatchRepository.insertIgnoringTakenCodes(urlEntities);
+            List<StagedUrl> taken = new ArrayList<>();
+
+            for (int i = 0; i < retry.size(); i++) {
+                if (retried.contains(shortCodes.get(i))) {
+                    imported.add(shortCodes.get(i));
+                } else {
+                    taken.add(retry.get(i));
+                }
+            }
+            retry = taken;
+        }
+
+        retry.forEach(url -> rejected.add(rejection(url.line(), "Unable to generate unique short code")));
+        return imported;
+    }
+
+    private ImportRow parseJson(final String line) {
+        try {
+            ImportRow row = objectMapper.readValue(line, ImportRow.class);
+            return row.url() == null ? null : row;
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private static ImportRow parseCsv(final String line) {
+        List<String> fields = new ArrayList<>(3);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+
+        if (quoted || fields.size() > 3 || fields.get(0).isEmpty()) {
+            return null;
+        }
+
+        try {
+            String shortCode = fields.size() > 1 && !fields.get(1).isEmpty() ? fields.get(1) : null;
+            Integer validForDays = fields.size() > 2 && !fields.get(2).isEmpty() ? Integer.valueOf(fields.get(2).trim()) : null;
+            return new ImportRow(fields.get(0), shortCode, validForDays);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static boolean isCsvHeader(final CharSequence line) {
+        String header = line.toString().toLowerCase();
+        return header.equals("url") || header.startsWith("url,");
+    }
+
+    /**
+     * Read one line into the buffer without holding more than the maximum line length.
+     *
+     * @return The line's length, TOO_LONG if it was cut off, or END_OF_STREAM
+     */
+    private int readLine(final BufferedReader reader, final StringBuilder line) throws IOException {
+        line.setLength(0);
+        boolean tooLong = false;
+        int c;
+
+        while ((c = reader.read()) != -1 && c != '\n') {
+            if (line.length() < properties.getMaxLineLength()) {
+                line.append((char) c);
+            } else {
+                tooLong = true;
+            }
+        }
+
+        if (c == -1 && line.isEmpty() && !tooLong) {
+            return END_OF_STREAM;
+        }
+
+        if (!line.isEmpty() && line.charAt(line.length() - 1) == '\r') {
+            line.setLength(line.length() - 1);
+        }
+        return tooLong ? TOO_LONG : line.length();
+    }
+
+    private static ImportEvent rejection(final long line, final String error) {
+        return ImportEvent.builder()
+                .type(ImportEvent.REJECTED)
+                .line(line)
+                .error(error)
+                .build();
+    }
+
+    private void write(final OutputStream output, final ImportEvent event) throws IOException {
+        output.write(objectMapper.writeValueAsBytes(event));
+        output.write('\n');
+    }
+}
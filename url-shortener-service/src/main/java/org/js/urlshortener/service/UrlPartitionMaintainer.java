@@ -0,0 +1,41 @@
+package org.js.urlshortener.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.js.urlshortener.config.PartitionProperties;
+import org.js.urlshortener.repository.UrlPartitionRepository;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Keeps url_links partitions created ahead of the expiry dates new links can get; there is no default
+ * partition (see V13), so a link with no partition for its expiry fails to insert. Expired partitions are
+ * dropped by {@link ExpiredUrlReaper}.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class UrlPartitionMaintainer {
+
+    private final UrlPartitionRepository urlPartitionRepository;
+    private final PartitionProperties properties;
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${url-shortener.partitions.maintenance-interval:PT1H}")
+    public void createFuturePartitions() {
+        LocalDate until = LocalDate.now().plusDays(properties.getDaysAhead());
+
+        try {
+            int created = urlPartitionRepository.createPartitionsUntil(until);
+
+            if (created > 0) {
+                log.info("Created {} url_links partitions up to {}", created, until);
+            }
+        } catch (DataAccessException e) {
+            // Typically the lock timeout; partitions are created long before they are needed
+            log.warn("Failed to create url_links partitions up to {}", until, e);
+        }
+    }
+}
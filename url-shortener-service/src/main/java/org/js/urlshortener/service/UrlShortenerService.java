@@ -1,19 +1,38 @@
 package org.js.urlshortener.service;
 
 import jakarta.transaction.Transactional;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.js.urlshortener.cache.RedirectCacheClient;
+import org.js.urlshortener.config.BatchShortenProperties;
+import org.js.urlshortener.config.LinkEventsProperties;
+import org.js.urlshortener.config.ShortCodeProperties;
 import org.js.urlshortener.controller.mapper.UrlMapper;
+import org.js.urlshortener.controller.model.PostUrlShortenBatchRequest;
 import org.js.urlshortener.controller.model.PostUrlShortenRequest;
+import org.js.urlshortener.controller.model.ShortenBatchItemResult;
+import org.js.urlshortener.controller.model.ShortenBatchResponse;
 import org.js.urlshortener.controller.model.ShortenResponse;
 import org.js.urlshortener.exception.model.UrlNotFoundException;
 import org.js.urlshortener.persistence.entity.UrlEntity;
+import org.js.urlshortener.repository.OutboxEvent;
+import org.js.urlshortener.repository.UrlBatchRepository;
+import org.js.urlshortener.repository.UrlOutboxRepository;
 import org.js.urlshortener.repository.UrlRepository;
+import org.js.urlshortener.utils.LongUrls;
 import org.js.urlshortener.utils.UrlShortCodeUtils;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @Slf4j
@@ -26,29 +45,102 @@ public class UrlShortenerService {
     private final UrlRepository urlRepository;
     private final UrlMapper urlMapper;
     private final UrlShortCodeUtils urlShortCodeUtils;
+    private final RedirectCacheClient redirectCacheClient;
+    private final ShortCodeProperties shortCodeProperties;
+    private final ShortCodeIdAllocator shortCodeIdAllocator;
+    private final ShortCodePool shortCodePool;
+    private final UrlBatchRepository urlBatchRepository;
+    private final BatchShortenProperties batchShortenProperties;
+    private final Validator validator;
+    private final UrlDeduplicator urlDeduplicator;
+    private final UrlOutboxRepository urlOutboxRepository;
+    private final LinkEventsProperties linkEventsProperties;
 
+    @Transactional
     public ShortenResponse shortenUrl(final PostUrlShortenRequest urlShortenRequest) {
-        final String urlToShorten = urlShortenRequest.getUrl().toLowerCase();
+        // Validated already: stored canonical, so redirects can send it as it is
+        final String urlToShorten = LongUrls.canonicalize(urlShortenRequest.getUrl());
+        urlShortenRequest.setUrl(urlToShorten);
 
         if (urlShortenRequest.getValidForDays() == null) {
             urlShortenRequest.setValidForDays(DEFAULT_VALID_FOR_DAYS);
         }
 
-        // Generate unique short code
-        String shortCode = generateUniqueShortCode();
-
         // Calculate expiration date
         LocalDateTime expiresAt = LocalDateTime.now().plusDays(urlShortenRequest.getValidForDays());
         LocalDateTime createdAt = LocalDateTime.now();
 
-        // Create and save URL entity using MapStruct
-        UrlEntity urlEntity = urlMapper.mapToUrlEntity(urlShortenRequest, shortCode, createdAt, expiresAt);
+        // Reuse a link to the same URL that lives at least as long as this one would
+        Optional<UrlEntity> existing = urlDeduplicator.findReusable(urlShortenRequest.getUrl(), expiresAt);
+        if (existing.isPresent()) {
+            log.info("Reused short URL: {} -> {}", existing.get().getShortCode(), urlToShorten);
+            return urlMapper.mapUrlEntityToResponse(existing.get());
+        }
+
+        // Codes are claimed by the insert itself: one taken by any strategy, an import or an expired link
+        // not reaped yet is skipped, and the create draws another
+        for (int attempt = 0; attempt < MAX_COLLISION_RETRIES; attempt++) {
+            String shortCode = nextShortCode();
+
+            UrlEntity urlEntity = urlMapper.mapToUrlEntity(urlShortenRequest, shortCode, createdAt, expiresAt);
+            urlEntity.setLongUrlHash(urlDeduplicator.hashOf(urlShortenRequest.getUrl()));
+
+            // With link events enabled, the same statement records the created event
+            if (urlBatchRepository.insertIgnoringTakenCodes(List.of(urlEntity)).isEmpty()) {
+                log.debug("Short code {} is taken, drawing another", shortCode);
+                continue;
+            }
+
+            urlDeduplicator.remember(urlEntity);
+            log.info("Created short URL: {} -> {}", shortCode, urlToShorten);
+
+            // The code may have been tombstoned by redirect-service while it was free (cleared once committed)
+            redirectCacheClient.clearTombstone(shortCode);
+
+            return urlMapper.mapUrlEntityToResponse(urlEntity);
+        }
+
+        log.error("Failed to generate unique short code after {} attempts", MAX_COLLISION_RETRIES);
+        throw new RuntimeException("Unable to generate unique short code");
+    }
+
+    /**
+     * Create many links at once. Items are validated one by one, and valid ones are inserted a chunk per
+     * statement. An item that fails does not fail the others.
+     *
+     * @return One result per item, in request order
+     */
+    public ShortenBatchResponse shortenUrls(final PostUrlShortenBatchRequest batchRequest) {
+        List<PostUrlShortenRequest> items = batchRequest.getItems();
+        ShortenBatchItemResult[] results = new ShortenBatchItemResult[items.size()];
+        List<Integer> valid = new ArrayList<>(items.size());
+
+        for (int index = 0; index < items.size(); index++) {
+            PostUrlShortenRequest item = items.get(index);
+
+            String error = item == null ? "Invalid URL" : rejectionReason(validator.validate(item));
+
+            if (error != null) {
+                results[index] = failed(index, error);
+            } else {
+                item.setUrl(LongUrls.canonicalize(item.getUrl()));
+                valid.add(index);
+            }
+        }
+
+        int chunkSize = batchShortenProperties.getChunkSize();
+        for (int from = 0; from < valid.size(); from += chunkSize) {
+            insertChunk(items, valid.subList(from, Math.min(from + chunkSize, valid.size())), results);
+        }
 
-        UrlEntity savedEntity = urlRepository.save(urlEntity);
-        log.info("Created short URL: {} -> {}", shortCode, urlToShorten);
+        int created = (int) Arrays.stream(results).filter(result -> result.getResult() != null).count();
+        log.info("Created {} of {} short URLs in batch", created, items.size());
 
-        // Return response
-        return urlMapper.mapUrlEntityToResponse(savedEntity);
+        return ShortenBatchResponse.builder()
+                .created(created)
+                .failed(items.size() - created)
+                .results(Arrays.asList(results))
+                .build();
     }
 
     public ShortenResponse getShortCodeDetails(final String shortCode) {
@@ -74,41 +166,129 @@ public class UrlShortenerService {
         }
 
         urlRepository.deleteByShortCode(shortCode);
+        if (linkEventsProperties.isEnabled()) {
+            urlOutboxRepository.append(OutboxEvent.DELETED, List.of(urlEntity.get()));
+        }
+        urlDeduplicator.forget(shortCode);
         log.info("Successfully deleted URL with short code: {}", shortCode);
     }
 
-    private String generateUniqueShortCode() {
-        String shortCode;
-        int attempts = 0;
+    private void insertChunk(
+            final List<PostUrlShortenRequest> items,
+            final List<Integer> chunk,
+            final ShortenBatchItemResult[] results
+    ) {
+        LocalDateTime createdAt = LocalDateTime.now();
+        List<Integer> pending = chunk;
+
+        // Items whose code turns out to be taken get a new one, like a single create's collision retries
+        for (int attempt = 0; attempt < MAX_COLLISION_RETRIES && !pending.isEmpty(); attempt++) {
+            List<String> shortCodes = allocateShortCodes(pending.size());
+            List<UrlEntity> urlEntities = new ArrayList<>(pending.size());
+
+            for (int i = 0; i < pending.size(); i++) {
+                PostUrlShortenRequest item = items.get(pending.get(i));
 
-        do {
-            shortCode = urlShortCodeUtils.generateShortCode();
-            attempts++;
+                if (item.getValidForDays() == null) {
+                    item.setValidForDays(DEFAULT_VALID_FOR_DAYS);
+                }
 
-            if (attempts > MAX_COLLISION_RETRIES) {
-                log.error("Failed to generate unique short code after {} attempts", MAX_COLLISION_RETRIES);
-                throw new RuntimeException("Unable to generate unique short code");
+                UrlEntity urlEntity = urlMapper.mapToUrlEntity(
+                        item, shortCodes.get(i), createdAt, createdAt.plusDays(item.getValidForDays()));
+                urlEntity.setLongUrlHash(urlDeduplicator.hashOf(item.getUrl()));
+                urlEntities.add(urlEntity);
             }
 
-            // Check if code exists and is still valid
-            Optional<UrlEntity> existingUrl = urlRepository.findByShortCode(shortCode);
+            Set<String> inserted;
+            try {
+                inserted = urlBatchRepository.insertIgnoringTakenCodes(urlEntities);
+            } catch (DataAccessException e) {
+                log.error("Failed to save batch chunk of {} URLs", urlEntities.size(), e);
+                pending.forEach(index -> results[index] = failed(index, "Failed to save URL"));
 
-            if (existingUrl.isEmpty()) {
-                // Code doesn't exist, we can use it
-                break;
+                // Batches run without a transaction, so pooled codes are not put back on their own
+                if (shortCodeProperties.getStrategy() == ShortCodeProperties.Strategy.POOL) {
+                    shortCodePool.putBack(shortCodes);
+                }
+                return;
             }
 
-            if (existingUrl.get().getExpiresAt().isBefore(LocalDateTime.now())) {
-                // Code exists but is expired, delete it and reuse
-                urlRepository.delete(existingUrl.get());
-                log.info("Reusing expired short code: {}", shortCode);
-                break;
+            List<Integer> taken = new ArrayList<>();
+            for (int i = 0; i < pending.size(); i++) {
+                int index = pending.get(i);
+                UrlEntity urlEntity = urlEntities.get(i);
+
+                if (inserted.contains(urlEntity.getShortCode())) {
+                    results[index] = ShortenBatchItemResult.builder()
+                            .index(index)
+                            .result(urlMapper.mapUrlEntityToResponse(urlEntity))
+                            .build();
+                } else {
+                    taken.add(index);
+                }
             }
 
-            // Code exists and is still valid, try again
+            // The codes may have been tombstoned by redirect-service while they were free
+            redirectCacheClient.clearTombstones(inserted);
+            pending = taken;
+        }
+
+        pending.forEach(index -> results[index] = failed(index, "Unable to generate unique short code"));
+    }
+
+    /**
+     * Distinct codes for a batch or import chunk. Codes are not looked up first: the insert skips
+     * taken ones and they are replaced on the next attempt.
+     */
+    List<String> allocateShortCodes(final int count) {
+        Set<String> shortCodes = new LinkedHashSet<>();
 
-        } while (true);
+        while (shortCodes.size() < count) {
+            shortCodes.add(nextShortCode());
+        }
+
+        return new ArrayList<>(shortCodes);
+    }
+
+    /**
+     * Why an item of a batch or import is refused: "Invalid URL" for a bad url, else the message of the
+     * violated constraint, e.g. "Valid for days cannot exceed 365".
+     *
+     * @return The reason, or null if there are no violations
+     */
+    static String rejectionReason(final Set<ConstraintViolation<PostUrlShortenRequest>> violations) {
+        if (violations.stream().anyMatch(violation -> "url".equals(violation.getPropertyPath().toString()))) {
+            return "Invalid URL";
+        }
 
-        return shortCode;
+        // Sorted, so an item breaking several constraints always gets the same reason
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static ShortenBatchItemResult failed(final int index, final String error) {
+        return ShortenBatchItemResult.builder()
+                .index(index)
+                .error(error)
+                .build();
+    }
+
+    /**
+     * A code for the configured strategy. Counter and pooled codes are usually free, random ones mostly,
+     * but none is guaranteed to be: callers insert through the url_codes claim and draw again if it is taken.
+     */
+    private String nextShortCode() {
+        return switch (shortCodeProperties.getStrategy()) {
+            case COUNTER -> urlShortCodeUtils.encodeId(shortCodeIdAllocator.nextId());
+            case POOL -> {
+                // An empty pool is counted as url.codepool.exhausted
+                String pooled = shortCodePool.take();
+                yield pooled != null ? pooled : urlShortCodeUtils.generateShortCode();
+            }
+            case RANDOM -> urlShortCodeUtils.generateShortCode();
+        };
     }
 }
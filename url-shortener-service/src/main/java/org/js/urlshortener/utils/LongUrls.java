@@ -0,0 +1,249 @@
+package org.js.urlshortener.utils;
+
+import java.net.IDN;
+
+public final class LongUrls {
+
+    // long_url is limited to 2048 bytes (V3); canonical URLs are ASCII, so chars are bytes
+    public static final int MAX_LENGTH = 2048;
+
+    private static final String HTTP = "http://";
+    private static final String HTTPS = "https://";
+    private static final int MAX_HOST_LENGTH = 253;
+    private static final int MAX_LABEL_LENGTH = 63;
+    private static final int MAX_PORT_DIGITS = 5;
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private LongUrls() {
+    }
+
+    /**
+     * Validate a long URL and return the form it is stored in, in one pass over the input.
+     * Accepts what the old VALID_URL_REGEX did: an optional http(s) scheme, a host of at least two
+     * labels of letters, digits, '-' and '_' (neither first nor last) ending in a letter-only top-level
+     * label, an optional port, then anything. In addition, hosts may be internationalized, and a query or
+     * fragment may follow the host directly. User info, IP hosts and control characters are rejected.
+     * <p>
+     * The canonical form has a lower-case scheme (https if missing), an ASCII (punycode) lower-case host,
+     * no default port and "/" for an empty path. In the rest, valid escapes are upper-cased, escapes of
+     * unreserved characters decoded, and stray '%', characters not allowed in a URI and non-ASCII characters
+     * (as UTF-8) escaped. The path keeps its case.
+     *
+     * @param url The URL as submitted
+     * @return The canonical URL, or null if the URL is not valid or its canonical form is too long
+     */
+    public static String canonicalize(final String url) {
+        if (url == null || url.isEmpty() || url.length() > MAX_LENGTH) {
+            return null;
+        }
+
+        int length = url.length();
+        int start = 0;
+        boolean https = true;
+        if (url.regionMatches(true, 0, HTTPS, 0, HTTPS.length())) {
+            start = HTTPS.length();
+        } else if (url.regionMatches(true, 0, HTTP, 0, HTTP.length())) {
+            start = HTTP.length();
+            https = false;
+        }
+
+        int hostEnd = start;
+        while (hostEnd < length && !isAuthorityEnd(url.charAt(hostEnd))) {
+            if (++hostEnd - start > MAX_HOST_LENGTH) {
+                return null;
+            }
+        }
+
+        StringBuilder canonical = new StringBuilder(length + 16).append(https ? HTTPS : HTTP);
+        if (!appendHost(canonical, url.substring(start, hostEnd))) {
+            return null;
+        }
+
+        int i = hostEnd;
+        if (i < length && url.charAt(i) == ':') {
+            int portStart = ++i;
+            int port = 0;
+            while (i < length && isDigit(url.charAt(i))) {
+                if (i - portStart == MAX_PORT_DIGITS) {
+                    return null;
+                }
+                port = port * 10 + (url.charAt(i++) - '0');
+            }
+            if (i == portStart || port == 0 || port > 65535 || (i < length && !isPathStart(url.charAt(i)))) {
+                return null;
+            }
+            if (port != (https ? 443 : 80)) {
+                canonical.append(':').append(port);
+            }
+        }
+
+        if (i == length || url.charAt(i) != '/') {
+            canonical.append('/');
+        }
+
+        boolean fragment = false;
+        for (; i < length; i++) {
+            char c = url.charAt(i);
+
+            if (c == '%') {
+                int high = i + 2 < length ? hexValue(url.charAt(i + 1)) : -1;
+                int low = high < 0 ? -1 : hexValue(url.charAt(i + 2));
+                if (low < 0) {
+                    canonical.append("%25");
+                } else {
+                    appendOctet(canonical, high << 4 | low, true);
+                    i += 2;
+                }
+            } else if (c < 0x20 || c == 0x7F) {
+                return null;
+            } else if (c < 0x80) {
+                // Only the first '#' starts the fragment
+                if (c == '#' && !fragment) {
+                    fragment = true;
+                    canonical.append(c);
+                } else {
+                    appendOctet(canonical, c, false);
+                }
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(url.charAt(i + 1))) {
+                appendUtf8(canonical, Character.toCodePoint(c, url.charAt(++i)));
+            } else if (Character.isSurrogate(c)) {
+                return null;
+            } else {
+                appendUtf8(canonical, c);
+            }
+
+            if (canonical.length() > MAX_LENGTH) {
+                return null;
+            }
+        }
+
+        return canonical.toString();
+    }
+
+    private static boolean appendHost(final StringBuilder canonical, final String rawHost) {
+        String host = rawHost;
+        for (int i = 0; i < rawHost.length(); i++) {
+            if (rawHost.charAt(i) >= 0x80) {
+                try {
+                    host = IDN.toASCII(rawHost);
+                } catch (IllegalArgumentException e) {
+                    return false;
+                }
+                break;
+            }
+        }
+
+        if (host.isEmpty() || host.length() > MAX_HOST_LENGTH) {
+            return false;
+        }
+
+        int hostStart = canonical.length();
+        int labelStart = 0;
+        for (int i = 0; i <= host.length(); i++) {
+            char c = i < host.length() ? host.charAt(i) : '.';
+
+            if (c == '.') {
+                if (i == labelStart || i - labelStart > MAX_LABEL_LENGTH
+                        || !isLetterOrDigit(host.charAt(labelStart)) || !isLetterOrDigit(host.charAt(i - 1))) {
+                    return false;
+                }
+                if (i < host.length()) {
+                    labelStart = i + 1;
+                }
+            } else if (!isLetterOrDigit(c) && c != '-' && c != '_') {
+                return false;
+            }
+
+            if (i < host.length()) {
+                canonical.append(c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c);
+            }
+        }
+
+        // At least two labels, the last being a top-level domain: letters, or an internationalized one
+        return labelStart > 0 && isTopLevelLabel(canonical, hostStart + labelStart, canonical.length());
+    }
+
+    private static boolean isTopLevelLabel(final CharSequence host, final int start, final int end) {
+        if (end - start > 4 && host.charAt(start) == 'x' && host.charAt(start + 1) == 'n'
+                && host.charAt(start + 2) == '-' && host.charAt(start + 3) == '-') {
+            return true;
+        }
+        if (end - start < 2) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (host.charAt(i) < 'a' || host.charAt(i) > 'z') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void appendUtf8(final StringBuilder canonical, final int codePoint) {
+        if (codePoint < 0x800) {
+            appendOctet(canonical, 0xC0 | codePoint >> 6, false);
+        } else {
+            if (codePoint < 0x10000) {
+                appendOctet(canonical, 0xE0 | codePoint >> 12, false);
+            } else {
+                appendOctet(canonical, 0xF0 | codePoint >> 18, false);
+                appendOctet(canonical, 0x80 | (codePoint >> 12 & 0x3F), false);
+            }
+            appendOctet(canonical, 0x80 | (codePoint >> 6 & 0x3F), false);
+        }
+        appendOctet(canonical, 0x80 | (codePoint & 0x3F), false);
+    }
+
+    /**
+     * Append an octet literally if it may appear unescaped, escaped otherwise.
+     *
+     * @param escaped Whether the input had it escaped: then only unreserved characters are decoded,
+     *                as decoding others (such as "%2F") would change the URL's meaning
+     */
+    private static void appendOctet(final StringBuilder canonical, final int octet, final boolean escaped) {
+        if (escaped ? isUnreserved(octet) : isAllowed(octet)) {
+            canonical.append((char) octet);
+        } else {
+            canonical.append('%').append(HEX[octet >> 4]).append(HEX[octet & 0xF]);
+        }
+    }
+
+    private static boolean isAuthorityEnd(final char c) {
+        return isPathStart(c) || c == ':';
+    }
+
+    // What may follow the port: a second ':' would otherwise be moved into the path
+    private static boolean isPathStart(final char c) {
+        return c == '/' || c == '?' || c == '#';
+    }
+
+    private static boolean isUnreserved(final int c) {
+        return c < 0x80 && (isLetterOrDigit((char) c) || c == '-' || c == '.' || c == '_' || c == '~');
+    }
+
+    // Printable ASCII that may appear unescaped in a path, query or fragment
+    private static boolean isAllowed(final int c) {
+        return c > 0x20 && c < 0x7F && "\"<>\\^`{|}#".indexOf(c) < 0;
+    }
+
+    private static boolean isLetterOrDigit(final char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || isDigit(c);
+    }
+
+    private static boolean isDigit(final char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int hexValue(final char c) {
+        if (isDigit(c)) {
+            return c - '0';
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        return -1;
+    }
+}
@@ -1,7 +1,12 @@
 package org.js.urlshortener.utils;
 
+import org.js.urlshortener.config.ShortCodeProperties;
 import org.springframework.stereotype.Component;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 
 @Component
@@ -9,8 +14,26 @@ public class UrlShortCodeUtils {
 
     private static final String BASE62_CHARS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
     private static final int DEFAULT_LENGTH = 6;
+    private static final int MAX_LENGTH = 10;
+    private static final int FEISTEL_ROUNDS = 8;
     private final SecureRandom SECURE_RANDOM = new SecureRandom();
 
+    private final int minLength;
+    private final long[] roundKeys;
+
+    public UrlShortCodeUtils(ShortCodeProperties properties) {
+        if (properties.getMinLength() < 1 || properties.getMinLength() > MAX_LENGTH) {
+            throw new IllegalStateException("url-shortener.codes.min-length must be between 1 and " + MAX_LENGTH);
+        }
+
+        if (properties.getStrategy() == ShortCodeProperties.Strategy.COUNTER && properties.getSecret().isBlank()) {
+            throw new IllegalStateException("url-shortener.codes.secret must be set for COUNTER short codes");
+        }
+
+        this.minLength = properties.getMinLength();
+        this.roundKeys = deriveRoundKeys(properties.getSecret());
+    }
+
     /**
      * Generates a random Base62 encoded short code
      * @return 6-character Base62 string
@@ -34,4 +57,162 @@ public class UrlShortCodeUtils {
 
         return shortCode.toString();
     }
+
+    /**
+     * Maps a counter id to its short code. Distinct ids always give distinct codes, so no lookup is needed.
+     * Ids fill the min-length code space first, then each longer one; within a length they are shuffled by
+     * a keyed permutation, so consecutive ids give unrelated codes. This hides the sequence from casual
+     * enumeration but is not encryption: treat codes as public.
+     * @param id non-negative id, unique per link
+     * @return Base62 string of min-length to 10 characters
+     */
+    public String encodeId(long id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Short code id must not be negative: " + id);
+        }
+
+        long remaining = id;
+
+        for (int length = minLength; length <= MAX_LENGTH; length++) {
+            long space = codeSpace(length);
+
+            if (remaining < space) {
+                return toBase62(permute(remaining, space), length);
+            }
+
+            remaining -= space;
+        }
+
+        throw new IllegalArgumentException("Short code id exceeds the " + MAX_LENGTH + "-character space: " + id);
+    }
+
+    /**
+     * Inverse of {@link #encodeId(long)}.
+     * @return The id, or -1 if the code cannot have been produced by encodeId
+     */
+    public long decodeId(String shortCode) {
+        int length = shortCode.length();
+
+        if (length < minLength || length > MAX_LENGTH) {
+            return -1;
+        }
+
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            int digit = BASE62_CHARS.indexOf(shortCode.charAt(i));
+            if (digit < 0) {
+                return -1;
+            }
+            value = value * BASE62_CHARS.length() + digit;
+        }
+
+        long offset = 0;
+        for (int shorter = minLength; shorter < length; shorter++) {
+            offset += codeSpace(shorter);
+        }
+
+        return offset + unpermute(value, codeSpace(length));
+    }
+
+    /**
+     * Feistel network over the smallest even bit width covering the space, cycle-walked until the result
+     * falls inside it: a bijection on [0, space).
+     */
+    private long permute(long value, long space) {
+        int halfBits = halfBits(space);
+        long result = value;
+
+        do {
+            result = feistel(result, halfBits);
+        } while (result >= space);
+
+        return result;
+    }
+
+    private long unpermute(long value, long space) {
+        int halfBits = halfBits(space);
+        long result = value;
+
+        do {
+            result = inverseFeistel(result, halfBits);
+        } while (result >= space);
+
+        return result;
+    }
+
+    private long feistel(long value, int halfBits) {
+        long mask = (1L << halfBits) - 1;
+        long left = value >>> halfBits;
+        long right = value & mask;
+
+        for (int round = 0; round < FEISTEL_ROUNDS; round++) {
+            long next = left ^ (roundFunction(right, round) & mask);
+            left = right;
+            right = next;
+        }
+
+        return (left << halfBits) | right;
+    }
+
+    private long inverseFeistel(long value, int halfBits) {
+        long mask = (1L << halfBits) - 1;
+        long left = value >>> halfBits;
+        long right = value & mask;
+
+        for (int round = FEISTEL_ROUNDS - 1; round >= 0; round--) {
+            long previous = right ^ (roundFunction(left, round) & mask);
+            right = left;
+            left = previous;
+        }
+
+        return (left << halfBits) | right;
+    }
+
+    private long roundFunction(long half, int round) {
+        // SplitMix64 finalizer over the keyed input
+        long z = half + roundKeys[round];
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static int halfBits(long space) {
+        int bits = 64 - Long.numberOfLeadingZeros(space - 1);
+        return (bits + 1) / 2;
+    }
+
+    private static long codeSpace(int length) {
+        long space = 1;
+        for (int i = 0; i < length; i++) {
+            space *= BASE62_CHARS.length();
+        }
+        return space;
+    }
+
+    private static String toBase62(long value, int length) {
+        char[] code = new char[length];
+        long remaining = value;
+
+        for (int i = length - 1; i >= 0; i--) {
+            code[i] = BASE62_CHARS.charAt((int) (remaining % BASE62_CHARS.length()));
+            remaining /= BASE62_CHARS.length();
+        }
+
+        return new String(code);
+    }
+
+    private static long[] deriveRoundKeys(String secret) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-512").digest(secret.getBytes(StandardCharsets.UTF_8));
+            ByteBuffer buffer = ByteBuffer.wrap(digest);
+            long[] keys = new long[FEISTEL_ROUNDS];
+
+            for (int round = 0; round < FEISTEL_ROUNDS; round++) {
+                keys[round] = buffer.getLong();
+            }
+            return keys;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-512 is not available", e);
+        }
+    }
 }
@@ -0,0 +1,4 @@
+-- Built concurrently so writes are not blocked; Flyway runs this statement outside a transaction.
+-- Partial: rows without a hash are never looked up by it.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_urls_long_url_hash
+    ON urls (long_url_hash) WHERE long_url_hash IS NOT NULL;
@@ -0,0 +1,10 @@
+-- Link lifecycle events, written in the same transaction as the change to urls and relayed to Kafka
+-- by OutboxRelay, which deletes them once the broker has acknowledged them
+CREATE TABLE IF NOT EXISTS url_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    event_type VARCHAR(16) NOT NULL,
+    short_code VARCHAR(10) NOT NULL,
+    long_url TEXT,
+    expires_at TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT now()
+);
@@ -0,0 +1,152 @@
+-- Links move to url_links, range-partitioned by expiry date, so expired links are dropped a partition at a
+-- time instead of deleted row by row. A partitioned table cannot have a unique index on short_code alone,
+-- so url_codes keeps one row per live code: its primary key makes codes unique across partitions, and its
+-- expires_on says which partition holds the link. urls becomes a view joining the two, so existing queries
+-- and JPA writes keep working; a lookup by short_code probes url_codes, then the one partition it names.
+--
+-- Copies every row while holding an exclusive lock on urls: run it in a quiet period on large tables.
+-- Fails on legacy rows longer than 2048 bytes (see V3): validate chk_urls_long_url_length first.
+
+-- Partition key of a link; links without expiry go to the default partition
+CREATE FUNCTION url_expires_on(expires_at TIMESTAMP) RETURNS DATE
+    LANGUAGE sql IMMUTABLE PARALLEL SAFE
+    AS $$ SELECT COALESCE(expires_at::date, DATE '9999-12-31') $$;
+
+-- INCLUDE makes the first probe of a lookup index-only too
+CREATE TABLE url_codes (
+    short_code VARCHAR(10) NOT NULL,
+    expires_on DATE NOT NULL,
+    CONSTRAINT url_codes_pkey PRIMARY KEY (short_code) INCLUDE (expires_on)
+);
+
+-- Lets ExpiredUrlReaper release expired codes in bounded batches
+CREATE INDEX idx_url_codes_expires_on ON url_codes (expires_on);
+
+CREATE TABLE url_links (
+    id BIGINT NOT NULL,
+    short_code VARCHAR(10) NOT NULL,
+    long_url TEXT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP,
+    expires_on DATE NOT NULL,
+    long_url_hash BIGINT,
+    CONSTRAINT chk_url_links_long_url_length CHECK (octet_length(long_url) <= 2048)
+) PARTITION BY RANGE (expires_on);
+
+-- Links without expiry, and any expiring outside the partitions created so far
+CREATE TABLE url_links_default PARTITION OF url_links DEFAULT;
+
+-- The probe after url_codes, index-only for redirect-service's lookup (replaces V4's covering index)
+CREATE INDEX idx_url_links_short_code ON url_links (short_code, expires_on) INCLUDE (long_url, expires_at);
+-- Deletes by id (JPA) and redirect-service's id-watermark sync
+CREATE INDEX idx_url_links_id ON url_links (id);
+CREATE INDEX idx_url_links_long_url_hash ON url_links (long_url_hash) WHERE long_url_hash IS NOT NULL;
+
+-- Add partitions of the given number of days after the last one until the given date is covered.
+-- Links of a new range already in the default partition are moved into it.
+-- Returns the number of partitions created.
+CREATE FUNCTION url_links_create_partitions(until DATE, days INTEGER) RETURNS INTEGER
+    LANGUAGE plpgsql
+    AS $$
+DECLARE
+    lower_bound DATE;
+    partition_name TEXT;
+    created INTEGER := 0;
+BEGIN
+    SELECT max(substring(pg_get_expr(c.relpartbound, c.oid) FROM 'TO \(''([^'']+)''\)')::date)
+    INTO lower_bound
+    FROM pg_inherits i
+    JOIN pg_class c ON c.oid = i.inhrelid
+    WHERE i.inhparent = 'url_links'::regclass;
+
+    lower_bound := COALESCE(lower_bound, current_date - 1);
+
+    WHILE lower_bound <= until LOOP
+        partition_name := 'url_links_p' || to_char(lower_bound, 'YYYYMMDD');
+
+        EXECUTE format('CREATE TABLE %I (LIKE url_links INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', partition_name);
+        EXECUTE format('WITH moved AS (DELETE FROM url_links_default WHERE expires_on >= %L AND expires_on < %L RETURNING *) '
+                       'INSERT INTO %I SELECT * FROM moved', lower_bound, lower_bound + days, partition_name);
+        EXECUTE format('ALTER TABLE url_links ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                       partition_name, lower_bound, lower_bound + days);
+
+        lower_bound := lower_bound + days;
+        created := created + 1;
+    END LOOP;
+
+    RETURN created;
+END
+$$;
+
+-- Weekly partitions past the longest validity (365 days); matches url-shortener.partitions defaults
+SELECT url_links_create_partitions(current_date + 400, 7);
+
+-- The id sequence outlives the old table; ids keep increasing for redirect-service's watermark
+ALTER TABLE urls RENAME TO urls_unpartitioned;
+ALTER SEQUENCE urls_id_seq OWNED BY NONE;
+
+INSERT INTO url_codes (short_code, expires_on)
+SELECT short_code, url_expires_on(expires_at) FROM urls_unpartitioned;
+
+INSERT INTO url_links (id, short_code, long_url, created_at, expires_at, expires_on, long_url_hash)
+SELECT id, short_code, long_url, created_at, expires_at, url_expires_on(expires_at), long_url_hash
+FROM urls_unpartitioned;
+
+DROP TABLE urls_unpartitioned;
+
+CREATE VIEW urls AS
+SELECT l.id, l.short_code, l.long_url, l.created_at, l.expires_at, l.long_url_hash
+FROM url_codes c
+JOIN url_links l ON l.short_code = c.short_code AND l.expires_on = c.expires_on;
+
+ALTER VIEW urls ALTER COLUMN id SET DEFAULT nextval('urls_id_seq');
+ALTER VIEW urls ALTER COLUMN created_at SET DEFAULT CURRENT_TIMESTAMP;
+
+-- Writes through the view. A taken code fails the url_codes insert with a unique violation, as before.
+CREATE FUNCTION urls_insert() RETURNS TRIGGER
+    LANGUAGE plpgsql
+    AS $$
+BEGIN
+    INSERT INTO url_codes (short_code, expires_on)
+    VALUES (NEW.short_code, url_expires_on(NEW.expires_at));
+
+    INSERT INTO url_links (id, short_code, long_url, created_at, expires_at, expires_on, long_url_hash)
+    VALUES (NEW.id, NEW.short_code, NEW.long_url, NEW.created_at, NEW.expires_at,
+            url_expires_on(NEW.expires_at), NEW.long_url_hash);
+
+    RETURN NEW;
+END
+$$;
+
+CREATE FUNCTION urls_update() RETURNS TRIGGER
+    LANGUAGE plpgsql
+    AS $$
+BEGIN
+    UPDATE url_codes
+    SET short_code = NEW.short_code, expires_on = url_expires_on(NEW.expires_at)
+    WHERE short_code = OLD.short_code;
+
+    -- A changed expiry moves the row to its new partition
+    UPDATE url_links
+    SET id = NEW.id, short_code = NEW.short_code, long_url = NEW.long_url, created_at = NEW.created_at,
+        expires_at = NEW.expires_at, expires_on = url_expires_on(NEW.expires_at), long_url_hash = NEW.long_url_hash
+    WHERE short_code = OLD.short_code AND expires_on = url_expires_on(OLD.expires_at);
+
+    RETURN NEW;
+END
+$$;
+
+CREATE FUNCTION urls_delete() RETURNS TRIGGER
+    LANGUAGE plpgsql
+    AS $$
+BEGIN
+    DELETE FROM url_codes WHERE short_code = OLD.short_code;
+    DELETE FROM url_links WHERE short_code = OLD.short_code AND expires_on = url_expires_on(OLD.expires_at);
+
+    RETURN OLD;
+END
+$$;
+
+CREATE TRIGGER urls_insert INSTEAD OF INSERT ON urls FOR EACH ROW EXECUTE FUNCTION urls_insert();
+CREATE TRIGGER urls_update INSTEAD OF UPDATE ON urls FOR EACH ROW EXECUTE FUNCTION urls_update();
+CREATE TRIGGER urls_delete INSTEAD OF DELETE ON urls FOR EACH ROW EXECUTE FUNCTION urls_delete();
@@ -0,0 +1,70 @@
+-- Replaces the default partition of url_links with bounded ones. Postgres refuses DETACH PARTITION ...
+-- CONCURRENTLY while a default partition exists, and a plain DROP of a partition takes an ACCESS EXCLUSIVE
+-- lock on url_links that every lookup queues behind. Without a default, ExpiredUrlReaper detaches expired
+-- partitions concurrently and drops them once they are no longer part of url_links.
+--
+-- Links without expiry (expires_on 9999-12-31) move to url_links_never. Links expiring before the first
+-- dated partition move to url_links_expired, which is dropped like any other partition once its codes are
+-- released. A link expiring beyond the created partitions now fails to insert instead of landing in the
+-- default partition, so url-shortener.partitions.days-ahead must exceed the longest validity (365 days).
+
+-- First give links of the default partition expiring after the created partitions a partition of their own
+SELECT url_links_create_partitions(
+    (SELECT max(expires_on) FROM url_links_default WHERE expires_on < DATE '9999-12-31'), 7);
+
+ALTER TABLE url_links DETACH PARTITION url_links_default;
+
+DO $$
+DECLARE
+    first_bound DATE;
+BEGIN
+    SELECT min(substring(pg_get_expr(c.relpartbound, c.oid) FROM 'FROM \(''([^'']+)''\)')::date)
+    INTO first_bound
+    FROM pg_inherits i
+    JOIN pg_class c ON c.oid = i.inhrelid
+    WHERE i.inhparent = 'url_links'::regclass;
+
+    EXECUTE format('CREATE TABLE url_links_expired PARTITION OF url_links FOR VALUES FROM (MINVALUE) TO (%L)',
+                   first_bound);
+END
+$$;
+
+CREATE TABLE url_links_never PARTITION OF url_links FOR VALUES FROM ('9999-12-31') TO (MAXVALUE);
+
+INSERT INTO url_links SELECT * FROM url_links_default;
+
+DROP TABLE url_links_default;
+
+-- As in V12, without moving links out of the default partition. The new table is attached rather than
+-- created as a partition, which would lock url_links exclusively.
+CREATE OR REPLACE FUNCTION url_links_create_partitions(until DATE, days INTEGER) RETURNS INTEGER
+    LANGUAGE plpgsql
+    AS $$
+DECLARE
+    lower_bound DATE;
+    partition_name TEXT;
+    created INTEGER := 0;
+BEGIN
+    -- url_links_never ends at MAXVALUE, which the pattern skips
+    SELECT max(substring(pg_get_expr(c.relpartbound, c.oid) FROM 'TO \(''([^'']+)''\)')::date)
+    INTO lower_bound
+    FROM pg_inherits i
+    JOIN pg_class c ON c.oid = i.inhrelid
+    WHERE i.inhparent = 'url_links'::regclass;
+
+    lower_bound := COALESCE(lower_bound, current_date - 1);
+
+    WHILE lower_bound <= until LOOP
+        partition_name := 'url_links_p' || to_char(lower_bound, 'YYYYMMDD');
+
+        EXECUTE format('CREATE TABLE %I (LIKE url_links INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', partition_name);
+        EXECUTE format('ALTER TABLE url_links ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                       partition_name, lower_bound, lower_bound + days);
+
+        lower_bound := lower_bound + days;
+        created := created + 1;
+    END LOOP;
+
+    RETURN created;
+END
+$$;
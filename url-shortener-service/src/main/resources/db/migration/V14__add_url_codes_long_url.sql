@@ -0,0 +1,53 @@
+-- Copies long_url and expires_at into url_codes, so redirect-service's lookup is a single url_codes probe.
+-- Through the urls view it takes a second probe, into the partition url_codes names, and every execution
+-- plans and locks all url_links partitions. url_links stays the table of record: url_codes only mirrors the
+-- two columns a redirect needs, and both are written in the same statement as the link.
+--
+-- Blocks writes to url_codes while the backfill runs, so no link is inserted without them in between;
+-- lookups are not blocked. Links created by url-shortener instances that predate this migration, e.g.
+-- during a rolling deploy, have a null long_url: redirect-service reads those through urls.
+
+LOCK TABLE url_codes IN SHARE ROW EXCLUSIVE MODE;
+
+-- Nullable, so adding them does not rewrite the table
+ALTER TABLE url_codes ADD COLUMN long_url TEXT, ADD COLUMN expires_at TIMESTAMP;
+
+UPDATE url_codes c
+SET long_url = l.long_url, expires_at = l.expires_at
+FROM url_links l
+WHERE l.short_code = c.short_code AND l.expires_on = c.expires_on;
+
+-- As in V12, also writing the copies in url_codes
+CREATE OR REPLACE FUNCTION urls_insert() RETURNS TRIGGER
+    LANGUAGE plpgsql
+    AS $$
+BEGIN
+    INSERT INTO url_codes (short_code, expires_on, long_url, expires_at)
+    VALUES (NEW.short_code, url_expires_on(NEW.expires_at), NEW.long_url, NEW.expires_at);
+
+    INSERT INTO url_links (id, short_code, long_url, created_at, expires_at, expires_on, long_url_hash)
+    VALUES (NEW.id, NEW.short_code, NEW.long_url, NEW.created_at, NEW.expires_at,
+            url_expires_on(NEW.expires_at), NEW.long_url_hash);
+
+    RETURN NEW;
+END
+$$;
+
+CREATE OR REPLACE FUNCTION urls_update() RETURNS TRIGGER
+    LANGUAGE plpgsql
+    AS $$
+BEGIN
+    UPDATE url_codes
+    SET short_code = NEW.short_code, expires_on = url_expires_on(NEW.expires_at), long_url = NEW.long_url,
+        expires_at = NEW.expires_at
+    WHERE short_code = OLD.short_code;
+
+    -- A changed expiry moves the row to its new partition
+    UPDATE url_links
+    SET id = NEW.id, short_code = NEW.short_code, long_url = NEW.long_url, created_at = NEW.created_at,
+        expires_at = NEW.expires_at, expires_on = url_expires_on(NEW.expires_at), long_url_hash = NEW.long_url_hash
+    WHERE short_code = OLD.short_code AND expires_on = url_expires_on(OLD.expires_at);
+
+    RETURN NEW;
+END
+$$;
@@ -0,0 +1,2 @@
+-- Lets the expiry reaper find expired rows in bounded batches without scanning the table
+CREATE INDEX IF NOT EXISTS idx_urls_expires_at ON urls (expires_at);
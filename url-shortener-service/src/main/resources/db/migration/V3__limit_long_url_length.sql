@@ -0,0 +1,5 @@
+-- Bounds long_url so it fits in a btree index tuple (max ~2.7kB), which the covering index
+-- in V4 requires. NOT VALID: enforced for new rows only; validate once legacy rows are checked:
+--   ALTER TABLE urls VALIDATE CONSTRAINT chk_urls_long_url_length;
+ALTER TABLE urls
+    ADD CONSTRAINT chk_urls_long_url_length CHECK (octet_length(long_url) <= 2048) NOT VALID;
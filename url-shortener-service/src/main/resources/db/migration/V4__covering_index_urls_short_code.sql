@@ -0,0 +1,5 @@
+-- Lets redirect-service's short_code lookup (long_url, expires_at) be an index-only scan.
+-- Built concurrently so writes are not blocked; Flyway runs this statement outside a transaction.
+-- Fails if a legacy row's long_url does not fit an index tuple (see V3).
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS idx_urls_short_code_covering
+    ON urls (short_code) INCLUDE (long_url, expires_at);
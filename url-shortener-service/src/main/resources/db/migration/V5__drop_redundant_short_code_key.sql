@@ -0,0 +1,2 @@
+-- The unique covering index from V4 enforces short_code uniqueness; drop the old constraint's index
+ALTER TABLE urls DROP CONSTRAINT IF EXISTS urls_short_code_key;
@@ -0,0 +1,3 @@
+-- Ids behind counter-generated short codes. Each nextval leases a block of INCREMENT BY ids to one replica,
+-- which hands them out from memory; ids left in a block when a replica stops are simply never used
+CREATE SEQUENCE IF NOT EXISTS short_code_id_seq AS BIGINT MINVALUE 0 START WITH 0 INCREMENT BY 1000;
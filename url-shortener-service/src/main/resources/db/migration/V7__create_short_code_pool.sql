@@ -0,0 +1,10 @@
+-- Pre-generated codes for the POOL strategy. A replica claims a chunk (claimed_by/claimed_at) and keeps the claim
+-- alive while it holds the codes in memory; a claim that stops being renewed is reclaimed by another replica.
+-- Rows whose code has been used are deleted once the link exists in urls.
+CREATE TABLE IF NOT EXISTS short_code_pool (
+    short_code VARCHAR(10) PRIMARY KEY,
+    claimed_by VARCHAR(64),
+    claimed_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_short_code_pool_claimed_at ON short_code_pool (claimed_at);
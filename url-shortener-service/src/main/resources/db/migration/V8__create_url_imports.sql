@@ -0,0 +1,9 @@
+-- Progress of resumable bulk imports: lines_committed is updated in the same transaction as each chunk,
+-- so a resumed import skips exactly the lines already written
+CREATE TABLE IF NOT EXISTS url_imports (
+    import_id VARCHAR(64) PRIMARY KEY,
+    lines_committed BIGINT NOT NULL,
+    imported BIGINT NOT NULL,
+    rejected BIGINT NOT NULL,
+    updated_at TIMESTAMP NOT NULL
+);
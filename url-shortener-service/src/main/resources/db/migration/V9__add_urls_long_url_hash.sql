@@ -0,0 +1,3 @@
+-- First 8 bytes of SHA-256 over the normalized long URL, for deduplicating creates.
+-- Nullable: rows created before this column, or through bulk import, are never matched.
+ALTER TABLE urls ADD COLUMN IF NOT EXISTS long_url_hash BIGINT;
@@ -1,9 +1,13 @@
 package org.js.urlshortener.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.js.urlshortener.controller.model.PostUrlShortenBatchRequest;
 import org.js.urlshortener.controller.model.PostUrlShortenRequest;
+import org.js.urlshortener.controller.model.ShortenBatchItemResult;
+import org.js.urlshortener.controller.model.ShortenBatchResponse;
 import org.js.urlshortener.controller.model.ShortenResponse;
 import org.js.urlshortener.exception.model.UrlNotFoundException;
+import org.js.urlshortener.service.UrlImportService;
 import org.js.urlshortener.service.UrlShortenerService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,6 +17,7 @@ import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doNothing;
@@ -32,6 +37,9 @@ public class UrlShortenerControllerTests {
     @MockitoBean
     private UrlShortenerService urlShortenerService;
 
+    @MockitoBean
+    private UrlImportService urlImportService;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -68,6 +76,40 @@ public class UrlShortenerControllerTests {
                 .andExpect(jsonPath("$.expiresAt").value(expiresAt.toString()));
    }
 
+    @Test
+    public void test_postShortenBatch_partialFailure_207() throws Exception {
+        PostUrlShortenBatchRequest request = PostUrlShortenBatchRequest.builder()
+                .items(List.of(
+                        PostUrlShortenRequest.builder().url("google.com").build(),
+                        PostUrlShortenRequest.builder().url("example/").build()))
+                .build();
+
+        ShortenBatchResponse mockResponse = ShortenBatchResponse.builder()
+                .created(1)
+                .failed(1)
+                .results(List.of(
+                        ShortenBatchItemResult.builder()
+                                .index(0)
+                                .result(ShortenResponse.builder().shortCode("xyz789").build())
+                                .build(),
+                        ShortenBatchItemResult.builder()
+                                .index(1)
+                                .error("Invalid URL")
+                                .build()))
+                .build();
+
+        when(urlShortenerService.shortenUrls(any()))
+                .thenReturn(mockResponse);
+
+        mockMvc.perform(post("/api/shorten/batch")
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isMultiStatus())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.results[0].result.shortCode").value("xyz789"))
+                .andExpect(jsonPath("$.results[1].error").value("Invalid URL"));
+    }
+
     @Test
     public void test_postShortenUrl_invalidUrl_400() throws Exception {
         final String invalidUrl = "example/";
@@ -0,0 +1,107 @@
+package org.js.urlshortener.events;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.js.urlshortener.config.LinkEventsProperties;
+import org.js.urlshortener.repository.OutboxEvent;
+import org.js.urlshortener.repository.UrlOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class OutboxRelayTests {
+
+    private static final String TOPIC = "url-lifecycle";
+
+    @Mock
+    private UrlOutboxRepository urlOutboxRepository;
+
+    @Mock
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private LinkEventsProperties properties;
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        properties = new LinkEventsProperties();
+        properties.setEnabled(true);
+        properties.setBatchSize(2);
+        properties.setMaxBatchesPerRun(3);
+
+        ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+        outboxRelay = new OutboxRelay(urlOutboxRepository, kafkaTemplate, new TransactionTemplate(transactionManager),
+                objectMapper, properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    public void test_relay_sendsKeyedByShortCodeThenDeletes() {
+        OutboxEvent created = new OutboxEvent(1, OutboxEvent.CREATED, "abc123", "https://example.com",
+                LocalDateTime.now().plusDays(1));
+        OutboxEvent deleted = new OutboxEvent(2, OutboxEvent.DELETED, "xyz789", null, null);
+
+        when(urlOutboxRepository.tryLockRelay()).thenReturn(true);
+        when(urlOutboxRepository.findOldest(2)).thenReturn(List.of(created, deleted), List.of());
+        when(kafkaTemplate.send(eq(TOPIC), anyString(), anyString())).thenReturn(CompletableFuture.completedFuture(null));
+
+        outboxRelay.relay();
+
+        verify(kafkaTemplate).send(eq(TOPIC), eq("abc123"),
+                argThat(json -> json.contains("\"type\":\"CREATED\"") && json.contains("https://example.com")));
+        verify(kafkaTemplate).send(eq(TOPIC), eq("xyz789"),
+                argThat(json -> json.contains("\"type\":\"DELETED\"") && !json.contains("longUrl")));
+        verify(urlOutboxRepository).delete(List.of(1L, 2L));
+        // A full batch is followed by another read, an empty one ends the run
+        verify(urlOutboxRepository, times(2)).findOldest(2);
+    }
+
+    @Test
+    public void test_relay_unacknowledgedBatchIsKeptAndRolledBack() {
+        OutboxEvent created = new OutboxEvent(1, OutboxEvent.CREATED, "abc123", "https://example.com", null);
+
+        when(urlOutboxRepository.tryLockRelay()).thenReturn(true);
+        when(urlOutboxRepository.findOldest(2)).thenReturn(List.of(created));
+        when(kafkaTemplate.send(eq(TOPIC), anyString(), anyString()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker unavailable")));
+
+        outboxRelay.relay();
+
+        verify(urlOutboxRepository, never()).delete(anyCollection());
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    public void test_relay_skippedWhileAnotherReplicaRelays() {
+        when(urlOutboxRepository.tryLockRelay()).thenReturn(false);
+
+        outboxRelay.relay();
+
+        verify(urlOutboxRepository, never()).findOldest(anyInt());
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), anyString());
+    }
+}
@@ -0,0 +1,81 @@
+package org.js.urlshortener.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.js.urlshortener.config.ReaperProperties;
+import org.js.urlshortener.repository.UrlPartitionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ExpiredUrlReaperTests {
+
+    @Mock
+    private UrlPartitionRepository urlPartitionRepository;
+
+    private ExpiredUrlReaper reaper;
+
+    @BeforeEach
+    void setUp() {
+        ReaperProperties properties = new ReaperProperties();
+        properties.setBatchSize(2);
+        properties.setMaxBatchesPerRun(2);
+        properties.setPauseBetweenBatches(Duration.ZERO);
+
+        reaper = new ExpiredUrlReaper(urlPartitionRepository, properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    public void test_reap_releasesCodesBeforeDroppingPartitions() {
+        LocalDate today = LocalDate.now();
+        when(urlPartitionRepository.releaseExpiredCodes(today, 2)).thenReturn(2, 1);
+        when(urlPartitionRepository.findPartitionsBefore(today)).thenReturn(List.of("url_links_p20260101"));
+
+        reaper.reap();
+
+        InOrder inOrder = inOrder(urlPartitionRepository);
+        inOrder.verify(urlPartitionRepository, times(2)).releaseExpiredCodes(today, 2);
+        inOrder.verify(urlPartitionRepository).dropPartition("url_links_p20260101");
+    }
+
+    @Test
+    public void test_reap_codesLeftAfterRun_noPartitionDropped() {
+        when(urlPartitionRepository.releaseExpiredCodes(any(LocalDate.class), eq(2))).thenReturn(2);
+
+        reaper.reap();
+
+        verify(urlPartitionRepository, never()).findPartitionsBefore(any());
+        verify(urlPartitionRepository, never()).dropPartition(anyString());
+    }
+
+    @Test
+    public void test_reap_lockTimeout_stopsDroppingUntilNextRun() {
+        when(urlPartitionRepository.releaseExpiredCodes(any(LocalDate.class), eq(2))).thenReturn(0);
+        when(urlPartitionRepository.findPartitionsBefore(any(LocalDate.class)))
+                .thenReturn(List.of("url_links_p20260101", "url_links_p20260108"));
+        doThrow(new CannotAcquireLockException("lock timeout"))
+                .when(urlPartitionRepository).dropPartition("url_links_p20260101");
+
+        reaper.reap();
+
+        verify(urlPartitionRepository, never()).dropPartition("url_links_p20260108");
+    }
+}
@@ -0,0 +1,166 @@
+package org.js.urlshortener.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.js.urlshortener.config.CodePoolProperties;
+import org.js.urlshortener.config.ShortCodeProperties;
+import org.js.urlshortener.repository.ShortCodePoolRepository;
+import org.js.urlshortener.utils.UrlShortCodeUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ShortCodePoolTests {
+
+    @Mock
+    private ShortCodePoolRepository shortCodePoolRepository;
+
+    @Mock
+    private UrlShortCodeUtils urlShortCodeUtils;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CodePoolProperties properties;
+    private ShortCodePool shortCodePool;
+
+    @BeforeEach
+    void setUp() {
+        ShortCodeProperties shortCodeProperties = new ShortCodeProperties();
+        shortCodeProperties.setStrategy(ShortCodeProperties.Strategy.POOL);
+
+        properties = new CodePoolProperties();
+        properties.setClaimSize(3);
+        // No background claims, so every claim below is the inline one
+        properties.setLocalLowWaterMark(0);
+        properties.setLowWaterMark(4);
+        properties.setRefillBatchSize(2);
+
+        shortCodePool = new ShortCodePool(
+                shortCodePoolRepository, urlShortCodeUtils, shortCodeProperties, properties,
+                new TransactionTemplate(transactionManager), new SimpleMeterRegistry());
+    }
+
+    @Test
+    public void test_take_claimsChunkOnceAndServesFromMemory() {
+        when(shortCodePoolRepository.claim(anyString(), eq(3), any()))
+                .thenReturn(List.of("aaaaaa", "bbbbbb", "cccccc"));
+
+        assertEquals("aaaaaa", shortCodePool.take());
+        assertEquals("bbbbbb", shortCodePool.take());
+        assertEquals("cccccc", shortCodePool.take());
+
+        verify(shortCodePoolRepository, times(1)).claim(anyString(), anyInt(), any());
+    }
+
+    @Test
+    public void test_take_inlineClaimRunsInItsOwnTransaction() {
+        when(shortCodePoolRepository.claim(anyString(), eq(3), any())).thenReturn(List.of("aaaaaa"));
+
+        assertEquals("aaaaaa", shortCodePool.take());
+
+        // Not joined to the create's transaction, so the claim neither holds locks nor rolls back with it
+        verify(transactionManager).getTransaction(argThat(definition ->
+                definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    public void test_take_emptyPoolReturnsNull() {
+        when(shortCodePoolRepository.claim(anyString(), anyInt(), any())).thenReturn(List.of());
+
+        assertNull(shortCodePool.take());
+    }
+
+    @Test
+    public void test_refill_belowLowWaterMarkInsertsUntilFull() {
+        when(shortCodePoolRepository.countUnclaimed()).thenReturn(1L);
+        when(urlShortCodeUtils.generateShortCode()).thenReturn("aaaaaa", "bbbbbb", "cccccc", "dddddd");
+        when(shortCodePoolRepository.insertUnused(anyCollection())).thenReturn(2);
+
+        shortCodePool.refill();
+
+        // 1 unclaimed + 2 per batch: two batches reach the low-water mark of 4
+        verify(shortCodePoolRepository, times(2)).insertUnused(argThat((Collection<String> codes) -> codes.size() == 2));
+        verify(shortCodePoolRepository).deleteUsed();
+    }
+
+    @Test
+    public void test_refill_aboveLowWaterMarkInsertsNothing() {
+        when(shortCodePoolRepository.countUnclaimed()).thenReturn(10L);
+
+        shortCodePool.refill();
+
+        verify(shortCodePoolRepository, never()).insertUnused(anyCollection());
+    }
+
+    @Test
+    public void test_release_returnsUnusedCodes() {
+        when(shortCodePoolRepository.claim(anyString(), anyInt(), any()))
+                .thenReturn(List.of("aaaaaa", "bbbbbb", "cccccc"));
+
+        shortCodePool.take();
+        shortCodePool.release();
+
+        verify(shortCodePoolRepository).release(anyString(), eq(List.of("bbbbbb", "cccccc")));
+    }
+
+    @Test
+    public void test_take_codeOfRolledBackTransactionServedAgain() {
+        when(shortCodePoolRepository.claim(anyString(), eq(3), any()))
+                .thenReturn(List.of("aaaaaa", "bbbbbb", "cccccc"));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertEquals("aaaaaa", shortCodePool.take());
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals("bbbbbb", shortCodePool.take());
+        assertEquals("cccccc", shortCodePool.take());
+        assertEquals("aaaaaa", shortCodePool.take());
+        verify(shortCodePoolRepository, times(1)).claim(anyString(), anyInt(), any());
+    }
+
+    @Test
+    public void test_take_codeOfCommittedTransactionNotServedAgain() {
+        when(shortCodePoolRepository.claim(anyString(), eq(3), any()))
+                .thenReturn(List.of("aaaaaa"), List.of());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertEquals("aaaaaa", shortCodePool.take());
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertNull(shortCodePool.take());
+    }
+}
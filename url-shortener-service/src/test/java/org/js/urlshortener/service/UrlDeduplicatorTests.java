@@ -0,0 +1,127 @@
+package org.js.urlshortener.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.js.urlshortener.config.DedupProperties;
+import org.js.urlshortener.persistence.entity.UrlEntity;
+import org.js.urlshortener.repository.UrlRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class UrlDeduplicatorTests {
+
+    @Mock
+    private UrlRepository urlRepository;
+
+    private DedupProperties properties;
+    private UrlDeduplicator urlDeduplicator;
+
+    @BeforeEach
+    void setUp() {
+        properties = new DedupProperties();
+        properties.setEnabled(true);
+        urlDeduplicator = new UrlDeduplicator(urlRepository, properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    public void test_hashOf_equivalentUrlsMatch() {
+        // Hashes the stored canonical form, whatever form is passed
+        assertEquals(urlDeduplicator.hashOf("https://example.com/"), urlDeduplicator.hashOf("example.com"));
+        assertEquals(urlDeduplicator.hashOf("https://example.com/"), urlDeduplicator.hashOf("HTTPS://Example.COM:443"));
+        assertEquals(urlDeduplicator.hashOf("https://example.com/A~"), urlDeduplicator.hashOf("example.com/%41%7e"));
+        // Paths are case-sensitive
+        assertNotEquals(urlDeduplicator.hashOf("https://example.com/A"), urlDeduplicator.hashOf("https://example.com/a"));
+    }
+
+    @Test
+    public void test_findReusable_onlyLinksOfTheSameUrl() {
+        LocalDateTime expiresAt = LocalDateTime.now().plusDays(1);
+        UrlEntity otherUrl = UrlEntity.builder()
+                .shortCode("hash01")
+                .longUrl("https://other.com/")
+                .expiresAt(expiresAt.plusDays(1))
+                .build();
+        UrlEntity sameUrl = UrlEntity.builder()
+                .shortCode("same01")
+                .longUrl("EXAMPLE.com")
+                .expiresAt(expiresAt.plusDays(2))
+                .build();
+
+        // The first candidate only shares the hash
+        when(urlRepository.findValidByLongUrlHash(anyLong(), any())).thenReturn(List.of(otherUrl, sameUrl));
+
+        Optional<UrlEntity> reusable = urlDeduplicator.findReusable("https://example.com", expiresAt);
+
+        assertEquals("same01", reusable.orElseThrow().getShortCode());
+    }
+
+    @Test
+    public void test_findReusable_recentLinkReusedOnlyIfItLivesLongEnough() {
+        LocalDateTime now = LocalDateTime.now();
+        UrlEntity created = UrlEntity.builder()
+                .shortCode("abc123")
+                .longUrl("https://example.com")
+                .expiresAt(now.plusDays(7))
+                .build();
+        urlDeduplicator.remember(created);
+
+        when(urlRepository.existsByShortCode("abc123")).thenReturn(true);
+        assertEquals("abc123", urlDeduplicator.findReusable("example.com", now.plusDays(1)).orElseThrow().getShortCode());
+        verify(urlRepository, never()).findValidByLongUrlHash(anyLong(), any());
+
+        // Asked to outlive it: not reused, and the database has nothing either
+        when(urlRepository.findValidByLongUrlHash(anyLong(), any())).thenReturn(List.of());
+        assertTrue(urlDeduplicator.findReusable("example.com", now.plusDays(30)).isEmpty());
+    }
+
+    @Test
+    public void test_findReusable_forgottenAfterDelete() {
+        UrlEntity created = UrlEntity.builder()
+                .shortCode("abc123")
+                .longUrl("https://example.com")
+                .expiresAt(LocalDateTime.now().plusDays(7))
+                .build();
+        urlDeduplicator.remember(created);
+        urlDeduplicator.forget("abc123");
+
+        when(urlRepository.findValidByLongUrlHash(anyLong(), any())).thenReturn(List.of());
+        assertTrue(urlDeduplicator.findReusable("https://example.com", LocalDateTime.now()).isEmpty());
+    }
+
+    @Test
+    public void test_findReusable_recentLinkDeletedElsewhereNotReused() {
+        UrlEntity created = UrlEntity.builder()
+                .shortCode("abc123")
+                .longUrl("https://example.com")
+                .expiresAt(LocalDateTime.now().plusDays(7))
+                .build();
+        urlDeduplicator.remember(created);
+
+        // Deleted through another replica, whose forget never reached this one
+        when(urlRepository.existsByShortCode("abc123")).thenReturn(false);
+        when(urlRepository.findValidByLongUrlHash(anyLong(), any())).thenReturn(List.of());
+        assertTrue(urlDeduplicator.findReusable("https://example.com", LocalDateTime.now()).isEmpty());
+    }
+
+    @Test
+    public void test_findReusable_disabled() {
+        properties.setEnabled(false);
+
+        assertTrue(urlDeduplicator.findReusable("https://example.com", LocalDateTime.now()).isEmpty());
+        verify(urlRepository, never()).findValidByLongUrlHash(anyLong(), any());
+    }
+}
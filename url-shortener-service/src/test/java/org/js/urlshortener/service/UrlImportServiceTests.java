@@ -0,0 +1,200 @@
+package org.js.urlshortener.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.js.urlshortener.cache.RedirectCacheClient;
+import org.js.urlshortener.config.ImportProperties;
+import org.js.urlshortener.repository.ImportProgress;
+import org.js.urlshortener.repository.StagedUrl;
+import org.js.urlshortener.repository.UrlBatchRepository;
+import org.js.urlshortener.repository.UrlImportRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class UrlImportServiceTests {
+
+    @Mock
+    private UrlImportRepository urlImportRepository;
+
+    @Mock
+    private UrlBatchRepository urlBatchRepository;
+
+    @Mock
+    private UrlShortenerService urlShortenerService;
+
+    @Mock
+    private RedirectCacheClient redirectCacheClient;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private UrlDeduplicator urlDeduplicator;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private UrlImportService urlImportService;
+
+    @BeforeEach
+    void setUp() {
+        ImportProperties properties = new ImportProperties();
+        properties.setChunkSize(10);
+
+        urlImportService = new UrlImportService(
+                urlImportRepository,
+                urlBatchRepository,
+                urlShortenerService,
+                redirectCacheClient,
+                transactionTemplate,
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                objectMapper,
+                properties,
+                urlDeduplicator);
+
+        // Lenient: a test of a failed commit replaces it
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    public void test_importNdjson_keepsSuppliedCodesAndRejectsInvalidRows() throws Exception {
+        String input = """
+                {"url":"https://a.com","shortCode":"abc123"}
+                {"url":"example/"}
+                not json
+                {"url":"https://b.com"}
+                {"url":"https://c.com","shortCode":"abc123"}
+                """;
+
+        when(urlImportRepository.findProgress("m1")).thenReturn(ImportProgress.NONE);
+        when(urlShortenerService.allocateShortCodes(1)).thenReturn(List.of("zzzzzz"));
+        when(urlImportRepository.copyAndInsert(anyList())).thenReturn(Set.of("abc123", "zzzzzz"));
+
+        List<JsonNode> events = run(input, UrlImportService.Format.NDJSON, "m1");
+
+        assertEquals("Invalid URL", events.get(0).get("error").asText());
+        assertEquals(2, events.get(0).get("line").asLong());
+        assertEquals("Malformed row", events.get(1).get("error").asText());
+        // A second row with the same code loses to the first
+        assertEquals("Short code already exists", events.get(2).get("error").asText());
+        assertEquals(5, events.get(2).get("line").asLong());
+        assertEquals("progress", events.get(3).get("type").asText());
+        assertEquals("done", events.get(4).get("type").asText());
+        assertEquals(2, events.get(4).get("imported").asLong());
+        assertEquals(3, events.get(4).get("rejected").asLong());
+
+        verify(urlImportRepository).saveProgress("m1", new ImportProgress(5, 2, 3));
+        verify(redirectCacheClient).clearTombstones(Set.of("abc123", "zzzzzz"));
+        verify(urlBatchRepository, never()).insertIgnoringTakenCodes(anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_importCsv_resumesAfterCommittedLines() throws Exception {
+        String input = """
+                url,shortCode,validForDays
+                "https://a.com/x,y",abc123,30
+                https://b.com,,7
+                """;
+
+        when(urlImportRepository.findProgress("m1")).thenReturn(new ImportProgress(2, 1, 0));
+        when(urlShortenerService.allocateShortCodes(1)).thenReturn(List.of("zzzzzz"));
+        when(urlImportRepository.copyAndInsert(anyList())).thenReturn(Set.of("zzzzzz"));
+        when(urlDeduplicator.hashOf("https://b.com/")).thenReturn(42L);
+
+        List<JsonNode> events = run(input, UrlImportService.Format.CSV, "m1");
+
+        ArgumentCaptor<List<StagedUrl>> staged = ArgumentCaptor.forClass(List.class);
+        verify(urlImportRepository).copyAndInsert(staged.capture());
+        assertEquals(1, staged.getValue().size());
+        assertEquals(3, staged.getValue().get(0).line());
+        assertEquals("https://b.com/", staged.getValue().get(0).longUrl());
+        // Stored with the link, so dedup finds imported links
+        assertEquals(42L, staged.getValue().get(0).longUrlHash());
+
+        assertEquals(2, events.get(events.size() - 1).get("imported").asLong());
+        verify(urlImportRepository).saveProgress(eq("m1"), eq(new ImportProgress(3, 2, 0)));
+    }
+
+    @Test
+    public void test_importCsv_quotedUrlWithComma() throws Exception {
+        String input = "\"https://a.com/x,y\",abc123,30\n";
+
+        when(urlShortenerService.allocateShortCodes(0)).thenReturn(List.of());
+        when(urlImportRepository.copyAndInsert(anyList())).thenReturn(Set.of("abc123"));
+
+        List<JsonNode> events = run(input, UrlImportService.Format.CSV, null);
+
+        assertEquals(1, events.get(events.size() - 1).get("imported").asLong());
+        verify(urlImportRepository, never()).saveProgress(any(), any());
+    }
+
+    @Test
+    public void test_importNdjson_namesBadValidity() throws Exception {
+        String input = """
+                {"url":"https://a.com","validForDays":0}
+                {"url":"https://b.com","validForDays":400}
+                """;
+
+        List<JsonNode> events = run(input, UrlImportService.Format.NDJSON, null);
+
+        assertEquals("Valid for days must be at least 1", events.get(0).get("error").asText());
+        assertEquals("Valid for days cannot exceed 365", events.get(1).get("error").asText());
+        assertEquals(2, events.get(events.size() - 1).get("rejected").asLong());
+    }
+
+    @Test
+    public void test_importNdjson_failedCommitStopsWithFailedEvent() throws Exception {
+        String input = "{\"url\":\"https://a.com\",\"shortCode\":\"abc123\"}\n";
+
+        when(urlImportRepository.findProgress("m1")).thenReturn(ImportProgress.NONE);
+        // The rows were written, but the commit itself failed
+        doThrow(new TransactionSystemException("Could not commit")).when(transactionTemplate).execute(any());
+
+        List<JsonNode> events = run(input, UrlImportService.Format.NDJSON, "m1");
+
+        assertEquals(1, events.size());
+        assertEquals("failed", events.get(0).get("type").asText());
+        assertEquals("Failed to save rows", events.get(0).get("error").asText());
+        assertEquals(0, events.get(0).get("linesCommitted").asLong());
+        verify(redirectCacheClient, never()).clearTombstones(any());
+    }
+
+    private List<JsonNode> run(String input, UrlImportService.Format format, String importId) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        urlImportService.importUrls(
+                new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), format, importId, output);
+
+        List<JsonNode> events = new ArrayList<>();
+        for (String line : output.toString(StandardCharsets.UTF_8).split("\n")) {
+            events.add(objectMapper.readTree(line));
+        }
+        return events;
+    }
+}
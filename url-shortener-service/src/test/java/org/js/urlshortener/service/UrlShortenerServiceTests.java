@@ -1,10 +1,21 @@
 package org.js.urlshortener.service;
 
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.js.urlshortener.cache.RedirectCacheClient;
+import org.js.urlshortener.config.BatchShortenProperties;
+import org.js.urlshortener.config.LinkEventsProperties;
+import org.js.urlshortener.config.ShortCodeProperties;
 import org.js.urlshortener.controller.mapper.UrlMapper;
+import org.js.urlshortener.controller.model.PostUrlShortenBatchRequest;
 import org.js.urlshortener.controller.model.PostUrlShortenRequest;
+import org.js.urlshortener.controller.model.ShortenBatchResponse;
 import org.js.urlshortener.controller.model.ShortenResponse;
 import org.js.urlshortener.exception.model.UrlNotFoundException;
 import org.js.urlshortener.persistence.entity.UrlEntity;
+import org.js.urlshortener.repository.OutboxEvent;
+import org.js.urlshortener.repository.UrlBatchRepository;
+import org.js.urlshortener.repository.UrlOutboxRepository;
 import org.js.urlshortener.repository.UrlRepository;
 import org.js.urlshortener.utils.UrlShortCodeUtils;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,17 +23,21 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
-import static org.js.urlshortener.service.UrlShortenerService.MAX_COLLISION_RETRIES;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.argThat;
-import static org.mockito.Mockito.atMost;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -40,6 +55,36 @@ public class UrlShortenerServiceTests {
     @Mock
     private UrlShortCodeUtils urlShortCodeUtils;
 
+    @Mock
+    private RedirectCacheClient redirectCacheClient;
+
+    @Spy
+    private ShortCodeProperties shortCodeProperties = new ShortCodeProperties();
+
+    @Mock
+    private ShortCodeIdAllocator shortCodeIdAllocator;
+
+    @Mock
+    private ShortCodePool shortCodePool;
+
+    @Mock
+    private UrlBatchRepository urlBatchRepository;
+
+    @Spy
+    private BatchShortenProperties batchShortenProperties = new BatchShortenProperties();
+
+    @Mock
+    private Validator validator;
+
+    @Mock
+    private UrlDeduplicator urlDeduplicator;
+
+    @Mock
+    private UrlOutboxRepository urlOutboxRepository;
+
+    @Spy
+    private LinkEventsProperties linkEventsProperties = new LinkEventsProperties();
+
     @InjectMocks
     private UrlShortenerService urlShortenerService;
 
@@ -72,10 +117,9 @@ public class UrlShortenerServiceTests {
                 .build();
 
         // When - Mock the dependencies
-        when(urlRepository.findByShortCode(anyString())).thenReturn(Optional.empty());
         when(urlMapper.mapToUrlEntity(any(), anyString(), any(LocalDateTime.class), any(LocalDateTime.class)))
                 .thenReturn(mockEntity);
-        when(urlRepository.save(any(UrlEntity.class))).thenReturn(mockEntity);
+        when(urlBatchRepository.insertIgnoringTakenCodes(List.of(mockEntity))).thenReturn(Set.of("xyz789"));
         when(urlMapper.mapUrlEntityToResponse(any(UrlEntity.class))).thenReturn(mockResponse);
 
         // Execute the method
@@ -94,9 +138,10 @@ public class UrlShortenerServiceTests {
         );
 
         assertNotNull(response);
-        // Verifies .save called only once
-        verify(urlRepository, times(1)).save(any());
-        verify(urlRepository, atMost(MAX_COLLISION_RETRIES)).findByShortCode(any());
+        // Inserted once, through the url_codes claim
+        verify(urlBatchRepository, times(1)).insertIgnoringTakenCodes(anyList());
+        verify(urlRepository, never()).save(any());
+        verify(urlRepository, never()).findByShortCode(any());
     }
 
     @Test
@@ -130,10 +175,9 @@ public class UrlShortenerServiceTests {
                 .build();
 
         // When - Mock the dependencies
-        when(urlRepository.findByShortCode(anyString())).thenReturn(Optional.empty());
         when(urlMapper.mapToUrlEntity(any(), anyString(), any(LocalDateTime.class), any(LocalDateTime.class)))
                 .thenReturn(mockEntity);
-        when(urlRepository.save(any(UrlEntity.class))).thenReturn(mockEntity);
+        when(urlBatchRepository.insertIgnoringTakenCodes(List.of(mockEntity))).thenReturn(Set.of("abc123"));
         when(urlMapper.mapUrlEntityToResponse(any(UrlEntity.class))).thenReturn(mockResponse);
 
         // Execute the method
@@ -155,41 +199,44 @@ public class UrlShortenerServiceTests {
     }
 
     @Test
-    public void test_generateExpiredShortCode() {
+    public void test_takenShortCode_redrawnOnInsert() {
         // Given
         final String validUrl = "https://google.com";
         request.setUrl(validUrl);
 
-        final String duplicateShortCode = "abc123";
+        // Taken by a link that expired but is not reaped yet
+        final String takenShortCode = "abc123";
+        final String freeShortCode = "def456";
 
-        UrlEntity expiredEntity = UrlEntity.builder()
-                .shortCode(duplicateShortCode)
-                .longUrl("randomUrl.com")
+        UrlEntity takenEntity = UrlEntity.builder()
+                .shortCode(takenShortCode)
+                .longUrl(validUrl)
                 .createdAt(LocalDateTime.now())
-                .expiresAt(LocalDateTime.now().minusDays(10))
+                .expiresAt(LocalDateTime.now().plusDays(1))
                 .build();
 
         UrlEntity newEntity = UrlEntity.builder()
-                .shortCode(duplicateShortCode)
+                .shortCode(freeShortCode)
                 .longUrl(validUrl)
                 .createdAt(LocalDateTime.now())
                 .expiresAt(LocalDateTime.now().plusDays(1))
                 .build();
 
         ShortenResponse mockResponse = ShortenResponse.builder()
-                .shortCode(duplicateShortCode)
+                .shortCode(freeShortCode)
                 .originalUrl(validUrl)
                 .expiresAt(LocalDateTime.now().plusDays(1))
                 .build();
 
 
-        when(urlRepository.findByShortCode(any()))
-                .thenReturn(Optional.of(expiredEntity));
-        when(urlMapper.mapToUrlEntity(any(), anyString(), any(LocalDateTime.class), any(LocalDateTime.class)))
+        when(urlMapper.mapToUrlEntity(any(), eq(takenShortCode), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(takenEntity);
+        when(urlMapper.mapToUrlEntity(any(), eq(freeShortCode), any(LocalDateTime.class), any(LocalDateTime.class)))
                 .thenReturn(newEntity);
-        when(urlRepository.save(any(UrlEntity.class))).thenReturn(newEntity);
-        when(urlMapper.mapUrlEntityToResponse(any(UrlEntity.class))).thenReturn(mockResponse);
-        when(urlShortCodeUtils.generateShortCode()).thenReturn(duplicateShortCode);
+        when(urlBatchRepository.insertIgnoringTakenCodes(List.of(takenEntity))).thenReturn(Set.of());
+        when(urlBatchRepository.insertIgnoringTakenCodes(List.of(newEntity))).thenReturn(Set.of(freeShortCode));
+        when(urlMapper.mapUrlEntityToResponse(newEntity)).thenReturn(mockResponse);
+        when(urlShortCodeUtils.generateShortCode()).thenReturn(takenShortCode, freeShortCode);
 
         ShortenResponse response = urlShortenerService.shortenUrl(request);
 
@@ -197,13 +244,233 @@ public class UrlShortenerServiceTests {
         assertEquals(UrlShortenerService.DEFAULT_VALID_FOR_DAYS, request.getValidForDays());
         assertEquals(validUrl, response.getOriginalUrl());
 
-        verify(urlRepository).delete(expiredEntity);
+        // Expired rows are left to the reaper
+        verify(urlRepository, never()).delete(any());
+        verify(urlRepository, never()).findByShortCode(anyString());
 
-        // Verify new entity was saved
-        verify(urlRepository).save(any(UrlEntity.class));
+        // Verify the new link was inserted under the free code
+        verify(urlBatchRepository, times(2)).insertIgnoringTakenCodes(anyList());
+        verify(redirectCacheClient, never()).clearTombstone(takenShortCode);
 
-        // Verify findByShortCode was called only once (expired code found immediately)
-        verify(urlRepository, times(1)).findByShortCode(duplicateShortCode);
+        // New code must not stay tombstoned in redirect-service
+        verify(redirectCacheClient).clearTombstone(freeShortCode);
+    }
+
+    @Test
+    public void test_counterStrategy_noLookup() {
+        // Given
+        final String validUrl = "https://google.com";
+        final String counterShortCode = "R2R4DG";
+        request.setUrl(validUrl);
+        shortCodeProperties.setStrategy(ShortCodeProperties.Strategy.COUNTER);
+
+        UrlEntity newEntity = UrlEntity.builder()
+                .shortCode(counterShortCode)
+                .longUrl(validUrl)
+                .createdAt(LocalDateTime.now())
+                .expiresAt(LocalDateTime.now().plusDays(1))
+                .build();
+
+        ShortenResponse mockResponse = ShortenResponse.builder()
+                .shortCode(counterShortCode)
+                .originalUrl(validUrl)
+                .expiresAt(LocalDateTime.now().plusDays(1))
+                .build();
+
+        when(shortCodeIdAllocator.nextId()).thenReturn(42L);
+        when(urlShortCodeUtils.encodeId(42L)).thenReturn(counterShortCode);
+        when(urlMapper.mapToUrlEntity(any(), anyString(), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(newEntity);
+        when(urlBatchRepository.insertIgnoringTakenCodes(List.of(newEntity))).thenReturn(Set.of(counterShortCode));
+        when(urlMapper.mapUrlEntityToResponse(any(UrlEntity.class))).thenReturn(mockResponse);
+
+        // When
+        ShortenResponse response = urlShortenerService.shortenUrl(request);
+
+        // Then
+        assertEquals(counterShortCode, response.getShortCode());
+        verify(urlMapper).mapToUrlEntity(any(), eq(counterShortCode), any(LocalDateTime.class), any(LocalDateTime.class));
+        verify(urlRepository, never()).findByShortCode(anyString());
+        verify(urlShortCodeUtils, never()).generateShortCode();
+    }
+
+    @Test
+    public void test_counterStrategy_takenCodeDrawsNextId() {
+        // Given
+        final String validUrl = "https://google.com";
+        request.setUrl(validUrl);
+        shortCodeProperties.setStrategy(ShortCodeProperties.Strategy.COUNTER);
+
+        // The first counter code was issued earlier as a random code of the same length
+        UrlEntity takenEntity = UrlEntity.builder().shortCode("R2R4DG").longUrl(validUrl).build();
+        UrlEntity newEntity = UrlEntity.builder().shortCode("K7Q1ZB").longUrl(validUrl).build();
+
+        when(shortCodeIdAllocator.nextId()).thenReturn(42L, 43L);
+        when(urlShortCodeUtils.encodeId(42L)).thenReturn("R2R4DG");
+        when(urlShortCodeUtils.encodeId(43L)).thenReturn("K7Q1ZB");
+        when(urlMapper.mapToUrlEntity(any(), eq("R2R4DG"), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(takenEntity);
+        when(urlMapper.mapToUrlEntity(any(), eq("K7Q1ZB"), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(newEntity);
+        when(urlBatchRepository.insertIgnoringTakenCodes(List.of(takenEntity))).thenReturn(Set.of());
+        when(urlBatchRepository.insertIgnoringTakenCodes(List.of(newEntity))).thenReturn(Set.of("K7Q1ZB"));
+
+        // When
+        urlShortenerService.shortenUrl(request);
+
+        // Then
+        verify(shortCodeIdAllocator, times(2)).nextId();
+        verify(urlMapper).mapUrlEntityToResponse(newEntity);
+        verify(redirectCacheClient).clearTombstone("K7Q1ZB");
+    }
+
+    @Test
+    public void test_poolStrategy_takesPooledCodeWithoutLookup() {
+        // Given
+        final String validUrl = "https://google.com";
+        final String pooledShortCode = "pool01";
+        request.setUrl(validUrl);
+        shortCodeProperties.setStrategy(ShortCodeProperties.Strategy.POOL);
+
+        UrlEntity newEntity = UrlEntity.builder()
+                .shortCode(pooledShortCode)
+                .longUrl(validUrl)
+                .createdAt(LocalDateTime.now())
+                .expiresAt(LocalDateTime.now().plusDays(1))
+                .build();
+
+        when(shortCodePool.take()).thenReturn(pooledShortCode);
+        when(urlMapper.mapToUrlEntity(any(), anyString(), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(newEntity);
+        when(urlBatchRepository.insertIgnoringTakenCodes(List.of(newEntity))).thenReturn(Set.of(pooledShortCode));
+
+        // When
+        urlShortenerService.shortenUrl(request);
+
+        // Then
+        verify(urlMapper).mapToUrlEntity(any(), eq(pooledShortCode), any(LocalDateTime.class), any(LocalDateTime.class));
+        verify(urlRepository, never()).findByShortCode(anyString());
+    }
+
+    @Test
+    public void test_poolStrategy_emptyPoolFallsBackToRandomCode() {
+        // Given
+        final String validUrl = "https://google.com";
+        final String randomShortCode = "rand01";
+        request.setUrl(validUrl);
+        shortCodeProperties.setStrategy(ShortCodeProperties.Strategy.POOL);
+
+        UrlEntity newEntity = UrlEntity.builder()
+                .shortCode(randomShortCode)
+                .longUrl(validUrl)
+                .createdAt(LocalDateTime.now())
+                .expiresAt(LocalDateTime.now().plusDays(1))
+                .build();
+
+        when(shortCodePool.take()).thenReturn(null);
+        when(urlShortCodeUtils.generateShortCode()).thenReturn(randomShortCode);
+        when(urlMapper.mapToUrlEntity(any(), anyString(), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(newEntity);
+        when(urlBatchRepository.insertIgnoringTakenCodes(List.of(newEntity))).thenReturn(Set.of(randomShortCode));
+
+        // When
+        urlShortenerService.shortenUrl(request);
+
+        // Then
+        verify(urlMapper).mapToUrlEntity(any(), eq(randomShortCode), any(LocalDateTime.class), any(LocalDateTime.class));
+    }
+
+    @Test
+    public void test_shortenUrls_insertsInChunksWithPerItemResults() {
+        // Given
+        PostUrlShortenRequest first = PostUrlShortenRequest.builder().url("https://a.com").build();
+        PostUrlShortenRequest invalid = PostUrlShortenRequest.builder().url("not a url").build();
+        PostUrlShortenRequest second = PostUrlShortenRequest.builder().url("https://b.com").build();
+        PostUrlShortenRequest third = PostUrlShortenRequest.builder().url("https://c.com").build();
+        PostUrlShortenBatchRequest batchRequest = PostUrlShortenBatchRequest.builder()
+                .items(List.of(first, invalid, second, third))
+                .build();
+        batchShortenProperties.setChunkSize(2);
+
+        Validator realValidator = Validation.buildDefaultValidatorFactory().getValidator();
+        doAnswer(invocation -> realValidator.validate(invocation.<PostUrlShortenRequest>getArgument(0)))
+                .when(validator).validate(any(PostUrlShortenRequest.class));
+        when(urlShortCodeUtils.generateShortCode()).thenReturn("aaaaaa", "bbbbbb", "cccccc", "dddddd");
+        when(urlMapper.mapToUrlEntity(any(), anyString(), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenAnswer(invocation -> UrlEntity.builder()
+                        .shortCode(invocation.getArgument(1))
+                        .longUrl(((PostUrlShortenRequest) invocation.getArgument(0)).getUrl())
+                        .build());
+        when(urlMapper.mapUrlEntityToResponse(any(UrlEntity.class)))
+                .thenAnswer(invocation -> ShortenResponse.builder()
+                        .shortCode(((UrlEntity) invocation.getArgument(0)).getShortCode())
+                        .build());
+        // "bbbbbb" is already taken, so the second item is retried under the next code
+        when(urlBatchRepository.insertIgnoringTakenCodes(anyList()))
+                .thenReturn(Set.of("aaaaaa"), Set.of("cccccc"), Set.of("dddddd"));
+
+        // When
+        ShortenBatchResponse response = urlShortenerService.shortenUrls(batchRequest);
+
+        // Then
+        assertEquals(3, response.getCreated());
+        assertEquals(1, response.getFailed());
+        assertEquals("aaaaaa", response.getResults().get(0).getResult().getShortCode());
+        assertEquals("Invalid URL", response.getResults().get(1).getError());
+        assertEquals("cccccc", response.getResults().get(2).getResult().getShortCode());
+        assertEquals("dddddd", response.getResults().get(3).getResult().getShortCode());
+
+        verify(urlBatchRepository, times(3)).insertIgnoringTakenCodes(anyList());
+        verify(urlRepository, never()).save(any());
+        verify(urlRepository, never()).findByShortCode(anyString());
+    }
+
+    @Test
+    public void test_rejectionReason_namesTheFieldAtFault() {
+        Validator realValidator = Validation.buildDefaultValidatorFactory().getValidator();
+
+        assertNull(UrlShortenerService.rejectionReason(realValidator.validate(
+                PostUrlShortenRequest.builder().url("https://a.com").validForDays(30).build())));
+        assertEquals("Valid for days must be at least 1", UrlShortenerService.rejectionReason(realValidator.validate(
+                PostUrlShortenRequest.builder().url("https://a.com").validForDays(0).build())));
+        assertEquals("Valid for days cannot exceed 365", UrlShortenerService.rejectionReason(realValidator.validate(
+                PostUrlShortenRequest.builder().url("https://a.com").validForDays(400).build())));
+        // A bad url wins over a bad validity
+        assertEquals("Invalid URL", UrlShortenerService.rejectionReason(realValidator.validate(
+                PostUrlShortenRequest.builder().url("not a url").validForDays(0).build())));
+    }
+
+    @Test
+    public void test_dedup_existingLinkReturnedWithoutInsert() {
+        // Given
+        final String validUrl = "https://google.com";
+        request.setUrl(validUrl);
+        request.setValidForDays(7);
+
+        UrlEntity existingEntity = UrlEntity.builder()
+                .shortCode("abc123")
+                .longUrl(validUrl)
+                .expiresAt(LocalDateTime.now().plusDays(30))
+                .build();
+
+        ShortenResponse existingResponse = ShortenResponse.builder()
+                .shortCode("abc123")
+                .originalUrl(validUrl)
+                .expiresAt(existingEntity.getExpiresAt())
+                .build();
+
+        // Matched on the canonical form
+        when(urlDeduplicator.findReusable(eq("https://google.com/"), any(LocalDateTime.class))).thenReturn(Optional.of(existingEntity));
+        when(urlMapper.mapUrlEntityToResponse(existingEntity)).thenReturn(existingResponse);
+
+        // When
+        ShortenResponse response = urlShortenerService.shortenUrl(request);
+
+        // Then
+        assertEquals("abc123", response.getShortCode());
+        verify(urlRepository, never()).save(any());
+        verify(urlShortCodeUtils, never()).generateShortCode();
+        verify(redirectCacheClient, never()).clearTombstone(anyString());
     }
 
     @Test
@@ -270,6 +537,29 @@ public class UrlShortenerServiceTests {
         // Then
         verify(urlRepository).findByShortCode(shortCode);
         verify(urlRepository).deleteByShortCode(shortCode);
+        verify(urlOutboxRepository, never()).append(anyString(), anyList());
+    }
+
+    @Test
+    public void test_deleteByShortCode_eventsEnabled_recordsDeletedEvent() {
+        // Given
+        final String shortCode = "abc123";
+        linkEventsProperties.setEnabled(true);
+
+        UrlEntity existingEntity = UrlEntity.builder()
+                .shortCode(shortCode)
+                .longUrl("https://example.com")
+                .build();
+
+        when(urlRepository.findByShortCode(shortCode))
+                .thenReturn(Optional.of(existingEntity));
+
+        // When
+        urlShortenerService.deleteByShortCode(shortCode);
+
+        // Then
+        verify(urlRepository).deleteByShortCode(shortCode);
+        verify(urlOutboxRepository).append(OutboxEvent.DELETED, List.of(existingEntity));
     }
 
     @Test
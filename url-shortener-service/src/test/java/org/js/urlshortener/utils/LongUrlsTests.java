@@ -0,0 +1,50 @@
+package org.js.urlshortener.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LongUrlsTests {
+
+    @Test
+    public void test_canonicalize_schemeHostAndPort() {
+        assertEquals("https://example.com/", LongUrls.canonicalize("example.com"));
+        assertEquals("https://example.com/", LongUrls.canonicalize("HTTPS://Example.COM:443"));
+        assertEquals("http://example.com/", LongUrls.canonicalize("http://example.com:80"));
+        assertEquals("http://example.com:8080/a?b=C#d", LongUrls.canonicalize("http://EXAMPLE.com:8080/a?b=C#d"));
+        assertEquals("https://my_site.example.com/?q=1", LongUrls.canonicalize("my_site.example.com?q=1"));
+    }
+
+    @Test
+    public void test_canonicalize_pathKeepsCaseAndEscapesAreNormalized() {
+        assertEquals("https://example.com/Path/A~%2F%25zz%20x", LongUrls.canonicalize("example.com/Path/%41%7e%2f%zz x"));
+        assertEquals("https://example.com/a#b%23c", LongUrls.canonicalize("example.com/a#b#c"));
+        assertEquals("https://example.com/%C3%BC%F0%9F%98%80", LongUrls.canonicalize("example.com/\u00fc\ud83d\ude00"));
+    }
+
+    @Test
+    public void test_canonicalize_internationalizedHost() {
+        assertEquals("https://xn--bcher-kva.de/", LongUrls.canonicalize("https://B\u00fccher.de"));
+        assertEquals("https://xn--bcher-kva.de/", LongUrls.canonicalize("https://xn--bcher-kva.de"));
+        assertEquals("https://foo.xn--p1ai/", LongUrls.canonicalize("foo.xn--p1ai"));
+    }
+
+    @Test
+    public void test_canonicalize_rejectsInvalidUrls() {
+        for (String url : new String[]{
+                "", "google/", "not a url", "-a.com", "a-.com", "a..com", "a.c", "a.b1", "127.0.0.1",
+                "user@example.com", "example.com:0", "example.com:65536", "example.com:80x", "example.com:8080:9090",
+                "http:example.com",
+                "example.com/\r\nSet-Cookie: a=b", "example.com/\ud83d"}) {
+            assertNull(LongUrls.canonicalize(url), url);
+        }
+    }
+
+    @Test
+    public void test_canonicalize_rejectsLongHostsAndUrlsQuickly() {
+        assertNull(LongUrls.canonicalize("a.".repeat(1000) + "1"));
+        assertNull(LongUrls.canonicalize("a" + ".b".repeat(200) + ".com"));
+        // Escaping can make a URL longer than the column allows
+        assertNull(LongUrls.canonicalize("example.com/" + "\u00fc".repeat(1000)));
+    }
+}
@@ -0,0 +1,79 @@
+package org.js.urlshortener.utils;
+
+import org.js.urlshortener.config.ShortCodeProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UrlShortCodeUtilsTests {
+
+    private ShortCodeProperties properties;
+    private UrlShortCodeUtils urlShortCodeUtils;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ShortCodeProperties();
+        properties.setStrategy(ShortCodeProperties.Strategy.COUNTER);
+        properties.setSecret("test-secret");
+        urlShortCodeUtils = new UrlShortCodeUtils(properties);
+    }
+
+    @Test
+    public void test_encodeId_distinctAndReversible() {
+        Set<String> codes = new HashSet<>();
+
+        for (long id = 0; id < 100_000; id++) {
+            String code = urlShortCodeUtils.encodeId(id);
+
+            assertEquals(6, code.length());
+            assertTrue(codes.add(code), "Duplicate code for id " + id);
+            assertEquals(id, urlShortCodeUtils.decodeId(code));
+        }
+    }
+
+    @Test
+    public void test_encodeId_consecutiveIdsNotSequential() {
+        String first = urlShortCodeUtils.encodeId(1000);
+        String second = urlShortCodeUtils.encodeId(1001);
+
+        // Consecutive ids must not share a prefix the way a plain base62 counter would
+        assertNotEquals(first.substring(0, 4), second.substring(0, 4));
+    }
+
+    @Test
+    public void test_encodeId_longerCodesOnceSpaceUsedUp() {
+        long sixCharacterSpace = 56_800_235_584L;
+
+        assertEquals(6, urlShortCodeUtils.encodeId(sixCharacterSpace - 1).length());
+        assertEquals(7, urlShortCodeUtils.encodeId(sixCharacterSpace).length());
+        assertEquals(sixCharacterSpace, urlShortCodeUtils.decodeId(urlShortCodeUtils.encodeId(sixCharacterSpace)));
+    }
+
+    @Test
+    public void test_encodeId_minLengthKeepsCodesApartFromRandomOnes() {
+        properties.setMinLength(7);
+        UrlShortCodeUtils longer = new UrlShortCodeUtils(properties);
+
+        assertEquals(7, longer.encodeId(0).length());
+        assertEquals(-1, longer.decodeId("abc123"));
+    }
+
+    @Test
+    public void test_encodeId_dependsOnSecret() {
+        properties.setSecret("other-secret");
+        UrlShortCodeUtils otherKey = new UrlShortCodeUtils(properties);
+
+        assertNotEquals(urlShortCodeUtils.encodeId(7), otherKey.encodeId(7));
+    }
+
+    @Test
+    public void test_counterStrategyWithoutSecret_rejected() {
+        properties.setSecret("");
+
+        assertThrows(IllegalStateException.class, () -> new UrlShortCodeUtils(properties));
+    }
+}